@@ -0,0 +1,873 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+
+public class Benchmark
+{
+    // Micro-benchmarks for the hot paths of the checker, with no harness but the JDK (the lexer and
+    // parser are also measured under JMH, by jmh/minic/jmh; the checks that must hold are the tests
+    // of test/). It is built with the tests and the JMH benchmarks, not with the checker:
+    //   mvn test-compile && java -cp target/classes:target/test-classes Benchmark [scenario ...] [-t seconds] [-c corpusdir]
+    // scenarios: lex, parse, parse-table, parse-arena, print, e2e (default: all of them but scaling, retained)
+    //            lex-bytes, parse-bytes : lex, parse over the UTF-8 bytes of the source (ByteLexer)
+    //            parse-arena : the table-driven parse into an Arena instead of a ParseTree
+    //            recognize   : the table-driven parse of the bytes that builds nothing (pass/fail)
+    //            scaling : parse time of one function with 10^3 .. 10^6 statements (should grow linearly)
+    //            retained: heap retained per parsed large input, ParseTree vs Arena
+    //            incremental: a one-char edit in one function of a ~2 MB program (Incremental) vs a full parse
+    //            lsp     : an editor session against LanguageServer: keystroke to diagnostics latency
+    //            daemon  : a check per JVM (java Program file) vs a request to a warm Daemon
+    //            cache   : a cold and a warm run of Batch with a ResultCache over 5000 files, vs hashing them
+    //            startup : time to the first verdict of java Program file, without and with a StartupArchive
+    //            parallel: one ~16 MB file parsed as one and by ParallelParser on 1, 2, 4, ... cores
+    //            events  : e2e without Flight Recorder, while it records other events, and recording Events
+    //            report  : Batch over 20000 small files with each Report format: time and peak heap
+    //            pool    : the parse of a small file by a new Compiler vs by the thread's ParserPool
+    //            pipeline: 2, 8 and 32 MB files parsed with the lexer on the parser's thread vs a TokenPipeline
+    // Every scenario runs over the success and the syntax-error inputs separately, because failing
+    // files stop early and throw, and behave very differently from the success path:
+    //   corpus-succ / corpus-fail : testcases/succ_*.minc / testcases/fail_*.minc
+    //   large-succ  / large-fail  : a generated ~1 MB program / the same with an error at its end
+    // For each run it reports ops/s, tokens/s, MB/s (of source chars) and bytes allocated per op.
+
+    static volatile Object sink; // keeps results alive so that the work can not be optimized away
+
+    public static class Input
+    {
+        public String   name   ;
+        public String[] sources;
+        public long     chars  ;
+        public long     tokens ;
+        public Input(String name, String[] sources) throws Exception
+        {
+            this.name    = name   ;
+            this.sources = sources;
+            for(String source : sources)
+            {
+                this.chars  += source.length();
+                this.tokens += CountTokens(source);
+            }
+        }
+    }
+
+    public interface Op
+    {
+        Object Run(String source) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        double       seconds   = 1.0;
+        String       corpus    = "testcases";
+        List<String> scenarios = new ArrayList<String>();
+        for(int i=0; i<args.length; i++)
+        {
+            if     (args[i].equals("-t") && i+1 < args.length) seconds = Double.parseDouble(args[++i]);
+            else if(args[i].equals("-c") && i+1 < args.length) corpus  = args[++i];
+            else                                               scenarios.add(args[i]);
+        }
+        if(scenarios.isEmpty())
+            scenarios = List.of("lex", "lex-bytes", "parse", "parse-bytes", "parse-table", "parse-arena", "recognize", "print", "e2e");
+
+        List<Input> inputs = new ArrayList<Input>();
+        inputs.add(new Input("corpus-succ", ReadCorpus(corpus, "succ_")));
+        inputs.add(new Input("corpus-fail", ReadCorpus(corpus, "fail_")));
+        inputs.add(new Input("large-succ" , new String[] { GenerateSource(200, 300, false) }));
+        inputs.add(new Input("large-fail" , new String[] { GenerateSource(200, 300, true ) }));
+
+        System.out.printf("%-11s %-12s %12s %14s %10s %14s%n", "scenario", "input", "ops/s", "tokens/s", "MB/s", "alloc B/op");
+        for(String scenario : scenarios)
+        {
+            if(scenario.equals("scaling"))
+            {
+                Scaling();
+                continue;
+            }
+            if(scenario.equals("retained"))
+            {
+                Retained(inputs.get(2));
+                continue;
+            }
+            if(scenario.equals("incremental"))
+            {
+                IncrementalEdits(seconds);
+                continue;
+            }
+            if(scenario.equals("lsp"))
+            {
+                LspSession(seconds);
+                continue;
+            }
+            if(scenario.equals("daemon"))
+            {
+                DaemonRequests(corpus, seconds);
+                continue;
+            }
+            if(scenario.equals("cache"))
+            {
+                CachedRuns(5000);
+                continue;
+            }
+            if(scenario.equals("startup"))
+            {
+                Startup(corpus, 20);
+                continue;
+            }
+            if(scenario.equals("parallel"))
+            {
+                ParallelParse(16 << 20);
+                continue;
+            }
+            if(scenario.equals("events"))
+            {
+                EventOverhead(inputs, seconds);
+                continue;
+            }
+            if(scenario.equals("report"))
+            {
+                Reports(20000);
+                continue;
+            }
+            if(scenario.equals("pool"))
+            {
+                Pooled(inputs.subList(0, 2), seconds);
+                continue;
+            }
+            if(scenario.equals("pipeline"))
+            {
+                Pipelined();
+                continue;
+            }
+            Op op = Scenario(scenario);
+            for(Input input : inputs)
+            {
+                if(scenario.equals("print") && input.name.endsWith("-fail"))
+                    continue; // there is no tree to print for a failing file
+                Measure(scenario, input, op, seconds);
+            }
+        }
+    }
+
+    static Op Scenario(String name)
+    {
+        switch(name)
+        {
+            case "lex"  : return source -> CountTokens(source);
+            case "parse": return source -> Parse(source);
+            case "parse-table": return source -> Parse(source, Parser.ENGINE_TABLE);
+            case "parse-arena": return source -> ParseArena(source);
+            case "lex-bytes"  : return new BytesOp(bytes -> CountTokens(new ByteLexer(bytes)));
+            case "parse-bytes": return new BytesOp(bytes -> Parse(new ByteLexer(bytes)));
+            case "recognize"  : return new BytesOp(bytes -> Recognize(new ByteLexer(bytes)));
+            case "print": return new Op()
+            {
+                // the trees are built once, outside of the measured loop
+                Map<String, ParseTree.Program> trees = new IdentityHashMap<String, ParseTree.Program>();
+                public Object Run(String source) throws Exception
+                {
+                    ParseTree.Program program = trees.get(source);
+                    if(program == null)
+                        trees.put(source, program = Parse(source));
+                    program.Print(Writer.nullWriter(), 0);
+                    return program;
+                }
+            };
+            case "e2e"  : return source ->
+            {
+                PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+                return new Compiler(new StringReader(source)).Compile(out);
+            };
+        }
+        throw new IllegalArgumentException("unknown scenario: " + name);
+    }
+
+    public interface BytesRun
+    {
+        Object Run(java.nio.ByteBuffer bytes) throws Exception;
+    }
+
+    static class BytesOp implements Op
+    {
+        // the sources are encoded once, outside of the measured loop, as a file would be read
+        Map<String, byte[]> encoded = new IdentityHashMap<String, byte[]>();
+        BytesRun            run;
+        BytesOp(BytesRun run) { this.run = run; }
+        public Object Run(String source) throws Exception
+        {
+            byte[] bytes = encoded.get(source);
+            if(bytes == null)
+                encoded.put(source, bytes = source.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            return run.Run(java.nio.ByteBuffer.wrap(bytes));
+        }
+    }
+
+    static void Measure(String scenario, Input input, Op op, double seconds) throws Exception
+    {
+        RunFor(input, op, seconds / 2); // warm-up
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long alloc0 = threads.getCurrentThreadAllocatedBytes();
+        long time0  = System.nanoTime();
+        long rounds = RunFor(input, op, seconds);
+        long time1  = System.nanoTime();
+        long alloc1 = threads.getCurrentThreadAllocatedBytes();
+
+        double secs = (time1 - time0) / 1e9;
+        long   ops  = rounds * input.sources.length;
+        System.out.printf("%-11s %-12s %12.1f %14.0f %10.2f %14.0f%n", scenario, input.name,
+                          ops / secs,
+                          rounds * input.tokens / secs,
+                          rounds * input.chars / secs / (1024 * 1024),
+                          (double) (alloc1 - alloc0) / ops);
+    }
+
+    static long RunFor(Input input, Op op, double seconds) throws Exception
+    {
+        long end    = System.nanoTime() + (long) (seconds * 1e9);
+        long rounds = 0;
+        do
+        {
+            for(String source : input.sources)
+                sink = op.Run(source);
+            rounds++;
+        }
+        while(System.nanoTime() < end);
+        return rounds;
+    }
+
+    static void Scaling() throws Exception
+    {
+        // the list productions take amortized O(1) per element and no stack per element, so the
+        // time per statement should stay about flat from 10^3 to 10^6 statements in a single function
+        // (ParserTest parses the 10^6 on a default stack); the larger trees no longer fit in the
+        // caches, so it grows somewhat per 10x step, where a quadratic parse would grow 10x
+        double prev = 0;
+        for(int n=1000; n<=1000000; n*=10)
+        {
+            String source = GenerateFlatFunction(n);
+            double best   = Double.MAX_VALUE;
+            double bestgc = 0;
+            int    reps   = Math.max(3, 3000000 / n);
+            for(int rep=0; rep<reps; rep++)
+            {
+                sink = null;
+                long gc0   = GcMillis();
+                long time0 = System.nanoTime();
+                sink = Parse(source);
+                long time1 = System.nanoTime();
+                if(time1 - time0 < best)
+                {
+                    best   = time1 - time0;
+                    bestgc = (GcMillis() - gc0) * 1e6;
+                }
+            }
+            sink = null;
+            // copying the retained tree of a large input is GC work that depends on the heap
+            // settings, not on the parser, so it is taken out of the comparison
+            best = Math.max(best - bestgc, 0);
+            double perstmt = best / n;
+            System.out.printf("scaling     %8d stmts %12.2f ms %10.1f ns/stmt %6.2fx (+%.2f ms gc)%n",
+                              n, best / 1e6, perstmt, (prev != 0) ? perstmt / prev : 1.0, bestgc / 1e6);
+            prev = perstmt;
+            System.gc();
+        }
+    }
+
+    static void Retained(Input input) throws Exception
+    {
+        // the heap kept alive by the results of many parses (source and symbols included), as when the
+        // trees of a whole corpus are held in memory
+        int copies = 8;
+        for(String engine : new String[] { "tree", "arena" })
+        {
+            Object[] kept = new Object[copies];
+            long     used0 = UsedHeap();
+            for(int i=0; i<copies; i++)
+                kept[i] = engine.equals("tree") ? Parse(input.sources[0]) : ParseArena(input.sources[0]);
+            long     used1 = UsedHeap();
+            sink = kept;
+            System.out.printf("retained    %-12s %-6s %10.2f MB per parse%n", input.name, engine, (used1 - used0) / (double) copies / (1024 * 1024));
+            sink = null;
+        }
+    }
+
+    static void IncrementalEdits(double seconds) throws Exception
+    {
+        // types and deletes a space in a function in the middle of the program, which re-parses
+        // that function only (IncrementalTest checks the trees against a full parse)
+        String source = GenerateSource(2000, 20, false);
+        double full   = Double.MAX_VALUE;
+        for(int rep=0; rep<5; rep++)
+        {
+            long time0 = System.nanoTime();
+            sink = Parse(source);
+            full = Math.min(full, System.nanoTime() - time0);
+        }
+
+        Incremental incremental = new Incremental(source);
+        int         offset      = source.indexOf("x <- x + a", source.length() / 2);
+        long        edits       = 0;
+        long        end         = System.nanoTime() + (long) (seconds * 1e9);
+        long        time0       = System.nanoTime();
+        do
+        {
+            for(int i=0; i<1000; i++)
+            {
+                incremental.Edit(offset, 0, " ");
+                incremental.Edit(offset, 1, "");
+                if(incremental.reparsed != 1)
+                    throw new IllegalStateException("the edit was not parsed incrementally");
+            }
+            edits += 2000;
+        }
+        while(System.nanoTime() < end);
+        double per = (double) (System.nanoTime() - time0) / edits;
+        System.out.printf("incremental %6.2f MB  full parse %10.2f ms  edit %10.2f us%n",
+                          source.length() / (1024.0 * 1024), full / 1e6, per / 1e3);
+    }
+
+    static void LspSession(double seconds) throws Exception
+    {
+        // a client that opens a ~200 KB program, types into it and waits for the diagnostics after
+        // every keystroke (debounce 0), then shuts the server down (the replies themselves are
+        // checked by LanguageServerTest)
+        PipedOutputStream toServer   = new PipedOutputStream();
+        PipedInputStream  serverIn   = new PipedInputStream(toServer, 1 << 20);
+        PipedOutputStream fromServer = new PipedOutputStream();
+        PipedInputStream  clientIn   = new PipedInputStream(fromServer, 1 << 20);
+        LanguageServer    server     = new LanguageServer(serverIn, fromServer, 0);
+        Thread            thread     = new Thread(() ->
+        {
+            try { server.Run(); }
+            catch(Exception e) { e.printStackTrace(); }
+        });
+        thread.start();
+
+        String uri    = "file:///bench.minc";
+        String source = GenerateSource(100, 20, false);
+        LanguageServer.Write(toServer, Json.Of("jsonrpc", "2.0", "id", 1, "method", "initialize", "params", Json.Of()));
+        Expect(clientIn, "id", 1L);
+        LanguageServer.Write(toServer, Json.Of("jsonrpc", "2.0", "method", "textDocument/didOpen",
+            "params", Json.Of("textDocument", Json.Of("uri", uri, "languageId", "minic", "version", 1, "text", source))));
+        Expect(clientIn, "method", "textDocument/publishDiagnostics");
+
+        // types "y" and deletes it again on a line in the middle; every other keystroke is a
+        // syntax error ("x" -> "yx" is fine, an inserted "(" is not), to time both paths
+        int      line    = source.substring(0, source.indexOf("x <- x + a", source.length() / 2)).split("\n", -1).length - 1;
+        String[] inserts = { "y", "(" };
+        long     count   = 0, errors = 0;
+        double   valid   = 0, failing = 0;  // total ms of the keystrokes without and with an error
+        long     end     = System.nanoTime() + (long) (seconds * 1e9);
+        while(System.nanoTime() < end || count < 20 || count % 2 != 0)   // ends with the text as it was
+        {
+            String insert = inserts[(int) (count / 2) % 2];
+            boolean typed = (count % 2 == 0);
+            long   t0     = System.nanoTime();
+            LanguageServer.Write(toServer, Json.Of("jsonrpc", "2.0", "method", "textDocument/didChange",
+                "params", Json.Of("textDocument", Json.Of("uri", uri, "version", count + 2),
+                                  "contentChanges", List.of(Json.Of(
+                                      "range", LanguageServer.Range(line, 4, line, typed ? 4 : 5),
+                                      "text" , typed ? insert : "")))));
+            Object published = Expect(clientIn, "method", "textDocument/publishDiagnostics");
+            double ms = (System.nanoTime() - t0) / 1e6;
+            int    n  = Json.Array(Json.Get(published, "params"), "diagnostics").size();
+            if(n != ((typed && insert.equals("(")) ? 1 : 0))
+                throw new IllegalStateException("unexpected diagnostics: " + published);
+            if(n == 0) valid   += ms;
+            else       failing += ms;
+            errors += n;
+            count++;
+        }
+
+        LanguageServer.Write(toServer, Json.Of("jsonrpc", "2.0", "id", 2, "method", "shutdown"));
+        Expect(clientIn, "id", 2L);
+        LanguageServer.Write(toServer, Json.Of("jsonrpc", "2.0", "method", "exit"));
+        thread.join();
+        // a keystroke that leaves an error needs a full parse, the others re-parse one function
+        System.out.printf("lsp         %6.2f MB  %d keystrokes  %8.2f ms/keystroke  %8.2f ms/keystroke with an error%n",
+                          source.length() / (1024.0 * 1024), count, valid / (count - errors), failing / Math.max(1, errors));
+    }
+
+    static void DaemonRequests(String corpus, double seconds) throws Exception
+    {
+        // the latency of a check of one corpus file: in a new JVM each time, as a build calls the
+        // checker, and as a request to a warm daemon (one at a time, then all at once)
+        List<Path> files = new ArrayList<Path>();
+        try(var list = Files.list(Paths.get(corpus)))
+        {
+            list.filter(f -> f.toString().endsWith(".minc")).sorted().forEach(files::add);
+        }
+        double cold = Double.MAX_VALUE;
+        for(int rep=0; rep<3; rep++)
+        {
+            long    time0   = System.nanoTime();
+            Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                                                 "-cp", System.getProperty("java.class.path"), "Program", files.get(0).toString())
+                              .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            process.waitFor();
+            cold = Math.min(cold, (System.nanoTime() - time0) / 1e6);
+        }
+
+        PipedOutputStream toDaemon   = new PipedOutputStream();
+        PipedInputStream  daemonIn   = new PipedInputStream(toDaemon, 1 << 20);
+        PipedOutputStream fromDaemon = new PipedOutputStream();
+        BufferedReader    responses  = new BufferedReader(new InputStreamReader(new PipedInputStream(fromDaemon, 1 << 20), "UTF-8"));
+        Writer            requests   = new OutputStreamWriter(toDaemon, "UTF-8");
+        Daemon            daemon     = new Daemon(Runtime.getRuntime().availableProcessors());
+        daemon.Warmup(Paths.get(corpus), Math.min(2.0, seconds));
+        Thread thread = new Thread(() ->
+        {
+            try { daemon.Serve(daemonIn, fromDaemon); fromDaemon.close(); }
+            catch(IOException e) { e.printStackTrace(); }
+        });
+        thread.start();
+
+        long count = 0;
+        long end   = System.nanoTime() + (long) (seconds * 1e9);
+        long time0 = System.nanoTime();
+        while(System.nanoTime() < end)
+        {
+            for(Path file : files)
+            {
+                requests.write(Json.Write(Json.Of("id", count++, "path", file.toString())) + "\n");
+                requests.flush();
+                Object response = Json.Parse(responses.readLine());
+                if(Json.Get(response, "errors") == null)
+                    throw new IllegalStateException("the check failed: " + response);
+            }
+        }
+        double sequential = (System.nanoTime() - time0) / 1e3 / count;
+
+        int burst = files.size() * 50;
+        time0 = System.nanoTime();
+        for(int i=0; i<burst; i++)
+            requests.write(Json.Write(Json.Of("id", i, "path", files.get(i % files.size()).toString())) + "\n");
+        requests.flush();
+        for(int i=0; i<burst; i++)
+            responses.readLine();
+        double concurrent = burst / ((System.nanoTime() - time0) / 1e9);
+
+        requests.write("{\"op\": \"shutdown\"}\n");
+        requests.flush();
+        thread.join();
+        System.out.printf("daemon      new JVM per check %8.1f ms   warm daemon %8.1f us per check, %8.0f checks/s concurrently%n",
+                          cold, sequential, concurrent);
+    }
+
+    static void ParallelParse(int size) throws Exception
+    {
+        // the parse of one large file (as Compiler does it: UTF-8 bytes, ByteLexer) by one Parser,
+        // and in chunks by ParallelParser with pools of 1 core up to all of them; the best of 3,
+        // each after a full GC, so that the trees of the run before are not collected in the timing
+        // (ParallelParserTest checks that the chunks parse to the same program)
+        String              source     = GenerateSource(size / 1500, 30, false);    // ~1.5 KB per function
+        java.nio.ByteBuffer bytes      = java.nio.ByteBuffer.wrap(source.getBytes("UTF-8"));
+        double              mb         = bytes.limit() / 1e6;
+        double              one        = Double.MAX_VALUE;
+        int                 funcs      = 0;
+        source = null;
+        for(int rep=0; rep<3; rep++)
+        {
+            sink = null;
+            System.gc();
+            long   time0  = System.nanoTime();
+            Parser parser = new Parser(new ByteLexer(bytes), null);
+            parser.yyparse();
+            one = Math.min(one, (System.nanoTime() - time0) / 1e6);
+            funcs = parser._parsetree.funcs.size();
+            sink  = parser;
+        }
+        long   time0  = System.nanoTime();
+        int    chunks = ParallelParser.Split(bytes, ParallelParser.MIN_CHUNK).length / 2 - 1;
+        double split  = (System.nanoTime() - time0) / 1e6;
+        System.out.printf("parallel    %.1f MB, %d functions: one parser %8.1f ms %7.1f MB/s   pre-scan %6.1f ms (%d chunks of 256 KB)%n",
+                          mb, funcs, one, mb / one * 1e3, split, chunks);
+        int cores = Runtime.getRuntime().availableProcessors();
+        for(int threads=1; ; threads=Math.min(threads * 2, cores))
+        {
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+            double best = Double.MAX_VALUE;
+            for(int rep=0; rep<3; rep++)
+            {
+                sink  = null;
+                System.gc();
+                time0 = System.nanoTime();
+                ParseTree.Program program = ParallelParser.Parse(bytes, pool);
+                best  = Math.min(best, (System.nanoTime() - time0) / 1e6);
+                if(program == null)
+                    throw new IllegalStateException("the generated file was not split");
+                sink = program;
+            }
+            pool.shutdown();
+            System.out.printf("parallel    %2d core(s) %8.1f ms %7.1f MB/s  speedup %5.2f%n", threads, best, mb / best * 1e3, one / best);
+            if(threads == cores)
+                break;
+        }
+    }
+
+    static void EventOverhead(List<Input> inputs, double seconds) throws Exception
+    {
+        // the cost of the Events of a check: e2e before Flight Recorder is started (no event is
+        // created), during a recording without them (they are created, not committed), and during a
+        // recording of all of them; the first must stay first, the recorder can not be stopped
+        Op op = Scenario("e2e");
+        for(String mode : new String[] { "jfr-none", "jfr-idle", "jfr-minic" })
+        {
+            jdk.jfr.Recording recording = null;
+            if(!mode.equals("jfr-none"))
+            {
+                recording = new jdk.jfr.Recording();
+                recording.enable("jdk.GarbageCollection");
+                if(mode.equals("jfr-minic"))
+                    for(String event : new String[] { "minic.Lex", "minic.Parse", "minic.Function", "minic.Print", "minic.SyntaxError" })
+                        recording.enable(event);
+                recording.start();
+            }
+            for(Input input : inputs)
+                RunFor(input, op, 2 * seconds); // (re)compiled: the start of the recorder deoptimizes
+            for(Input input : inputs)
+                Measure(mode, input, op, seconds);
+            if(recording != null)
+                recording.close();
+        }
+    }
+
+    static void Pipelined() throws Exception
+    {
+        // the parse of a large file (UTF-8 bytes, as Compiler reads it) with the lexer on the
+        // parser's thread, and on its own thread behind a TokenPipeline (whatever the cores: on
+        // one, the two threads take turns); the lexing alone is the part that can be overlapped.
+        // The best of 5, each after a full GC (CompilerTest checks that both print the same)
+        int cores = Runtime.getRuntime().availableProcessors();
+        for(int size : new int[] { 2 << 20, 8 << 20, 32 << 20 })
+        {
+            java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap(GenerateSource(size / 1500, 30, false).getBytes("UTF-8"));
+            double lex = Double.MAX_VALUE, sync = Double.MAX_VALUE, piped = Double.MAX_VALUE;
+            for(int rep=0; rep<5; rep++)
+            {
+                long time0 = System.nanoTime();
+                sink  = CountTokens(new ByteLexer(bytes));
+                lex   = Math.min(lex, (System.nanoTime() - time0) / 1e6);
+                for(boolean pipelined : new boolean[] { false, true })
+                {
+                    sink = null;
+                    System.gc();
+                    ByteLexer lexer  = new ByteLexer(bytes);
+                    time0 = System.nanoTime();
+                    Parser    parser = new Parser(pipelined ? new TokenPipeline(lexer) : lexer, null);
+                    parser.yyparse();
+                    double    time   = (System.nanoTime() - time0) / 1e6;
+                    if(pipelined) piped = Math.min(piped, time);
+                    else          sync  = Math.min(sync , time);
+                    sink = parser;
+                }
+            }
+            System.out.printf("pipeline    %5.1f MB: lex %7.1f ms  one thread %7.1f ms  pipelined %7.1f ms  %5.2fx (%d core(s))%n",
+                              bytes.limit() / 1e6, lex, sync, piped, sync / piped, cores);
+        }
+        sink = null;
+    }
+
+    static void Pooled(List<Input> inputs, double seconds) throws Exception
+    {
+        // the parse of each small file as Batch and Daemon make it: from its bytes (a path) and
+        // from its chars (an inline source), by a new Compiler and by the ParserPool of the thread
+        Op freshbytes  = new BytesOp(bytes -> new Compiler(bytes, null).Parse());
+        Op pooledbytes = new BytesOp(bytes -> ParserPool.Get().Compiler(bytes, null).Parse());
+        Op freshchars  = source -> new Compiler(new StringReader(source)).Parse();
+        Op pooledchars = source -> ParserPool.Get().Compiler(source).Parse();
+        for(Input input : inputs)
+        {
+            Measure("new-bytes"  , input, freshbytes , seconds);
+            Measure("pool-bytes" , input, pooledbytes, seconds);
+            Measure("new-chars"  , input, freshchars , seconds);
+            Measure("pool-chars" , input, pooledchars, seconds);
+        }
+    }
+
+    static void Startup(String corpus, int runs) throws Exception
+    {
+        // the time from the start of a JVM that checks one file to the first line it prints (the
+        // verdict), and to its exit; the median of runs, for a passing and a failing corpus file
+        Path dir     = Files.createTempDirectory("minic-startup-bench");
+        Path archive = dir.resolve("minic.jsa");
+        Path jar     = StartupArchive.Create(archive);
+        String java  = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String[][] configs =
+        {
+            { "classes"  , "-cp", System.getProperty("java.class.path") },
+            { "jar"      , "-cp", jar.toString() },
+            { "jar + cds", "-XX:SharedArchiveFile=" + archive, "-cp", jar.toString() },
+            { "cds + C1" , "-XX:SharedArchiveFile=" + archive, "-XX:TieredStopAtLevel=1", "-cp", jar.toString() },
+        };
+        for(String kind : new String[] { "succ_", "fail_" })
+        {
+            Path file;
+            try(var list = Files.list(Paths.get(corpus)))
+            {
+                file = list.filter(f -> f.getFileName().toString().startsWith(kind) && f.toString().endsWith(".minc")).sorted().findFirst().get();
+            }
+            for(String[] config : configs)
+            {
+                List<String> command = new ArrayList<String>();
+                command.add(java);
+                command.addAll(Arrays.asList(config).subList(1, config.length));
+                command.add("Program");
+                command.add(file.toString());
+                double[] verdict = new double[runs];
+                double[] exit    = new double[runs];
+                for(int run=0; run<runs; run++)
+                {
+                    long    time0   = System.nanoTime();
+                    Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+                    BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+                    String  first   = out.readLine();
+                    verdict[run] = (System.nanoTime() - time0) / 1e6;
+                    while(out.readLine() != null)
+                        ;
+                    process.waitFor();
+                    exit[run] = (System.nanoTime() - time0) / 1e6;
+                    if(first == null || !(first.startsWith("Success") || first.startsWith("Error")))
+                        throw new IllegalStateException(config[0] + ": no verdict from " + file + ": " + first);
+                }
+                Arrays.sort(verdict);
+                Arrays.sort(exit);
+                System.out.printf("startup     %-12s %-10s first verdict %7.1f ms   exit %7.1f ms%n",
+                                  kind.equals("succ_") ? "corpus-succ" : "corpus-fail", config[0], verdict[runs / 2], exit[runs / 2]);
+            }
+        }
+        try(var walk = Files.walk(dir))
+        {
+            walk.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    static void CachedRuns(int count) throws Exception
+    {
+        // a tree of generated files checked without the cache, into an empty cache, and again with
+        // every result cached; the warm run should cost about as much as reading and hashing the files
+        Path root  = Files.createTempDirectory("minic-cache-bench");
+        Path cache = root.resolve("cache");
+        List<Path> files = new ArrayList<Path>();
+        for(int i=0; i<count; i++)
+        {
+            Path file = root.resolve("src").resolve("d" + (i % 50)).resolve("f" + i + ".minc");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, GenerateSource(1 + i % 7, 5 + i % 13, i % 10 == 0));
+            files.add(file);
+        }
+        int         threads = Runtime.getRuntime().availableProcessors();
+        PrintStream none    = new PrintStream(OutputStream.nullOutputStream());
+        Batch.Run(files, none, threads, 1);                                         // warms up the checker
+
+        long time0 = System.nanoTime();
+        Batch.Run(files, none, threads, 1);
+        long time1 = System.nanoTime();
+        ResultCache cold = new ResultCache(cache, ResultCache.DEFAULT_LIMIT);
+        Batch.Run(files, none, threads, 1, cold);
+        long time2 = System.nanoTime();
+        ResultCache warm = new ResultCache(cache, ResultCache.DEFAULT_LIMIT);
+        Batch.Run(files, none, threads, 1, warm);
+        long time3 = System.nanoTime();
+        long hashes = 0;
+        for(Path file : files)
+            hashes += ResultCache.Murmur3(ByteLexer.Open(file), 0)[0];
+        long time4 = System.nanoTime();
+        sink = hashes;
+
+        System.out.printf("cache       %d files: no cache %8.1f ms  cold %8.1f ms  warm %8.1f ms (%d hits)  read+hash %8.1f ms%n",
+                          count, (time1 - time0) / 1e6, (time2 - time1) / 1e6, (time3 - time2) / 1e6, warm.hits.get(), (time4 - time3) / 1e6);
+        try(var walk = Files.walk(root))
+        {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    static void Reports(int count) throws Exception
+    {
+        // a run of Batch over many small files with each format, written to nowhere; the peak heap
+        // (after a full GC before the run) must not grow with the number of files, as the records
+        // are streamed as the files finish
+        Path       root  = Files.createTempDirectory("minic-report-bench");
+        List<Path> files = new ArrayList<Path>();
+        for(int i=0; i<count; i++)
+        {
+            Path file = root.resolve("d" + (i % 100)).resolve("f" + i + ".minc");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, GenerateSource(1, 3 + i % 5, i % 10 == 0));
+            files.add(file);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        for(String format : new String[] { "text", "jsonl", "sarif" })
+        {
+            Batch.Run(files.subList(0, Math.min(count, 2000)), Report.Of(format, OutputStream.nullOutputStream()), threads, 1, null);
+            CountingStream out = new CountingStream();
+            System.gc();
+            for(var pool : ManagementFactory.getMemoryPoolMXBeans())
+                pool.resetPeakUsage();
+            long time0 = System.nanoTime();
+            Batch.Run(files, Report.Of(format, out), threads, 1, null);
+            long time1 = System.nanoTime();
+            long peak  = 0;
+            for(var pool : ManagementFactory.getMemoryPoolMXBeans())
+                if(pool.getType() == java.lang.management.MemoryType.HEAP)
+                    peak += pool.getPeakUsage().getUsed();
+            System.out.printf("report      %-5s %d files %8.1f ms %9.0f files/s  %7.1f MB written  peak heap %6.1f MB%n",
+                              format, count, (time1 - time0) / 1e6, count / ((time1 - time0) / 1e9), out.count / 1e6, peak / 1e6);
+        }
+        try(var walk = Files.walk(root))
+        {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    static class CountingStream extends OutputStream
+    {
+        long count;
+        public void write(int b)                      { count++; }
+        public void write(byte[] b, int off, int len) { count += len; }
+    }
+
+    static Object Expect(InputStream in, String member, Object value) throws IOException
+    {
+        // the next message with member = value; other messages are skipped
+        while(true)
+        {
+            String message = LanguageServer.Read(in);
+            if(message == null)
+                throw new EOFException("the server closed the connection");
+            Object parsed = Json.Parse(message);
+            if(value.equals(Json.Get(parsed, member)))
+                return parsed;
+        }
+    }
+
+    static long UsedHeap()
+    {
+        for(int i=0; i<3; i++)
+            System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static long GcMillis()
+    {
+        long millis = 0;
+        for(var gc : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+
+    public static String GenerateFlatFunction(int stmts)
+    {
+        StringBuilder sb = new StringBuilder(stmts * 16);
+        sb.append("num main(num a)\n{\n    num x;\n");
+        for(int s=0; s<stmts; s++)
+            sb.append((s % 2 == 0) ? "    x <- x + a;\n" : "    print x;\n");
+        sb.append("    return x;\n}\n");
+        return sb.toString();
+    }
+
+    public static ParseTree.Program Parse(String source) throws Exception
+    {
+        return Parse(source, Parser.ENGINE_RECURSIVE);
+    }
+
+    public static ParseTree.Program Parse(String source, int engine) throws Exception
+    {
+        Parser parser = new Parser(new StringReader(source), null);
+        parser._engine = engine;
+        parser.yyparse();
+        return parser._parsetree; // null for a failing source
+    }
+
+    public static ParseTree.Program Parse(Scanner lexer) throws Exception
+    {
+        Parser parser = new Parser(lexer, null);
+        parser.yyparse();
+        return parser._parsetree;
+    }
+
+    public static int Recognize(Scanner lexer) throws Exception
+    {
+        return new Parser(lexer, null, null, Parser.ENGINE_RECOGNIZER).yyparse();
+    }
+
+    public static int Check(java.nio.ByteBuffer bytes, int engine) throws Exception
+    {
+        // a check as Batch makes it: by the thread's ParserPool, with engine (1 if it failed)
+        return ParserPool.Get().Compiler(bytes, null, engine).Parse();
+    }
+
+    public static Arena ParseArena(String source) throws Exception
+    {
+        Parser parser = new Parser(new StringReader(source), null);
+        parser._engine = Parser.ENGINE_ARENA;
+        parser.yyparse();
+        return parser._arena; // null for a failing source
+    }
+
+    public static long CountTokens(String source) throws Exception
+    {
+        return CountTokens(new Lexer(source.toCharArray(), source.length()));
+    }
+
+    public static long CountTokens(Scanner lexer) throws Exception
+    {
+        TokenBuffer tokens = new TokenBuffer();
+        long        count  = 0;
+        while(true)
+        {
+            int n    = lexer.Fill(tokens);
+            int last = tokens.type[n-1];
+            if(last == Parser.ENDMARKER || last == Parser.LEXERROR)
+                return count + n - 1;
+            count += n;
+        }
+    }
+
+    static String[] ReadCorpus(String dir, String prefix) throws IOException
+    {
+        List<String> sources = new ArrayList<String>();
+        try(var files = Files.list(Paths.get(dir)))
+        {
+            for(Path file : (Iterable<Path>) files.sorted()::iterator)
+            {
+                String name = file.getFileName().toString();
+                if(name.startsWith(prefix) && name.endsWith(".minc"))
+                    sources.add(Files.readString(file));
+            }
+        }
+        return sources.toArray(String[]::new);
+    }
+
+    public static String GenerateSource(int funcs, int stmtsPerFunc, boolean withError)
+    {
+        // a deterministic, syntactically varied MiniC program: every function has a few parameters
+        // and locals, and statements that cycle through all the statement and expression forms
+        StringBuilder sb = new StringBuilder();
+        sb.append("%* generated by Benchmark.GenerateSource *%\n");
+        for(int f=0; f<funcs; f++)
+        {
+            sb.append("num func").append(f).append("(num a, num[] b, bool c)\n{\n");
+            sb.append("    num x;\n    num[] arr;\n    bool flag;\n");
+            for(int s=0; s<stmtsPerFunc; s++)
+            {
+                switch(s % 6)
+                {
+                    case 0: sb.append("    x <- x + a * 2 - b[x] / 3.5;\n"); break;
+                    case 1: sb.append("    %% line comment\n    print func").append(f).append("(x, b, flag and c);\n"); break;
+                    case 2: sb.append("    if ( x <= 10 or flag ) x <- ( x + 1 ) * 2; else { print b.size; }\n"); break;
+                    case 3: sb.append("    while ( x <> 0 ) { x <- x - 1; flag <- true; }\n"); break;
+                    case 4: sb.append("    arr <- new num[ x + 12 ];\n"); break;
+                    case 5: sb.append("    flag <- x > a and c = false;\n"); break;
+                }
+            }
+            sb.append("    return x;\n}\n\n");
+        }
+        if(withError)
+            sb.append("num broken(num a)\n{\n    a <- ;\n}\n");
+        return sb.toString();
+    }
+}
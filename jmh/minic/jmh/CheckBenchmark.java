@@ -0,0 +1,125 @@
+package minic.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CheckBenchmark
+{
+    // The hot paths of a check, under JMH, over the UTF-8 bytes of each input as Compiler reads
+    // them (one op is a pass over all the files of the input):
+    //   Lex                   a new ByteLexer, to the end of the input
+    //   Parse                 a new Parser building the tree (a new Compiler, as java Program file)
+    //   Recognize             a new Parser building nothing (Parser.ENGINE_RECOGNIZER)
+    //   PooledParse           the thread's ParserPool, building the tree (Batch with --format text)
+    //   PooledRecognize       the thread's ParserPool, building nothing (Batch with --format jsonl)
+    // The inputs are those of java Benchmark: the corpus of testcases/ (run from the project
+    // directory), and a generated ~1 MB program, with and without a syntax error at its end.
+    // Each reports ops/s, and its throughput in tokens/s and bytes/s of the input (see Throughput);
+    // add -prof gc to the JMH options for the bytes allocated per op:
+    //   mvn -Pjmh test-compile exec:exec -Djmh.args="-f 1 -prof gc CheckBenchmark.PooledRecognize"
+    // PrintBenchmark times the printing of the trees of the passing inputs.
+
+    @Param({ "corpus-succ", "corpus-fail", "large-succ", "large-fail" })
+    public String input;
+
+    ByteBuffer[] files;
+    long         tokens;    // of all the files, to the first error
+    long         bytes;
+
+    @Setup
+    public void Read() throws Throwable
+    {
+        files = Read(input);
+        for(ByteBuffer file : files)
+        {
+            tokens += (long) Checker.LEX.invokeExact(file);
+            bytes  += file.limit();
+        }
+    }
+
+    static ByteBuffer[] Read(String input) throws Throwable
+    {
+        List<ByteBuffer> sources = new ArrayList<ByteBuffer>();
+        if(input.startsWith("corpus-"))
+        {
+            String prefix = input.endsWith("-succ") ? "succ_" : "fail_";
+            try(DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get("testcases"), prefix + "*.minc"))
+            {
+                for(Path file : dir)
+                    sources.add(ByteBuffer.wrap(Files.readAllBytes(file)));
+            }
+        }
+        else
+        {
+            String source = (String) Checker.GENERATE.invokeExact(200, 300, input.endsWith("-fail"));
+            sources.add(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        if(sources.isEmpty())
+            throw new IllegalStateException("no input " + input + " (run from the project directory)");
+        return sources.toArray(new ByteBuffer[0]);
+    }
+
+    void Count(Throughput counted)
+    {
+        counted.tokens += tokens;
+        counted.bytes  += bytes;
+    }
+
+    @Benchmark
+    public long Lex(Throughput counted) throws Throwable
+    {
+        Count(counted);
+        long tokens = 0;
+        for(ByteBuffer file : files)
+            tokens += (long) Checker.LEX.invokeExact(file);
+        return tokens;
+    }
+
+    @Benchmark
+    public int Parse(Throughput counted) throws Throwable
+    {
+        Count(counted);
+        int parsed = 0;
+        for(ByteBuffer file : files)
+            if((Object) Checker.PARSE.invokeExact(file) != null)
+                parsed++;
+        return parsed;
+    }
+
+    @Benchmark
+    public int Recognize(Throughput counted) throws Throwable
+    {
+        Count(counted);
+        int failed = 0;
+        for(ByteBuffer file : files)
+            failed += (int) Checker.RECOGNIZE.invokeExact(file);
+        return failed;
+    }
+
+    @Benchmark
+    public int PooledParse(Throughput counted) throws Throwable
+    {
+        Count(counted);
+        int failed = 0;
+        for(ByteBuffer file : files)
+            failed += (int) Checker.CHECK.invokeExact(file, Checker.ENGINE_RECURSIVE);
+        return failed;
+    }
+
+    @Benchmark
+    public int PooledRecognize(Throughput counted) throws Throwable
+    {
+        Count(counted);
+        int failed = 0;
+        for(ByteBuffer file : files)
+            failed += (int) Checker.CHECK.invokeExact(file, Checker.ENGINE_RECOGNIZER);
+        return failed;
+    }
+}
@@ -0,0 +1,56 @@
+package minic.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+
+final class Checker
+{
+    // The checker's classes are in the default package, which a class in a package can not name,
+    // and JMH does not take benchmarks in the default package: they call the checker through these
+    // method handles, looked up once. A static final handle is a constant to the JIT, so a call
+    // through it costs what the direct call would.
+
+    static final MethodHandle LEX;          // (ByteBuffer) long: the tokens of a new ByteLexer (Benchmark.CountTokens)
+    static final MethodHandle PARSE;        // (ByteBuffer) Object: the tree of a new Parser, or null (Benchmark.Parse)
+    static final MethodHandle RECOGNIZE;    // (ByteBuffer) int: the verdict of a new Parser's recognizer (Benchmark.Recognize)
+    static final MethodHandle CHECK;        // (ByteBuffer, int engine) int: a check by the thread's ParserPool (Benchmark.Check)
+    static final MethodHandle GENERATE;     // (int funcs, int stmts, boolean error) String (Benchmark.GenerateSource)
+    static final MethodHandle PRINT;        // (Object tree, Appendable) void: the indented code of a tree (ParseTree.Program.Print)
+    static final int          ENGINE_RECURSIVE;
+    static final int          ENGINE_RECOGNIZER;
+
+    static
+    {
+        try
+        {
+            MethodHandles.Lookup lookup    = MethodHandles.publicLookup();
+            Class<?>             benchmark = Class.forName("Benchmark");
+            Class<?>             scanner   = Class.forName("Scanner");
+            Class<?>             parser    = Class.forName("Parser");
+            Class<?>             bytelexer = Class.forName("ByteLexer");
+            Class<?>             program   = Class.forName("ParseTree$Program");
+            MethodHandle         lexer     = lookup.findConstructor(bytelexer, MethodType.methodType(void.class, ByteBuffer.class))
+                                                   .asType(MethodType.methodType(scanner, ByteBuffer.class));
+            LEX       = MethodHandles.filterArguments(lookup.findStatic(benchmark, "CountTokens", MethodType.methodType(long.class, scanner)), 0, lexer);
+            PARSE     = MethodHandles.filterArguments(lookup.findStatic(benchmark, "Parse", MethodType.methodType(program, scanner)), 0, lexer)
+                                     .asType(MethodType.methodType(Object.class, ByteBuffer.class));
+            RECOGNIZE = MethodHandles.filterArguments(lookup.findStatic(benchmark, "Recognize", MethodType.methodType(int.class, scanner)), 0, lexer);
+            CHECK     = lookup.findStatic(benchmark, "Check", MethodType.methodType(int.class, ByteBuffer.class, int.class));
+            GENERATE  = lookup.findStatic(benchmark, "GenerateSource", MethodType.methodType(String.class, int.class, int.class, boolean.class));
+            PRINT     = MethodHandles.insertArguments(lookup.findVirtual(program, "Print", MethodType.methodType(void.class, Appendable.class, int.class)), 2, 0)
+                                     .asType(MethodType.methodType(void.class, Object.class, Appendable.class));
+            ENGINE_RECURSIVE  = parser.getField("ENGINE_RECURSIVE").getInt(null);
+            ENGINE_RECOGNIZER = parser.getField("ENGINE_RECOGNIZER").getInt(null);
+        }
+        catch(ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Checker()
+    {
+    }
+}
@@ -0,0 +1,51 @@
+package minic.jmh;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PrintBenchmark
+{
+    // The pretty-printer on its own: the trees of the passing inputs of CheckBenchmark, parsed
+    // once, printed as the checker prints them after "Success" (ParseTree.Program.Print) into
+    // Writer.nullWriter(), which keeps nothing (one op prints all the trees of the input). Its
+    // throughput is in the tokens/s and bytes/s of the sources printed (see Throughput).
+
+    @Param({ "corpus-succ", "large-succ" })
+    public String input;
+
+    Object[] trees;
+    long     tokens;
+    long     bytes;
+    Writer   out = Writer.nullWriter();
+
+    @Setup
+    public void Parse() throws Throwable
+    {
+        List<Object> parsed = new ArrayList<Object>();
+        for(ByteBuffer file : CheckBenchmark.Read(input))
+        {
+            Object tree = (Object) Checker.PARSE.invokeExact(file);
+            if(tree == null)
+                throw new IllegalStateException("a file of " + input + " does not parse");
+            parsed.add(tree);
+            tokens += (long) Checker.LEX.invokeExact(file);
+            bytes  += file.limit();
+        }
+        trees = parsed.toArray();
+    }
+
+    @Benchmark
+    public void Print(Throughput counted) throws Throwable
+    {
+        counted.tokens += tokens;
+        counted.bytes  += bytes;
+        for(Object tree : trees)
+            Checker.PRINT.invokeExact(tree, (Appendable) out);
+    }
+}
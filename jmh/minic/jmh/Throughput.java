@@ -0,0 +1,22 @@
+package minic.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput
+{
+    // The throughput of a benchmark in what it goes through, next to its ops/s: in Mode.Throughput
+    // JMH reports each field as a rate over the iteration, so "tokens" is tokens/s and "bytes"
+    // bytes/s of source (MB/s * 10^6). A benchmark adds the tokens and bytes of its input per op.
+
+    public long tokens;
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void Reset()
+    {
+        tokens = 0;
+        bytes  = 0;
+    }
+}
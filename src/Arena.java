@@ -0,0 +1,457 @@
+import java.util.*;
+
+public class Arena
+{
+    // A compact syntax tree for keeping many parse results in memory: the nodes of one compilation
+    // are stored as columns of primitive arrays (structure of arrays), so a node is an int index and
+    // costs about 21 bytes, with no object header or pointer. A node has a kind, a value, the span of
+    // its source (offsets as in TokenBuffer), its first child and its next sibling:
+    //
+    //   PROGRAM    : FUNC_DECL ...
+    //   FUNC_DECL  : TYPE_SPEC, LIST of PARAM, LIST of LOCAL_DECL, LIST of statements   value: symbol id
+    //   PARAM      : TYPE_SPEC                                                         value: symbol id
+    //   LOCAL_DECL : TYPE_SPEC                                                         value: symbol id
+    //   TYPE_SPEC  :                                          value: TYPE_NUM or TYPE_BOOL, + TYPE_ARRAY
+    //   ASSIGN     : expr                                                              value: symbol id
+    //   PRINT, RETURN : expr      IF : expr, stmt, stmt      WHILE : expr, stmt
+    //   COMPOUND   : LIST of LOCAL_DECL, LIST of statements
+    //   EXPR, TERM : operand, OPERATOR, operand, ...       (only with operators; a single operand is
+    //   OPERATOR   :                 value: ParseTree.OP_   stored in place of its EXPR or TERM)
+    //   PAREN      : expr            NEW : expr, value: TYPE_NUM or TYPE_BOOL
+    //   IDENT      : CALL, INDEX or SIZE, or no child                                  value: symbol id
+    //   CALL       : expr ...        INDEX : expr
+    //   NUM_LIT    : (the number is the text of its span)  BOOL_LIT : value 1 for true, 0 for false
+    //
+    // Walk it with the accessors or a Cursor; ToParseTree() materializes the classic ParseTree.
+
+    public static final byte PROGRAM   =  0, FUNC_DECL =  1, PARAM    =  2, LOCAL_DECL =  3, TYPE_SPEC =  4, LIST  =  5;
+    public static final byte ASSIGN    =  6, PRINT     =  7, RETURN   =  8, IF         =  9, WHILE     = 10, COMPOUND = 11;
+    public static final byte EXPR      = 12, TERM      = 13, OPERATOR = 14, PAREN      = 15, NEW       = 16;
+    public static final byte IDENT     = 17, CALL      = 18, INDEX    = 19, SIZE       = 20, NUM_LIT   = 21, BOOL_LIT = 22;
+
+    public static final int  TYPE_NUM = 0, TYPE_BOOL = 1, TYPE_ARRAY = 2;
+
+    byte[] kind  = new byte[256];
+    int [] value = new int [256];
+    int [] start = new int [256];
+    int [] end   = new int [256];
+    int [] first = new int [256];
+    int [] next  = new int [256];
+    int    count;
+    int    root  = -1;
+
+    char[]              source;  // the source the spans refer to, as in TokenBuffer
+    java.nio.ByteBuffer bytes;
+    SymbolTable         symbols;
+
+    public int     Count()           { return count;        }
+    public int     Root()            { return root;         }
+    public int     Kind(int node)    { return kind [node];  }
+    public int     Value(int node)   { return value[node];  }
+    public int     Start(int node)   { return start[node];  }
+    public int     End(int node)     { return end  [node];  }
+    public int     First(int node)   { return first[node];  }   // -1: no children
+    public int     Next(int node)    { return next [node];  }   // -1: the last child
+    public String  Name(int node)    { return symbols.Name(value[node]); }
+    public String  Text(int node)    { return TokenBuffer.Substring(source, bytes, start[node], end[node] - start[node]); }
+    public SymbolTable Symbols()     { return symbols; }
+    public Cursor  Cursor()          { return new Cursor(this); }
+
+    public long Bytes()
+    {
+        // the memory the node columns use
+        return (long) kind.length * (1 + 5 * 4);
+    }
+
+    void Trim()
+    {
+        // the arena is kept after the parse, so the columns are cut to the nodes in use
+        kind  = Arrays.copyOf(kind , count);
+        value = Arrays.copyOf(value, count);
+        start = Arrays.copyOf(start, count);
+        end   = Arrays.copyOf(end  , count);
+        first = Arrays.copyOf(first, count);
+        next  = Arrays.copyOf(next , count);
+    }
+
+    int Add(int kind, int value)
+    {
+        int n = count++;
+        if(n == this.kind.length)
+        {
+            int capacity = Math.max(n * 2, 16);
+            this.kind  = Arrays.copyOf(this.kind , capacity);
+            this.value = Arrays.copyOf(this.value, capacity);
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.end   = Arrays.copyOf(this.end  , capacity);
+            this.first = Arrays.copyOf(this.first, capacity);
+            this.next  = Arrays.copyOf(this.next , capacity);
+        }
+        this.kind [n] = (byte) kind;
+        this.value[n] = value;
+        this.first[n] = -1;
+        this.next [n] = -1;
+        return n;
+    }
+
+    int Add(int kind, int value, int c0, int c1, int c2, int c3)
+    {
+        // a node with up to four children (-1 for none), in this order
+        int n = Add(kind, value);
+        int last = -1;
+        if(c0 >= 0) { first[n] = c0; last = c0; }
+        if(c1 >= 0) { if(last < 0) first[n] = c1; else next[last] = c1; last = c1; }
+        if(c2 >= 0) { if(last < 0) first[n] = c2; else next[last] = c2; last = c2; }
+        if(c3 >= 0) { if(last < 0) first[n] = c3; else next[last] = c3; }
+        return n;
+    }
+
+    int Prepend(int list, int element)
+    {
+        // the right-recursive lists and chains are reduced innermost-first, so prepending
+        // builds each list in source order, in O(1) per element
+        next [element] = first[list];
+        first[list]    = element;
+        return list;
+    }
+
+    public static class Cursor
+    {
+        // a position in the arena, with the path from the root, so that it can go down, next and up
+        final Arena arena;
+        int         node;
+        int[]       path = new int[16];
+        int         depth;
+
+        Cursor(Arena arena)
+        {
+            this.arena = arena;
+            this.node  = arena.root;
+        }
+        public int     Node()  { return node;                 }
+        public int     Kind()  { return arena.kind [node];    }
+        public int     Value() { return arena.value[node];    }
+        public int     Depth() { return depth;                }
+        public String  Name()  { return arena.Name(node);     }
+        public String  Text()  { return arena.Text(node);     }
+        public boolean Down()
+        {
+            int child = arena.first[node];
+            if(child < 0)
+                return false;
+            if(depth == path.length)
+                path = Arrays.copyOf(path, depth * 2);
+            path[depth++] = node;
+            node = child;
+            return true;
+        }
+        public boolean Next()
+        {
+            int sibling = arena.next[node];
+            if(sibling < 0)
+                return false;
+            node = sibling;
+            return true;
+        }
+        public boolean Up()
+        {
+            if(depth == 0)
+                return false;
+            node = path[--depth];
+            return true;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////////////////
+    // the adapter to the classic tree
+    //////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    public ParseTree.Program ToParseTree()
+    {
+        List<ParseTree.FuncDecl> funcs = new ArrayList<ParseTree.FuncDecl>();
+        for(int f=first[root]; f>=0; f=next[f])
+            funcs.add(ToFuncDecl(f));
+        ParseTree.Program program = new ParseTree.Program(funcs);
+        program.symbols = symbols;
+        return program;
+    }
+
+    ParseTree.FuncDecl ToFuncDecl(int n)
+    {
+        int typespec = first[n], params = next[typespec], locals = next[params], stmts = next[locals];
+        List<ParseTree.Param> ps = new ArrayList<ParseTree.Param>();
+        for(int p=first[params]; p>=0; p=next[p])
+            ps.add(new ParseTree.Param(Name(p), value[p], ToTypeSpec(first[p])));
+        ParseTree.FuncDecl func = new ParseTree.FuncDecl(Name(n), value[n], ToTypeSpec(typespec), ps, ToLocalDecls(locals), ToStmts(stmts));
+        func.start = start[n];
+        func.end   = end  [n];
+        return func;
+    }
+
+    ParseTree.TypeSpec ToTypeSpec(int n)
+    {
+        return new ParseTree.TypeSpec(ToPrimType(value[n] & TYPE_BOOL),
+                                      ((value[n] & TYPE_ARRAY) != 0) ? new ParseTree.TypeSpec_Array() : new ParseTree.TypeSpec_Value());
+    }
+
+    static ParseTree.PrimType ToPrimType(int type)
+    {
+        return (type == TYPE_BOOL) ? new ParseTree.PrimTypeBool() : new ParseTree.PrimTypeNum();
+    }
+
+    List<ParseTree.LocalDecl> ToLocalDecls(int list)
+    {
+        List<ParseTree.LocalDecl> decls = new ArrayList<ParseTree.LocalDecl>();
+        for(int d=first[list]; d>=0; d=next[d])
+            decls.add(new ParseTree.LocalDecl(Name(d), value[d], ToTypeSpec(first[d])));
+        return decls;
+    }
+
+    List<ParseTree.Stmt> ToStmts(int list)
+    {
+        List<ParseTree.Stmt> stmts = new ArrayList<ParseTree.Stmt>();
+        for(int s=first[list]; s>=0; s=next[s])
+            stmts.add(ToStmt(s));
+        return stmts;
+    }
+
+    ParseTree.Stmt ToStmt(int n)
+    {
+        int c = first[n];
+        switch(kind[n])
+        {
+            case ASSIGN  : return new ParseTree.StmtAssign(Name(n), value[n], ToExpr(c));
+            case PRINT   : return new ParseTree.StmtPrint(ToExpr(c));
+            case RETURN  : return new ParseTree.StmtReturn(ToExpr(c));
+            case IF      : return new ParseTree.StmtIf(ToExpr(c), ToStmt(next[c]), ToStmt(next[next[c]]));
+            case WHILE   : return new ParseTree.StmtWhile(ToExpr(c), ToStmt(next[c]));
+            case COMPOUND: return new ParseTree.StmtCompound(ToLocalDecls(c), ToStmts(next[c]));
+        }
+        throw new IllegalStateException("not a statement: node " + n + " of kind " + kind[n]);
+    }
+
+    ParseTree.Expr ToExpr(int n)
+    {
+        if(kind[n] != EXPR)
+            return new ParseTree.Expr(new ParseTree.Term[] { ToTerm(n) }, ParseTree.NO_OPS);
+        int                operands = (Children(n) + 1) / 2;
+        ParseTree.Term[]   terms    = new ParseTree.Term[operands];
+        byte[]             ops      = new byte[operands - 1];
+        int c = first[n];
+        for(int i=0; i<operands; i++, c=next[c])
+        {
+            if(i > 0) { ops[i-1] = (byte) value[c]; c = next[c]; }
+            terms[i] = ToTerm(c);
+        }
+        return new ParseTree.Expr(terms, ops);
+    }
+
+    ParseTree.Term ToTerm(int n)
+    {
+        if(kind[n] != TERM)
+            return new ParseTree.Term(new ParseTree.Factor[] { ToFactor(n) }, ParseTree.NO_OPS);
+        int                operands = (Children(n) + 1) / 2;
+        ParseTree.Factor[] factors  = new ParseTree.Factor[operands];
+        byte[]             ops      = new byte[operands - 1];
+        int c = first[n];
+        for(int i=0; i<operands; i++, c=next[c])
+        {
+            if(i > 0) { ops[i-1] = (byte) value[c]; c = next[c]; }
+            factors[i] = ToFactor(c);
+        }
+        return new ParseTree.Term(factors, ops);
+    }
+
+    ParseTree.Factor ToFactor(int n)
+    {
+        int c = first[n];
+        switch(kind[n])
+        {
+            case PAREN   : return new ParseTree.FactorParen(ToExpr(c));
+            case NUM_LIT : return new ParseTree.FactorNumLit(Double.parseDouble(Text(n)));
+            case BOOL_LIT: return new ParseTree.FactorBoolLit(value[n] != 0);
+            case NEW     : return new ParseTree.FactorNew(ToPrimType(value[n]), ToExpr(c));
+            case IDENT   :
+                ParseTree.Factor_ factor_;
+                if(c < 0)
+                    factor_ = new ParseTree.FactorIdent_Eps();
+                else if(kind[c] == INDEX)
+                    factor_ = new ParseTree.FactorIdent_BrackExpr(ToExpr(first[c]));
+                else if(kind[c] == SIZE)
+                    factor_ = new ParseTree.FactorIdent_DotSize();
+                else
+                {
+                    List<ParseTree.Arg> args = new ArrayList<ParseTree.Arg>();
+                    for(int a=first[c]; a>=0; a=next[a])
+                        args.add(new ParseTree.Arg(ToExpr(a)));
+                    factor_ = new ParseTree.FactorIdent_ParenArgs(args);
+                }
+                return new ParseTree.FactorIdentExt(Name(n), value[n], factor_);
+        }
+        throw new IllegalStateException("not a factor: node " + n + " of kind " + kind[n]);
+    }
+
+    int Children(int n)
+    {
+        int count = 0;
+        for(int c=first[n]; c>=0; c=next[c])
+            count++;
+        return count;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////////////////
+    // the builder, as actions of the table-driven parser (Parser.ENGINE_ARENA)
+    //////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    public static class Builder implements LL1Table.Actions
+    {
+        // a value stack of ints: per symbol of the right-hand sides, its node (-1: none), its value
+        // (symbol id, operator, prim type, ...) and its span
+        Arena arena = new Arena();
+        int[] nodes  = new int[64];
+        int[] values = new int[64];
+        int[] starts = new int[64];
+        int[] ends   = new int[64];
+        int   count;
+
+        public void Shift(TokenBuffer tokens, int i)
+        {
+            if(arena.symbols == null)
+            {
+                arena.source  = tokens.source ;
+                arena.bytes   = tokens.bytes  ;
+                arena.symbols = tokens.symbols;
+            }
+            int value = 0;
+            switch(tokens.type[i])
+            {
+                case Parser.IDENT   : value = tokens.sym[i]; break;
+                case Parser.EXPROP  :
+                case Parser.RELOP   :
+                case Parser.TERMOP  : value = ParseTree.OpCode(tokens.Text(i)); break;
+                case Parser.BOOL_LIT: value = (tokens.CharAt(tokens.start[i]) == 't') ? 1 : 0; break;
+            }
+            Push(-1, value, tokens.start[i], tokens.start[i] + tokens.length[i]);
+        }
+
+        void Push(int node, int value, int start, int end)
+        {
+            if(count == nodes.length)
+            {
+                nodes  = Arrays.copyOf(nodes , count * 2);
+                values = Arrays.copyOf(values, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+                ends   = Arrays.copyOf(ends  , count * 2);
+            }
+            nodes [count] = node ;
+            values[count] = value;
+            starts[count] = start;
+            ends  [count] = end  ;
+            count++;
+        }
+
+        public void Reduce(int production)
+        {
+            Arena a     = arena;
+            int[] n     = nodes;
+            int[] v     = values;
+            int   b     = count - LL1Table.RHS_LENGTH[production];
+            int   node  = -1;
+            int   value = 0;
+            switch(production)
+            {
+                case LL1Table.P_PROGRAM          : node = n[b]; a.kind[node] = PROGRAM; a.root = node; break;
+                case LL1Table.P_DECL_LIST        :
+                case LL1Table.P_PARAMS           :
+                case LL1Table.P_LOCAL_DECLS      :
+                case LL1Table.P_STMT_LIST        :
+                case LL1Table.P_ARGS             :
+                case LL1Table.P_STMT_ASSIGN      :
+                case LL1Table.P_STMT_PRINT       :
+                case LL1Table.P_STMT_RETURN      :
+                case LL1Table.P_STMT_IF          :
+                case LL1Table.P_STMT_WHILE       :
+                case LL1Table.P_STMT_COMPOUND    : node = n[b]; break;
+                case LL1Table.P_DECL_LIST_       :
+                case LL1Table.P_LOCAL_DECLS_     :
+                case LL1Table.P_STMT_LIST_       : node = a.Prepend(n[b+1], n[b]); break;
+                case LL1Table.P_PARAM_LIST       :
+                case LL1Table.P_ARG_LIST         : node = a.Prepend(n[b+1], n[b]); break;
+                case LL1Table.P_PARAM_LIST_      :
+                case LL1Table.P_ARG_LIST_        : node = a.Prepend(n[b+2], n[b+1]); break;
+                case LL1Table.P_DECL_LIST_EPS    :
+                case LL1Table.P_PARAMS_EPS       :
+                case LL1Table.P_PARAM_LIST_EPS   :
+                case LL1Table.P_LOCAL_DECLS_EPS  :
+                case LL1Table.P_STMT_LIST_EPS    :
+                case LL1Table.P_ARGS_EPS         :
+                case LL1Table.P_ARG_LIST_EPS     : node = a.Add(LIST, 0); break;
+                case LL1Table.P_FUN_DECL         : node = a.Add(FUNC_DECL , v[b+1], n[b], n[b+3], n[b+6], n[b+7]); break;
+                case LL1Table.P_PARAM            : node = a.Add(PARAM     , v[b+1], n[b], -1, -1, -1); break;
+                case LL1Table.P_LOCAL_DECL       : node = a.Add(LOCAL_DECL, v[b+1], n[b], -1, -1, -1); break;
+                case LL1Table.P_TYPE_SPEC        : node = a.Add(TYPE_SPEC , v[b] + v[b+1]); break;
+                case LL1Table.P_TYPE_SPEC_ARRAY  : value = TYPE_ARRAY; break;
+                case LL1Table.P_TYPE_SPEC_VALUE  : value = 0; break;
+                case LL1Table.P_PRIM_TYPE_NUM    : value = TYPE_NUM; break;
+                case LL1Table.P_PRIM_TYPE_BOOL   : value = TYPE_BOOL; break;
+                case LL1Table.P_ASSIGN_STMT      : node = a.Add(ASSIGN, v[b], n[b+2], -1, -1, -1); break;
+                case LL1Table.P_PRINT_STMT       : node = a.Add(PRINT , 0, n[b+1], -1, -1, -1); break;
+                case LL1Table.P_RETURN_STMT      : node = a.Add(RETURN, 0, n[b+1], -1, -1, -1); break;
+                case LL1Table.P_IF_STMT          : node = a.Add(IF    , 0, n[b+2], n[b+4], n[b+6], -1); break;
+                case LL1Table.P_WHILE_STMT       : node = a.Add(WHILE , 0, n[b+2], n[b+4], -1, -1); break;
+                case LL1Table.P_COMPOUND_STMT    : node = a.Add(COMPOUND, 0, n[b+1], n[b+2], -1, -1); break;
+                case LL1Table.P_EXPR             : node = Operands(EXPR, n[b], n[b+1]); break;
+                case LL1Table.P_TERM             : node = Operands(TERM, n[b], n[b+1]); break;
+                case LL1Table.P_EXPR_EXPROP      :
+                case LL1Table.P_EXPR_RELOP       :
+                case LL1Table.P_TERM_TERMOP      :
+                {
+                    int chain = (n[b+2] >= 0) ? n[b+2] : a.Add(LIST, 0);
+                    int op    = a.Add(OPERATOR, v[b]);
+                    a.start[op] = starts[b];
+                    a.end  [op] = ends  [b];
+                    node = a.Prepend(a.Prepend(chain, n[b+1]), op);
+                    break;
+                }
+                case LL1Table.P_EXPR_EPS         :
+                case LL1Table.P_TERM_EPS         :
+                case LL1Table.P_FACTOR_EPS       : break; // no node
+                case LL1Table.P_FACTOR_IDENT     : node = a.Add(IDENT   , v[b], n[b+1], -1, -1, -1); break;
+                case LL1Table.P_FACTOR_PAREN     : node = a.Add(PAREN   , 0, n[b+1], -1, -1, -1); break;
+                case LL1Table.P_FACTOR_NUM_LIT   : node = a.Add(NUM_LIT , 0); break;
+                case LL1Table.P_FACTOR_BOOL_LIT  : node = a.Add(BOOL_LIT, v[b]); break;
+                case LL1Table.P_FACTOR_NEW       : node = a.Add(NEW     , v[b+1], n[b+3], -1, -1, -1); break;
+                case LL1Table.P_FACTOR_PARENARGS : node = n[b+1]; a.kind[node] = CALL; break;
+                case LL1Table.P_FACTOR_BRACKEXPR : node = a.Add(INDEX   , 0, n[b+1], -1, -1, -1); break;
+                case LL1Table.P_FACTOR_DOTSIZE   : node = a.Add(SIZE    , 0); break;
+                default                          : throw new IllegalStateException("unknown production " + production);
+            }
+            // the span of a production is from its first to its last token; an eps is empty,
+            // at the end of the symbol before it
+            int s = (count > b) ? starts[b] : (b > 0) ? ends[b-1] : 0;
+            int e = (count > b) ? ends[count-1] : s;
+            if(node >= 0)
+            {
+                a.start[node] = s;
+                a.end  [node] = e;
+            }
+            count = b;
+            Push(node, value, s, e);
+        }
+
+        int Operands(int kind, int operand, int chain)
+        {
+            // a single operand stands for its expr or term; only a chain with operators gets a node
+            if(chain < 0)
+                return operand;
+            arena.kind[chain] = (byte) kind;
+            return arena.Prepend(chain, operand);
+        }
+
+        public Object Result()
+        {
+            arena.Trim();
+            return arena;
+        }
+    }
+}
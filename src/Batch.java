@@ -0,0 +1,268 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class Batch
+{
+    // Checks many .minc files in one process.
+    //   java Program [-j threads] [--max-errors N] [--cache dir [--cache-size MB]] [--format text|jsonl|sarif]
+    //                <file | directory | glob> ...
+    // Directories are searched recursively for *.minc files, and globs (ex: "testcases/fail_*.minc",
+    // "gen/**/*.minc") are matched against the paths found under their non-glob prefix.
+    // Every file is compiled by a fresh Compiler/Parser on a fork-join worker thread; the per-file
+    // results are reported in the (sorted) order of the inputs, followed by a pass/fail summary,
+    // as text or as records (see Report).
+    // With --cache, the result of a file whose bytes were checked before is read from a ResultCache.
+
+    public static class Result
+    {
+        public Path          path  ;
+        public boolean       passed;
+        public String        output;            // the text Program prints ("" if the report has no text)
+        public List<Message> errors = List.of();
+        public long          micros;            // of the check (or of the read of the cache)
+        public boolean       cached;
+        public Result(Path path, boolean passed, String output)
+        {
+            this.path   = path  ;
+            this.passed = passed;
+            this.output = output;
+        }
+    }
+
+    public static class Message
+    {
+        public int    line  ;                   // 0 if the error has no position (ex: an unreadable file)
+        public int    column;
+        public String text  ;
+        public Message(int line, int column, String text)
+        {
+            this.line   = line  ;
+            this.column = column;
+            this.text   = text  ;
+        }
+    }
+
+    public static int Main(String[] args) throws Exception
+    {
+        int          threads   = Runtime.getRuntime().availableProcessors();
+        int          maxerrors = 1;
+        String       cachedir  = null;
+        long         cachesize = ResultCache.DEFAULT_LIMIT;
+        String       format    = "text";
+        List<String> inputs    = new ArrayList<String>();
+        for(int i=0; i<args.length; i++)
+        {
+            if(args[i].equals("-j") && i+1 < args.length)
+                threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--max-errors") && i+1 < args.length)
+                maxerrors = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--cache") && i+1 < args.length)
+                cachedir = args[++i];
+            else if(args[i].equals("--cache-size") && i+1 < args.length)
+                cachesize = Long.parseLong(args[++i]) << 20;
+            else if(args[i].equals("--format") && i+1 < args.length)
+                format = args[++i];
+            else if(args[i].equals("--metrics"))
+                continue;                               // (see Program)
+            else
+                inputs.add(args[i]);
+        }
+
+        Report      report = Report.Of(format, new FileOutputStream(FileDescriptor.out));
+        List<Path>  files  = CollectFiles(inputs);
+        ResultCache cache  = (cachedir != null) ? new ResultCache(Paths.get(cachedir), cachesize) : null;
+        int failed = Run(files, report, threads, maxerrors, cache);
+        if(cache != null)
+            cache.Evict();
+        return (failed == 0) ? 0 : 1;
+    }
+
+    public static List<Path> CollectFiles(List<String> inputs) throws IOException
+    {
+        LinkedHashSet<Path> files = new LinkedHashSet<Path>();
+        for(String input : inputs)
+        {
+            List<Path> found = new ArrayList<Path>();
+            if(IsGlob(input))
+            {
+                Path        base    = GlobBase(input);
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+                if(Files.isDirectory(base))
+                    try(var walk = Files.walk(base))
+                    {
+                        walk.filter(p -> Files.isRegularFile(p) && matcher.matches(p)).forEach(found::add);
+                    }
+            }
+            else
+            {
+                Path path = Paths.get(input);
+                if(Files.isDirectory(path))
+                    try(var walk = Files.walk(path))
+                    {
+                        walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".minc")).forEach(found::add);
+                    }
+                else
+                    found.add(path); // a missing file is reported as a failure by Run()
+            }
+            Collections.sort(found);
+            files.addAll(found);
+        }
+        return new ArrayList<Path>(files);
+    }
+
+    static boolean IsGlob(String input)
+    {
+        for(char c : "*?[{".toCharArray())
+            if(input.indexOf(c) >= 0)
+                return true;
+        return false;
+    }
+
+    static Path GlobBase(String glob)
+    {
+        // the longest leading run of path elements that contain no glob characters
+        String[] parts = glob.split("[/\\\\]");
+        String   base  = glob.startsWith("/") ? "/" : "";
+        for(String part : parts)
+        {
+            if(IsGlob(part))
+                break;
+            if(!part.isEmpty())
+                base += part + "/";
+        }
+        return base.isEmpty() ? Paths.get(".") : Paths.get(base);
+    }
+
+    public static int Run(List<Path> files, PrintStream out, int threads) throws Exception
+    {
+        return Run(files, out, threads, 1);
+    }
+
+    public static int Run(List<Path> files, PrintStream out, int threads, int maxerrors) throws Exception
+    {
+        return Run(files, out, threads, maxerrors, null);
+    }
+
+    public static int Run(List<Path> files, PrintStream out, int threads, int maxerrors, ResultCache cache) throws Exception
+    {
+        return Run(files, Report.Of("text", out), threads, maxerrors, cache);
+    }
+
+    public static int Run(List<Path> files, Report report, int threads, int maxerrors, ResultCache cache) throws Exception
+    {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try
+        {
+            // at most window files are submitted ahead of the one being reported, so the results
+            // that wait for an earlier file to be done are bounded, however many files there are
+            int                              window  = Math.max(1, threads) * 64;
+            ArrayDeque<ForkJoinTask<Result>> pending = new ArrayDeque<ForkJoinTask<Result>>();
+            boolean                          text    = report.Text();
+            long                             time0   = System.nanoTime();
+            int                              next    = 0;
+
+            // results are joined in input order, so the report is the same for any thread count
+            int passed = 0;
+            int failed = 0;
+            report.Begin();
+            for(int i=0; i<files.size(); i++)
+            {
+                for(; next < files.size() && next < i + window; next++)
+                {
+                    Path file = files.get(next);
+                    pending.add(pool.submit(() -> Check(file, maxerrors, cache, text)));
+                }
+                ForkJoinTask<Result> task = pending.poll();
+                if(!task.isDone())
+                    report.Flush();         // the records so far, while the next one is checked
+                Result result = task.join();
+                report.File(result);
+                if(result.passed) passed++;
+                else              failed++;
+            }
+            report.End(passed, failed, (System.nanoTime() - time0) / 1000, (cache != null) ? cache.Stats() : null);
+            return failed;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    public static Result Check(Path file)
+    {
+        return Check(file, 1);
+    }
+
+    public static Result Check(Path file, int maxerrors)
+    {
+        return Check(file, maxerrors, null);
+    }
+
+    public static Result Check(Path file, int maxerrors, ResultCache cache)
+    {
+        return Check(file, maxerrors, cache, true);
+    }
+
+    public static Result Check(Path file, int maxerrors, ResultCache cache, boolean text)
+    {
+        // the verdict and the errors of a file, and the text Program prints for it if text
+        // the parser, the lexer and the bytes of the file are the thread's (see ParserPool)
+        long                time0  = System.nanoTime();
+        ParserPool          pool   = ParserPool.Get();
+        java.nio.ByteBuffer source = null;
+        String              key    = null;
+        if(cache != null)
+        {
+            try
+            {
+                // the bytes are read once, to hash them and (on a miss) to check them
+                source = pool.Read(file);
+                key    = cache.Key(source, maxerrors, text);
+                Result cached = cache.Get(key, file, source.remaining());
+                if(cached != null)
+                {
+                    cached.micros = (System.nanoTime() - time0) / 1000;
+                    return cached;
+                }
+            }
+            catch(IOException e)
+            {
+                source = null;      // a missing file is reported by the check below, and not cached
+            }
+        }
+
+        ByteArrayOutputStream bytes  = new ByteArrayOutputStream();
+        PrintStream           out    = new PrintStream(bytes);
+        List<Message>         errors = new ArrayList<Message>();
+        boolean               passed;
+        boolean               complete = false;
+        try
+        {
+            // the verdict and the error need no tree, unless the text or the recovery of more errors does
+            int      engine   = (!text && maxerrors == 1) ? Parser.ENGINE_RECOGNIZER : Parser.ENGINE_RECURSIVE;
+            Compiler compiler = (source != null) ? pool.Compiler(source, file.toString(), engine) : pool.Compiler(file, engine);
+            compiler.MaxErrors(maxerrors);
+            passed   = ((text ? compiler.Compile(out) : compiler.Parse()) == 0);
+            complete = true;
+            for(Diagnostic error : compiler.parser._errors)
+                errors.add(new Message(error.line, error.column, error.Message()));
+        }
+        catch(Exception e)
+        {
+            if(text)
+                out.println("Error: " + e);
+            errors.add(new Message(0, 0, String.valueOf(e)));
+            passed = false;
+        }
+        out.flush();
+        Result result = new Result(file, passed, bytes.toString());
+        result.errors = errors;
+        result.micros = (System.nanoTime() - time0) / 1000;
+        if(complete && source != null)
+            cache.Put(key, result, source.remaining());
+        return result;
+    }
+}
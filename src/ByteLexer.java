@@ -0,0 +1,328 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+public class ByteLexer implements Scanner
+{
+    // A hand-written scanner for the tokens of Lexer.flex that reads UTF-8 bytes directly, from a
+    // heap buffer or a memory-mapped file, so there is no charset decoding and no buffer refilling.
+    // Every MiniC token is ASCII, so the scanner dispatches on the byte; only the comments and an
+    // unexpected character need to decode multi-byte UTF-8 sequences.
+    //
+    // It produces the same tokens, lines and columns as Lexer (columns count chars, as JFlex's
+    // yylength() does), with the offsets in TokenBuffer being byte offsets into the input:
+    //   - the block comment "%*"[^]*"*%" is greedy: it extends to the last "*%" of the input
+    //   - a line comment "%%".* ends before \n \r \u000B \u000C \u0085 \u2028 \u2029 (JFlex's ".")
+    //   - a backspace is reported on stderr (unless quiet) and skipped without moving the column
+
+    public static final long MAP_THRESHOLD = 1 << 20;   // files from 1 MB on are mapped, not read
+
+    ByteBuffer         input;
+    int                pos;
+    int                end;
+    int                lastclose   = -2;    // offset of the last "*%" in the input; -2: not searched yet
+    public SymbolTable symbols     = new SymbolTable();
+    public int         lineno      = 1;
+    public int         column      = 1;
+    public int         tokenColumn;
+    public boolean     quiet;                   // no message on stderr for a backspace, nor from the Parser for an unexpected char (see MiniC)
+    public long        backspaces;              // skipped so far, reported or not (see TokenPipeline)
+
+    static final boolean[] IDENT_PART = new boolean[256];
+    static
+    {
+        for(int c='a'; c<='z'; c++) IDENT_PART[c] = true;
+        for(int c='A'; c<='Z'; c++) IDENT_PART[c] = true;
+        for(int c='0'; c<='9'; c++) IDENT_PART[c] = true;
+        IDENT_PART['_'] = true;
+    }
+
+    public ByteLexer(ByteBuffer input)
+    {
+        this.input = input;
+        this.pos   = 0;
+        this.end   = input.limit();
+    }
+
+    public void Reset(ByteBuffer input)
+    {
+        // scans a new input from its start, with none of the state of the last one (see ParserPool)
+        this.input       = input;
+        this.pos         = 0;
+        this.end         = input.limit();
+        this.lastclose   = -2;
+        this.lineno      = 1;
+        this.column      = 1;
+        this.tokenColumn = 0;
+        symbols.Clear();
+    }
+
+    public ByteLexer(ByteBuffer input, int from, int to, int line)
+    {
+        // the bytes [from, to) of input, from the start of a line (see ParallelParser); the
+        // offsets of the tokens are still offsets into input
+        this.input  = input;
+        this.pos    = from;
+        this.end    = to;
+        this.lineno = line;
+    }
+
+    public static ByteBuffer Open(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if(size >= MAP_THRESHOLD)
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path));
+    }
+
+    public int Fill(TokenBuffer tokens)
+    {
+        tokens.source  = null;
+        tokens.bytes   = input;
+        tokens.symbols = symbols;
+        tokens.report  = !quiet;
+        tokens.count   = 0;
+
+        ByteBuffer in   = input;
+        int        p    = pos;
+        int        line = lineno;
+        int        col  = column;
+        int        cap  = tokens.type.length;
+        try
+        {
+            while(tokens.count < cap)
+            {
+                if(p >= end)
+                {
+                    // the end marker keeps the column of the last token, as the parser has always reported it
+                    tokens.Add(Parser.ENDMARKER, end, 0, line, tokenColumn);
+                    break;
+                }
+                int s = p;
+                int b = in.get(p);
+                int type;
+                switch(b)
+                {
+                    case ' ': case '\t': case '\r':
+                        do { p++; col++; } while(p < end && IsBlank(in.get(p)));
+                        continue;
+                    case '\n':
+                        p++; line++; col = 1;
+                        continue;
+                    case '%':
+                        if(p+1 < end && in.get(p+1) == '%')
+                        {
+                            col += 2;
+                            for(p += 2; p < end; )
+                            {
+                                int c = in.get(p);
+                                if(c >= 0)
+                                {
+                                    if(c == '\n' || c == '\r' || c == 0x0B || c == 0x0C)
+                                        break;
+                                    p++; col++;
+                                    continue;
+                                }
+                                int cp = CodePoint(in, p);
+                                if(cp == 0x85 || cp == 0x2028 || cp == 0x2029)
+                                    break;
+                                p   += Utf8Length(in, p);
+                                col += Character.charCount(cp);
+                            }
+                            continue;
+                        }
+                        if(p+1 < end && in.get(p+1) == '*' && LastClose() >= p+2)
+                        {
+                            int close = LastClose() + 2;
+                            for(; p < close; p++)
+                            {
+                                int c = in.get(p);
+                                if(c == '\n')             { line++; col = 1; }
+                                else if((c & 0xC0) != 0x80) col += ((c & 0xF8) == 0xF0) ? 2 : 1;   // count chars, not continuation bytes
+                            }
+                            continue;
+                        }
+                        Unexpected(tokens, p, line, col);
+                        p += Utf8Length(in, p);
+                        return tokens.count;
+                    case 0x08:
+                        backspaces++;
+                        if(!quiet)
+                            System.err.println("Sorry, backspace doesn't work");
+                        p++;
+                        continue;
+                    case '{': type = Parser.BEGIN   ; p++; break;
+                    case '}': type = Parser.END     ; p++; break;
+                    case '(': type = Parser.LPAREN  ; p++; break;
+                    case ')': type = Parser.RPAREN  ; p++; break;
+                    case '[': type = Parser.LBRACKET; p++; break;
+                    case ']': type = Parser.RBRACKET; p++; break;
+                    case ';': type = Parser.SEMI    ; p++; break;
+                    case ',': type = Parser.COMMA   ; p++; break;
+                    case '.': type = Parser.DOT     ; p++; break;
+                    case '+': case '-':
+                              type = Parser.EXPROP  ; p++; break;
+                    case '*': case '/':
+                              type = Parser.TERMOP  ; p++; break;
+                    case '=': type = Parser.RELOP   ; p++; break;
+                    case '<':
+                        p++;
+                        type = Parser.RELOP;
+                        if(p < end)
+                        {
+                            int c = in.get(p);
+                            if     (c == '-')             { type = Parser.ASSIGN; p++; }
+                            else if(c == '=' || c == '>') { p++; }
+                        }
+                        break;
+                    case '>':
+                        p++;
+                        type = Parser.RELOP;
+                        if(p < end && in.get(p) == '=')
+                            p++;
+                        break;
+                    case '0': case '1': case '2': case '3': case '4':
+                    case '5': case '6': case '7': case '8': case '9':
+                        do p++; while(p < end && IsDigit(in.get(p)));
+                        if(p+1 < end && in.get(p) == '.' && IsDigit(in.get(p+1)))
+                            do p++; while(p < end && IsDigit(in.get(p)));
+                        type = Parser.NUM_LIT;
+                        break;
+                    default:
+                        if(b >= 0 && IDENT_PART[b] && !IsDigit(b) && b != '_')
+                        {
+                            do p++; while(p < end && IDENT_PART[in.get(p) & 0xFF]);
+                            type = Keyword(in, s, p - s);
+                            if(type == Parser.IDENT)
+                            {
+                                // an identifier is interned as it is scanned, so every occurrence of a name shares one id
+                                tokenColumn = col;
+                                tokens.Add(type, s, p - s, line, col);
+                                if(tokens.intern)
+                                    tokens.sym[tokens.count-1] = symbols.Intern(in, s, p - s);
+                                col += p - s;
+                                continue;
+                            }
+                            break;
+                        }
+                        Unexpected(tokens, p, line, col);
+                        p += Utf8Length(in, p);
+                        return tokens.count;
+                }
+                // every token is ASCII, so its length in bytes is its length in chars
+                tokenColumn = col;
+                tokens.Add(type, s, p - s, line, col);
+                col += p - s;
+            }
+            return tokens.count;
+        }
+        finally
+        {
+            pos    = p;
+            lineno = line;
+            column = col;
+        }
+    }
+
+    void Unexpected(TokenBuffer tokens, int p, int line, int col)
+    {
+        // the message is the Parser's to print (see TokenBuffer.Unexpected)
+        int n = Utf8Length(input, p);
+        tokenColumn = col;
+        tokens.Add(Parser.LEXERROR, p, n, line, col);
+    }
+
+    static String Unexpected(ByteBuffer input, int p)
+    {
+        return new StringBuilder("Error: unexpected character '").appendCodePoint(CodePoint(input, p)).append('\'').toString();
+    }
+
+    int LastClose()
+    {
+        // the greedy block comment always ends at the last "*%", so it is searched only once
+        if(lastclose == -2)
+        {
+            lastclose = -1;
+            for(int i=end-2; i>=0; i--)
+            {
+                if(input.get(i) == '*' && input.get(i+1) == '%')
+                {
+                    lastclose = i;
+                    break;
+                }
+            }
+        }
+        return lastclose;
+    }
+
+    static boolean IsBlank(int c) { return c == ' ' || c == '\t' || c == '\r'; }
+    static boolean IsDigit(int c) { return c >= '0' && c <= '9'; }
+
+    static int Keyword(ByteBuffer in, int s, int len)
+    {
+        switch(len)
+        {
+            case 2:
+                if(Is(in, s, "if"   )) return Parser.IF;
+                if(Is(in, s, "or"   )) return Parser.EXPROP;
+                break;
+            case 3:
+                if(Is(in, s, "num"  )) return Parser.NUM;
+                if(Is(in, s, "new"  )) return Parser.NEW;
+                if(Is(in, s, "and"  )) return Parser.TERMOP;
+                break;
+            case 4:
+                if(Is(in, s, "bool" )) return Parser.BOOL;
+                if(Is(in, s, "size" )) return Parser.SIZE;
+                if(Is(in, s, "else" )) return Parser.ELSE;
+                if(Is(in, s, "true" )) return Parser.BOOL_LIT;
+                break;
+            case 5:
+                if(Is(in, s, "while")) return Parser.WHILE;
+                if(Is(in, s, "print")) return Parser.PRINT;
+                if(Is(in, s, "false")) return Parser.BOOL_LIT;
+                break;
+            case 6:
+                if(Is(in, s, "return")) return Parser.RETURN;
+                break;
+        }
+        return Parser.IDENT;
+    }
+
+    static boolean Is(ByteBuffer in, int s, String word)
+    {
+        for(int i=0; i<word.length(); i++)
+            if(in.get(s+i) != word.charAt(i))
+                return false;
+        return true;
+    }
+
+    static int Utf8Length(ByteBuffer in, int p)
+    {
+        // the length of the UTF-8 sequence at p; a malformed byte counts as one (replaced) char
+        int b = in.get(p) & 0xFF;
+        int n = (b < 0x80) ? 1 : (b >> 5) == 0x6 ? 2 : (b >> 4) == 0xE ? 3 : (b >> 3) == 0x1E ? 4 : 1;
+        if(p + n > in.limit())
+            return 1;
+        for(int i=1; i<n; i++)
+            if((in.get(p+i) & 0xC0) != 0x80)
+                return 1;
+        return n;
+    }
+
+    static int CodePoint(ByteBuffer in, int p)
+    {
+        int n = Utf8Length(in, p);
+        int b = in.get(p) & 0xFF;
+        if(n == 1)
+            return (b < 0x80) ? b : 0xFFFD;
+        int cp = b & (0x7F >> n);
+        for(int i=1; i<n; i++)
+            cp = (cp << 6) | (in.get(p+i) & 0x3F);
+        return cp;
+    }
+}
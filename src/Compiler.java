@@ -1,44 +1,160 @@
 public class Compiler
 {
-    Parser parser;
+    Parser              parser;
+    java.nio.ByteBuffer bytes;      // the source, if it is scanned by a ByteLexer
 
+    Compiler()
+    {
+        // the parser and the bytes are set by ParserPool, from the instances of its thread
+    }
     public Compiler(java.io.Reader r) throws Exception
     {
         parser = new Parser(r, this);
     }
+    public Compiler(java.nio.file.Path path) throws Exception
+    {
+        // the file is scanned as UTF-8 bytes, mapped into memory if it is large (see ByteLexer)
+        this(ByteLexer.Open(path), path.toString());
+    }
+    public Compiler(java.nio.ByteBuffer bytes) throws Exception
+    {
+        this(bytes, null);
+    }
+    public Compiler(java.nio.ByteBuffer bytes, String file) throws Exception
+    {
+        // UTF-8 source already in memory (read or mapped by ByteLexer.Open); file names it in Events.
+        // A large one is lexed on another core as it is parsed (see TokenPipeline), unless it is
+        // parsed in chunks, each with a lexer of its own
+        ByteLexer lexer     = new ByteLexer(bytes);
+        boolean   pipelined = TokenPipeline.Worth(bytes.limit()) && !Chunked(bytes.limit(), Parser.ENGINE_RECURSIVE);
+        parser = new Parser(pipelined ? new TokenPipeline(lexer) : lexer, this, file);
+        this.bytes = bytes;
+    }
+    static boolean Chunked(long length, int engine)
+    {
+        // whether Parse() gives a source of length bytes to ParallelParser first
+        return length >= ParallelParser.THRESHOLD && engine == Parser.ENGINE_RECURSIVE;
+    }
+    public void MaxErrors(int maxerrors)
+    {
+        // how many syntax errors to report before giving up (default 1: stop at the first one)
+        parser._maxerrors = Math.max(1, maxerrors);
+    }
     public void Compile() throws Exception
     {
-        int parseresult = parser.yyparse();
+        Compile(System.out);
+    }
+    int Parse() throws Exception
+    {
+        try
+        {
+            return ParseOnce();
+        }
+        finally
+        {
+            parser._lexer.Close();  // yyparse closes it too, but it does not run if ParallelParser parses
+        }
+    }
+    int ParseOnce() throws Exception
+    {
+        // the parse of every check, counted in Metrics and recorded as an Events.Parse
+        Events.Parse event      = null;
+        if(Events.Recording())
+        {
+            event = new Events.Parse();
+            event.begin();
+        }
+        long         time0      = System.nanoTime();
+        long         allocated0 = Metrics.Allocated();
+        boolean      parallel   = false;
+        // a large file is first parsed in chunks on all the cores; if that fails (or the file
+        // can not be split), it is parsed as one, for the errors (see ParallelParser)
+        ParseTree.Program program = null;
+        if(bytes != null && Chunked(bytes.limit(), parser._engine))
+            program = ParallelParser.Parse(bytes, java.util.concurrent.ForkJoinPool.commonPool(), parser._file);
+        int result;
+        if(program != null)
+        {
+            parser._parsetree = program;
+            parallel = true;
+            result   = 0;
+        }
+        else
+            result = parser.yyparse();
+        long length = (bytes != null) ? bytes.limit() : parser._lexed;
+        Metrics.Parsed(length, parser._consumed, result == 0, System.nanoTime() - time0, allocated0);
+        if(parallel)
+            Metrics.chunked.incrementAndGet();
+        if(event != null && event.shouldCommit())
+        {
+            event.file      = parser._file;
+            event.bytes     = length;
+            event.tokens    = parser._consumed;     // 0 if parallel: the chunks' Function events have theirs
+            event.functions = (parser._parsetree != null) ? parser._parsetree.funcs.size() : 0;
+            event.nodes     = Events.Nodes(parser._parsetree);
+            event.errors    = parser._errors.size();
+            event.passed    = (result == 0);
+            event.parallel  = parallel;
+            event.commit();
+        }
+        return result;
+    }
+    public int Compile(java.io.PrintStream out) throws Exception
+    {
+        int parseresult = Parse();
             // parser.yyparse()
             // 1. parses the input
             // 2. assigns parser._parsetree the parse tree
             // 3. return 0 (indicating success)
             // 4. if syntax error occurs,
-            //    assign parser._errormsg the error message
+            //    assign parser._error the error (a Diagnostic)
             //    and return -1
 
         if(parseresult == 0)
         {
-            System.out.println("Success: no syntax error is found.");
+            out.println("Success: no syntax error is found.");
 
             ParseTree.Program program = parser._parsetree;
+            if(program == null && parser._arena != null)
+                program = parser._arena.ToParseTree();  // ENGINE_ARENA keeps the compact tree
             if(program != null)
             {
                 // if parser._parsetree != null
                 // print its parse tree as an indented code
-                System.out.println();
-                System.out.println("Following is the indentation-updated source code:");
-                System.out.println("=================================================");
-                for(String line : program.ToStringList())
-                    // print indented codes
-                    System.out.println(line);
+                out.println();
+                out.println("Following is the indentation-updated source code:");
+                out.println("=================================================");
+                // print indented codes: the tree is written in one walk through a buffer,
+                // instead of a String per line
+                Events.Print   event      = null;
+                if(Events.Recording())
+                {
+                    event = new Events.Print();
+                    event.begin();
+                }
+                long           time0      = System.nanoTime();
+                long           allocated0 = Metrics.Allocated();
+                java.io.Writer writer     = new java.io.BufferedWriter(new java.io.OutputStreamWriter(out), 1 << 16);
+                program.Print(writer, 0);
+                writer.flush();
+                Metrics.Printed(System.nanoTime() - time0, allocated0);
+                if(event != null && event.shouldCommit())
+                {
+                    event.file      = parser._file;
+                    event.functions = program.funcs.size();
+                    event.nodes     = Events.Nodes(program);
+                    event.commit();
+                }
             }
         }
         else if(parseresult == -1)
         {
-            System.out.println("Error: There is syntax error(s).");
-            if(parser._errormsg != null)
-                System.out.println(parser._errormsg);
+            out.println("Error: There is syntax error(s).");
+            for(Diagnostic error : parser._errors)
+                // every error recovered from, in order (only the first one by default);
+                // the message is formatted here, not when the error was found
+                out.println(error.Message());
         }
+        return parseresult;
     }
 }
@@ -0,0 +1,381 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Daemon
+{
+    // A long-lived checker for build systems, so that each check costs a request to a warm process
+    // instead of the start of a JVM that runs the lexer and the parser cold:
+    //   java Program --daemon [--socket path] [-j threads] [--no-warmup]
+    // It reads one JSON request per line, from stdin or from each connection to a Unix domain
+    // socket, checks the requests concurrently on a pool of threads and writes one JSON response
+    // per line as each completes (so a client matches them by "id"):
+    //   {"id": 1, "path": "a.minc"}                         a file
+    //   {"id": 2, "source": "num main() { }", "max_errors": 10, "output": true}
+    //                                                       inline source, up to 10 errors, with the
+    //                                                       text Program would print
+    //   {"id": 3, "op": "stats"}                            requests served, throughput
+    //   {"id": 4, "op": "metrics"}                          the counters of the checks (see Metrics)
+    //   {"op": "shutdown"}                                  stop (see Shutdown)
+    // A check answers {"id", "ok", "errors": [{"line", "column", "message"}], "micros"[, "output"]}
+    // and a request that can not be served {"id", "ok": false, "error"}: every request is answered,
+    // one that comes after a shutdown, or is still queued when it gives up waiting, with an error.
+    // Before serving, the JIT is warmed up by checking the files in testcases/ for a while.
+
+    static final long        SHUTDOWN_SECONDS = 60;     // the checks queued at a shutdown are waited for
+
+    final ExecutorService    pool;
+    final AtomicLong         served = new AtomicLong();
+    final AtomicLong         nanos  = new AtomicLong();   // spent in the checks
+    final long               started = System.nanoTime();
+    final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();   // open, of Listen
+    volatile boolean         stopped;
+
+    public Daemon(int threads)
+    {
+        pool = Executors.newFixedThreadPool(Math.max(1, threads), r ->
+        {
+            Thread thread = new Thread(r, "daemon-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String  socket  = null;
+        int     threads = Runtime.getRuntime().availableProcessors();
+        boolean warmup  = true;
+        for(int i=0; i<args.length; i++)
+        {
+            if     (args[i].equals("--socket") && i+1 < args.length) socket  = args[++i];
+            else if(args[i].equals("-j"      ) && i+1 < args.length) threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--no-warmup"))                   warmup  = false;
+        }
+        Daemon daemon = new Daemon(threads);
+        Metrics.Track();                        // its set up is paid before the first request
+        if(warmup)
+            daemon.Warmup(Paths.get("testcases"), 2.0);
+        Metrics.Reset();
+        if(socket != null) daemon.Listen(Paths.get(socket));
+        else               daemon.Serve(System.in, System.out);
+        daemon.Shutdown();
+        System.err.println(daemon.Stats());
+    }
+
+    public void Warmup(Path dir, double seconds) throws Exception
+    {
+        // checks the files of dir until the time is up, so that the hot paths are compiled
+        List<Path> files = new ArrayList<Path>();
+        if(Files.isDirectory(dir))
+        {
+            try(var list = Files.list(dir))
+            {
+                list.filter(f -> f.toString().endsWith(".minc")).sorted().forEach(files::add);
+            }
+        }
+        if(files.isEmpty())
+            return;
+        List<String> sources = new ArrayList<String>();
+        for(Path file : files)
+            sources.add(Files.readString(file));
+        long time0  = System.nanoTime();
+        long end    = time0 + (long) (seconds * 1e9);
+        long checks = 0;
+        while(System.nanoTime() < end)
+        {
+            // both kinds of request: a path (ByteLexer) and an inline source (Lexer)
+            for(Path file : files)
+                Check(ParserPool.Get().Compiler(file), 1, true);
+            for(String source : sources)
+                Check(ParserPool.Get().Compiler(source), 1, true);
+            checks += files.size() + sources.size();
+        }
+        System.err.printf("warmed up with %d checks of %s in %.1f s%n", checks, dir, (System.nanoTime() - time0) / 1e9);
+    }
+
+    public void Listen(Path path) throws Exception
+    {
+        // each connection is served like stdin, on its own thread, until a "shutdown" request; the
+        // connection that got it wakes the accept loop with a connection of its own (see Wake), and
+        // the loop ends: once the pool is done, the other connections and the server are closed
+        Files.deleteIfExists(path);
+        try(ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+        {
+            server.bind(UnixDomainSocketAddress.of(path));
+            System.err.println("listening on " + path);
+            while(true)
+            {
+                SocketChannel connection = server.accept();
+                if(stopped)
+                {
+                    connection.close();     // the wake-up, or a client after the shutdown
+                    break;
+                }
+                connections.add(connection);
+                Thread thread = new Thread(() ->
+                {
+                    try(connection)
+                    {
+                        Serve(In(connection), Out(connection));
+                    }
+                    catch(IOException e)
+                    {
+                        // the client went away, or the daemon closed the connection after a shutdown
+                    }
+                    connections.remove(connection);
+                    if(stopped)
+                        Wake(path);
+                }, "daemon-connection");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            Shutdown();                     // done already, unless a client came after the shutdown
+            for(SocketChannel connection : connections)
+                connection.close();         // every request read from it is answered
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    static InputStream In(SocketChannel channel)
+    {
+        // the requests of a connection; not Channels.newInputStream, which holds the channel's
+        // blocking lock while it waits for input, so no response could be written meanwhile
+        return new InputStream()
+        {
+            public int read() throws IOException
+            {
+                byte[] b = new byte[1];
+                return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xFF);
+            }
+            public int read(byte[] b, int offset, int length) throws IOException
+            {
+                return (length == 0) ? 0 : channel.read(ByteBuffer.wrap(b, offset, length));
+            }
+        };
+    }
+
+    static OutputStream Out(SocketChannel channel)
+    {
+        // the responses of a connection, written while it waits for requests (see In)
+        return new OutputStream()
+        {
+            public void write(int b) throws IOException
+            {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+            public void write(byte[] b, int offset, int length) throws IOException
+            {
+                ByteBuffer buffer = ByteBuffer.wrap(b, offset, length);
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+        };
+    }
+
+    static void Wake(Path path)
+    {
+        // returns the accept of the server at path, so that it sees stopped
+        try
+        {
+            SocketChannel.open(UnixDomainSocketAddress.of(path)).close();
+        }
+        catch(IOException e)
+        {
+            // woken already (by another connection), and closed
+        }
+    }
+
+    public void Serve(InputStream in, OutputStream out) throws IOException
+    {
+        // reads requests until the end of the input or "shutdown", and returns once every response
+        // is written
+        BufferedReader          reader  = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer                  writer  = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        List<Future<?>>         pending = new ArrayList<Future<?>>();
+        String                  line;
+        while((line = reader.readLine()) != null)
+        {
+            if(line.isBlank())
+                continue;
+            Object request;
+            try
+            {
+                request = Json.Parse(line);
+            }
+            catch(IllegalArgumentException e)
+            {
+                Respond(writer, Json.Of("id", null, "ok", false, "error", e.getMessage()));
+                continue;
+            }
+            String op = Json.String(request, "op");
+            if("shutdown".equals(op))
+            {
+                Shutdown();
+                break;
+            }
+            if("stats".equals(op))
+            {
+                Respond(writer, Json.Of("id", Json.Get(request, "id"), "ok", true, "stats", Stats()));
+                continue;
+            }
+            if("metrics".equals(op))
+            {
+                Respond(writer, Json.Of("id", Json.Get(request, "id"), "ok", true, "metrics", Metrics.Snapshot()));
+                continue;
+            }
+            pending.removeIf(Future::isDone);
+            Queued check = new Queued(request, writer);
+            try
+            {
+                pool.execute(check);
+                pending.add(check);
+            }
+            catch(RejectedExecutionException e)
+            {
+                check.Refuse("the daemon is shutting down");
+            }
+        }
+        for(Future<?> future : pending)
+        {
+            try
+            {
+                future.get();
+            }
+            catch(InterruptedException | ExecutionException | CancellationException e)
+            {
+                // the response of a failed check was written by Handle, of a refused one by Refuse
+            }
+        }
+    }
+
+    public void Shutdown()
+    {
+        // takes no more checks, and waits up to SHUTDOWN_SECONDS for the queued ones; those that
+        // have not started by then are answered with an error (the connections are closed after,
+        // see Listen)
+        stopped = true;
+        pool.shutdown();
+        boolean interrupted = false;
+        try
+        {
+            if(pool.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS))
+                return;
+        }
+        catch(InterruptedException e)
+        {
+            interrupted = true;
+        }
+        for(Runnable left : pool.shutdownNow())
+            ((Queued) left).Refuse("the daemon shut down before the check");
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    final class Queued extends FutureTask<Void>
+    {
+        // a request queued on the pool, which is answered by its check, or by Refuse if it never runs
+        final Object request;
+        final Writer writer;
+
+        Queued(Object request, Writer writer)
+        {
+            super(() -> Respond(writer, Handle(request)), null);
+            this.request = request;
+            this.writer  = writer;
+        }
+
+        void Refuse(String reason)
+        {
+            if(cancel(false))
+                Respond(writer, Json.Of("id", Json.Get(request, "id"), "ok", false, "error", reason));
+        }
+    }
+
+    public Map<String, Object> Handle(Object request)
+    {
+        Object id = Json.Get(request, "id");
+        try
+        {
+            String path   = Json.String(request, "path");
+            String source = Json.String(request, "source");
+            if(path == null && source == null)
+                return Json.Of("id", id, "ok", false, "error", "a request needs \"path\" or \"source\"");
+            // the parser and lexer of this worker thread, reset onto the request (see ParserPool)
+            // (by the recognizer if only the first error is asked for, and not the output)
+            boolean  output    = Boolean.TRUE.equals(Json.Get(request, "output"));
+            int      maxerrors = Json.Int(request, "max_errors", 1);
+            int      engine    = (!output && maxerrors == 1) ? Parser.ENGINE_RECOGNIZER : Parser.ENGINE_RECURSIVE;
+            long     time0     = System.nanoTime();
+            Compiler compiler  = (path != null) ? ParserPool.Get().Compiler(Paths.get(path), engine)
+                                                : ParserPool.Get().Compiler(source, engine);
+            String   text      = Check(compiler, maxerrors, output);
+            long     time      = System.nanoTime() - time0;
+            served.incrementAndGet();
+            nanos.addAndGet(time);
+
+            List<Object> errors = new ArrayList<Object>();
+            for(Diagnostic error : compiler.parser._errors)
+                errors.add(Json.Of("line", error.line, "column", error.column, "message", error.Message()));
+            Map<String, Object> response = Json.Of("id", id, "ok", errors.isEmpty(), "errors", errors, "micros", time / 1000);
+            if(output)
+                response.put("output", text);
+            return response;
+        }
+        catch(Exception e)
+        {
+            return Json.Of("id", id, "ok", false, "error", String.valueOf(e));
+        }
+    }
+
+    static String Check(Compiler compiler, int maxerrors, boolean output) throws Exception
+    {
+        // the text Program prints, or only the parse if it is not asked for
+        compiler.MaxErrors(maxerrors);
+        if(!output)
+        {
+            compiler.Parse();
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream           out   = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        compiler.Compile(out);
+        out.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    void Respond(Writer writer, Map<String, Object> response)
+    {
+        String line = Json.Write(response);
+        synchronized(writer)
+        {
+            try
+            {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            }
+            catch(IOException e)
+            {
+                // the client went away; the read loop ends at the end of its input
+            }
+        }
+    }
+
+    public String Stats()
+    {
+        long   n       = served.get();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return String.format("served %d request(s) in %.1f s: %.1f requests/s, %.1f us per check", n, seconds, n / seconds, n == 0 ? 0.0 : nanos.get() / 1e3 / n);
+    }
+}
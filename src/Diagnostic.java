@@ -0,0 +1,130 @@
+public final class Diagnostic
+{
+    // A syntax error as data: where it is, the token found there and the tokens that would have
+    // been accepted. The parser only records these fields; the message text is built by Message()
+    // when it is printed, in the wording the parser has always used:
+    //   EXPECTED_TOKEN : "<expected>" is expected instead of "<found>" at <line>:<column>.
+    //   NO_PRODUCTION  : No matching production in <nonterminal> at <line>:<column>.
+    //   OTHER          : the text given (an error that is not from the grammar)
+    // The text of the found token is copied out of the source only then, so a Diagnostic keeps a
+    // reference to the source of its token (see TokenBuffer).
+
+    public static final int EXPECTED_TOKEN = 0;
+    public static final int NO_PRODUCTION  = 1;
+    public static final int OTHER          = 2;
+
+    public final int    kind;
+    public final int    line;
+    public final int    column;
+    public final int    offset;         // of the found token in the source (chars or bytes, as TokenBuffer.start)
+    public final int    length;
+    public final int    found;          // the type of the found token
+    public final long   expected;       // bit t is set if token type t would have been accepted
+    public final int    nonterminal;    // LL1Table id, for NO_PRODUCTION
+    final char[]              source;
+    final java.nio.ByteBuffer bytes;
+    final String              text;     // for OTHER
+
+    Diagnostic(int kind, TokenBuffer tokens, int i, long expected, int nonterminal, String text)
+    {
+        this.kind        = kind;
+        this.line        = (tokens != null) ? tokens.line  [i] : 0;
+        this.column      = (tokens != null) ? tokens.column[i] : 0;
+        this.offset      = (tokens != null) ? tokens.start [i] : 0;
+        this.length      = (tokens != null) ? tokens.length[i] : 0;
+        this.found       = (tokens != null) ? tokens.type  [i] : Parser.ENDMARKER;
+        this.expected    = expected;
+        this.nonterminal = nonterminal;
+        this.source      = (tokens != null) ? tokens.source : null;
+        this.bytes       = (tokens != null) ? tokens.bytes  : null;
+        this.text        = text;
+    }
+
+    public static Diagnostic ExpectedToken(TokenBuffer tokens, int i, int token_type)
+    {
+        return new Diagnostic(EXPECTED_TOKEN, tokens, i, 1L << token_type, -1, null);
+    }
+
+    public static Diagnostic NoProduction(TokenBuffer tokens, int i, int nonterminal)
+    {
+        return new Diagnostic(NO_PRODUCTION, tokens, i, LL1Table.Expected(nonterminal), nonterminal, null);
+    }
+
+    public static Diagnostic Other(String text)
+    {
+        return new Diagnostic(OTHER, null, 0, 0, -1, text);
+    }
+
+    public String Message()
+    {
+        // appended, not concatenated with +: the first invokedynamic string concatenation of a JVM
+        // spins its method handles, which costs a one-file run about 30 ms before the first error
+        StringBuilder sb = new StringBuilder(80);
+        switch(kind)
+        {
+            case EXPECTED_TOKEN:
+                sb.append('"').append(TokenName(Long.numberOfTrailingZeros(expected))).append("\" is expected instead of \"").append(FoundText()).append('"');
+                break;
+            case NO_PRODUCTION:
+                sb.append("No matching production in ").append(LL1Table.Name(nonterminal));
+                break;
+            default:
+                return text;
+        }
+        return sb.append(" at ").append(line).append(':').append(column).append('.').toString();
+    }
+
+    public String FoundText()
+    {
+        // tokens with a lexeme are spelled as in the source, keywords and punctuation as TokenName()
+        switch(found)
+        {
+            case Parser.IDENT   :
+            case Parser.NUM_LIT :
+            case Parser.BOOL_LIT:
+            case Parser.LEXERROR:
+            case Parser.EXPROP  :
+            case Parser.TERMOP  :
+            case Parser.RELOP   : return TokenBuffer.Substring(source, bytes, offset, length);
+        }
+        return TokenName(found);
+    }
+
+    public String toString()
+    {
+        return Message();
+    }
+
+    public static String TokenName(int token_type)
+    {
+        return switch (token_type) {
+            case Parser.NUM -> "num";
+            case Parser.BOOL -> "bool";
+            case Parser.BEGIN -> "{";
+            case Parser.END -> "}";
+            case Parser.LPAREN -> "(";
+            case Parser.RPAREN -> ")";
+            case Parser.LBRACKET -> "[";
+            case Parser.RBRACKET -> "]";
+            case Parser.SEMI -> ";";
+            case Parser.COMMA -> ",";
+            case Parser.DOT -> ".";
+            case Parser.ASSIGN -> "<-";
+            case Parser.RELOP -> "relational operator";
+            case Parser.EXPROP -> "expression operator";
+            case Parser.TERMOP -> "term operator";
+            case Parser.IF -> "if";
+            case Parser.ELSE -> "else";
+            case Parser.WHILE -> "while";
+            case Parser.RETURN -> "return";
+            case Parser.PRINT -> "print";
+            case Parser.NEW -> "new";
+            case Parser.SIZE -> "size";
+            case Parser.NUM_LIT -> "number literal";
+            case Parser.BOOL_LIT -> "boolean literal";
+            case Parser.IDENT -> "identifier";
+            case Parser.ENDMARKER -> "end of file";
+            default -> "unknown token";
+        };
+    }
+}
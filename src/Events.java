@@ -0,0 +1,158 @@
+import java.util.List;
+import jdk.jfr.*;
+
+public class Events
+{
+    // Java Flight Recorder events of a check, to see where the time of a file goes (and on which
+    // file) in a recording of the checker, a build that runs it or the daemon:
+    //   java -XX:StartFlightRecording=filename=minic.jfr Program <file>
+    //   jfr print --events "minic.*" minic.jfr
+    //   minic.Lex          a block of tokens lexed (TokenBuffer.CAPACITY, or less at the end)
+    //   minic.Parse        the parse of a file: bytes, tokens, functions, nodes, errors
+    //   minic.Function     the parse of one fun_decl: name, line, tokens, nodes
+    //   minic.Print        the indented code of a file printed
+    //   minic.SyntaxError  an error recorded, and the recovery that skipped past it
+    // The Lex events of a parse are inside its Function events, which are inside its Parse event.
+    // An event is created, begun and committed where it happens, and only once Flight Recorder has
+    // started (at launch, or later by jcmd JFR.start): the first load of an event class initializes
+    // the recorder, which takes several times as long as the check of a small file. While no
+    // recording has an event enabled, shouldCommit() skips the work of its fields (counting the
+    // nodes of a tree, formatting a message), so the checker runs as without.
+
+    @Name("minic.Lex") @Label("Lex") @Category("MiniC")
+    @Description("A block of tokens lexed")
+    public static class Lex extends Event
+    {
+        @Label("File")         public String file;
+        @Label("Tokens")       public int    tokens;
+        @Label("Bytes") @DataAmount public int bytes;     // from the first token of the block to the end of the last
+    }
+
+    @Name("minic.Parse") @Label("Parse") @Category("MiniC")
+    @Description("The parse of a file")
+    public static class Parse extends Event
+    {
+        @Label("File")         public String  file;
+        @Label("Bytes") @DataAmount public long bytes;
+        @Label("Tokens")       public long    tokens;
+        @Label("Functions")    public int     functions;
+        @Label("Nodes")        public long    nodes;
+        @Label("Errors")       public int     errors;
+        @Label("Passed")       public boolean passed;
+        @Label("Parallel")     public boolean parallel;   // parsed in chunks (see ParallelParser)
+    }
+
+    @Name("minic.Function") @Label("Function") @Category("MiniC")
+    @Description("The parse of one function")
+    public static class Function extends Event
+    {
+        @Label("File")         public String file;
+        @Label("Name")         public String name;
+        @Label("Line")         public int    line;
+        @Label("Tokens")       public long   tokens;
+        @Label("Nodes")        public long   nodes;
+    }
+
+    @Name("minic.Print") @Label("Print") @Category("MiniC")
+    @Description("The indented code of a file printed")
+    public static class Print extends Event
+    {
+        @Label("File")         public String file;
+        @Label("Functions")    public int    functions;
+        @Label("Nodes")        public long   nodes;
+    }
+
+    @Name("minic.SyntaxError") @Label("Syntax Error") @Category("MiniC")
+    @Description("A syntax error recorded, and the recovery from it")
+    public static class SyntaxError extends Event
+    {
+        @Label("File")         public String  file;
+        @Label("Line")         public int     line;
+        @Label("Column")       public int     column;
+        @Label("Message")      public String  message;
+        @Label("Recovered")    public boolean recovered;  // the parse went on after it (see Parser.Recover)
+        @Label("Skipped Tokens") public long  skipped;
+    }
+
+    public static boolean Recording()
+    {
+        return FlightRecorder.isInitialized();
+    }
+
+    public static long Nodes(ParseTree.Program program)
+    {
+        // the nodes of a tree (its functions, parameters, declarations, statements, expressions,
+        // terms, factors and arguments), for the events that report them
+        long nodes = 0;
+        if(program != null)
+            for(ParseTree.FuncDecl func : program.funcs)
+                nodes += Nodes(func);
+        return nodes;
+    }
+
+    public static long Nodes(ParseTree.FuncDecl func)
+    {
+        return 1 + func.params.size() + Nodes(func.localdecls, func.stmtlist);
+    }
+
+    static long Nodes(List<ParseTree.LocalDecl> localdecls, List<ParseTree.Stmt> stmtlist)
+    {
+        long nodes = localdecls.size();
+        for(ParseTree.Stmt stmt : stmtlist)
+            nodes += Nodes(stmt);
+        return nodes;
+    }
+
+    static long Nodes(ParseTree.Stmt stmt)
+    {
+        if(stmt instanceof ParseTree.StmtAssign)
+            return 1 + Nodes(((ParseTree.StmtAssign) stmt).expr);
+        if(stmt instanceof ParseTree.StmtPrint)
+            return 1 + Nodes(((ParseTree.StmtPrint) stmt).expr);
+        if(stmt instanceof ParseTree.StmtReturn)
+            return 1 + Nodes(((ParseTree.StmtReturn) stmt).expr);
+        if(stmt instanceof ParseTree.StmtIf)
+        {
+            ParseTree.StmtIf stmtif = (ParseTree.StmtIf) stmt;
+            return 1 + Nodes(stmtif.cond) + Nodes(stmtif.thenstmt) + Nodes(stmtif.elsestmt);
+        }
+        if(stmt instanceof ParseTree.StmtWhile)
+        {
+            ParseTree.StmtWhile stmtwhile = (ParseTree.StmtWhile) stmt;
+            return 1 + Nodes(stmtwhile.cond) + Nodes(stmtwhile.stmt);
+        }
+        if(stmt instanceof ParseTree.StmtCompound)
+        {
+            ParseTree.StmtCompound compound = (ParseTree.StmtCompound) stmt;
+            return 1 + Nodes(compound.localdecls, compound.stmtlist);
+        }
+        return 1;
+    }
+
+    static long Nodes(ParseTree.Expr expr)
+    {
+        long nodes = 1;
+        for(ParseTree.Term term : expr.terms)
+        {
+            nodes++;
+            for(ParseTree.Factor factor : term.factors)
+            {
+                nodes++;
+                if(factor instanceof ParseTree.FactorParen)
+                    nodes += Nodes(((ParseTree.FactorParen) factor).expr);
+                else if(factor instanceof ParseTree.FactorNew)
+                    nodes += Nodes(((ParseTree.FactorNew) factor).expr);
+                else if(factor instanceof ParseTree.FactorIdentExt)
+                {
+                    ParseTree.FactorIdentExt ident = (ParseTree.FactorIdentExt) factor;
+                    if(ident.factor_ instanceof ParseTree.FactorIdent_ParenArgs)
+                        for(ParseTree.Arg arg : ((ParseTree.FactorIdent_ParenArgs) ident.factor_).args)
+                            nodes += 1 + Nodes(arg.expr);
+                    else if(ident.factor_ instanceof ParseTree.FactorIdent_BrackExpr)
+                        nodes += Nodes(((ParseTree.FactorIdent_BrackExpr) ident.factor_).expr);
+                }
+            }
+        }
+        return nodes;
+    }
+}
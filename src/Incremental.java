@@ -0,0 +1,321 @@
+import java.util.*;
+
+public class Incremental
+{
+    // Keeps the parse tree of a source text up to date as the text is edited, for an editor that
+    // reparses on every keystroke. The text is held in a gap buffer, and every FuncDecl of the tree
+    // knows its span in the text. An edit (offset, removed length, inserted text) re-lexes and
+    // re-parses only the region it touches:
+    //   - the functions whose spans it overlaps or touches, and the text between them, or
+    //   - if it is between two functions, the text between them
+    // extended to the end of the function before and the start of the function after it, so that
+    // the region starts and ends outside of any token or comment. The functions parsed from the
+    // region replace the old ones in Program.funcs; the others are reused as they are (their spans
+    // are moved by the change in length), and the new identifiers are interned into the same
+    // SymbolTable.
+    //
+    // The result is always the tree a full parse would build. Whenever the region could parse
+    // differently on its own, the whole text is parsed instead:
+    //   - there is no tree (the text has not parsed since it was opened or since the last full parse)
+    //   - the old or the new region contains "%*" or "*%": a block comment is greedy, it extends to
+    //     the last "*%" of the whole text
+    //   - the new region ends in a line comment, or in an identifier char that would join the
+    //     first token after it
+    // If the region does not parse, neither does the whole text. Its functions are taken out of the
+    // tree, which is kept with a hole between the functions around the region; Program() is null
+    // while there is a hole, and the next edit re-parses the hole with its own region, so the edit
+    // that fixes the error is incremental too. Only the errors need a full parse (for their
+    // positions and the functions after them), which Errors() does when asked: until then they are
+    // not known (errors is null), and none from before the edit is kept.
+    // Change() leaves a full parse to the next Program() or Errors(), so a burst of edits costs one
+    // full parse at most, not one per edit.
+
+    char[]                  text;       // the gap buffer: text[0..gapstart) + text[gapend..)
+    int                     gapstart;
+    int                     gapend;
+    int[]                   lines = new int[64];    // the offsets of the line starts: 0, and each char after a \n
+    int                     linecount;              // kept by Replace(), for Offset() and Position()
+    ParseTree.Program       program;    // the tree, with a hole if hole >= 0; null if there is none
+    int                     hole = -1;  // the text between funcs[hole-1] and funcs[hole] does not parse
+    List<Diagnostic>        errors = List.of(); // of the text; null while there is a hole no full parse has checked
+    boolean                 stale;      // the text was changed without a tree: parse it all when asked
+    public int              reparsed;   // functions parsed by the last edit (0 if it left a hole), or -1 for a full parse
+    public int              maxerrors = 1;  // errors a full parse reports (see Parser._maxerrors)
+
+    public Incremental(String source) throws Exception
+    {
+        text     = new char[source.length() + 1024];
+        source.getChars(0, source.length(), text, 0);
+        gapstart = source.length();
+        gapend   = text.length;
+        lines[linecount++] = 0;
+        Index(0, 0, source);
+        ParseAll();
+    }
+
+    public ParseTree.Program Program() throws Exception
+    {
+        // the tree of the text, or null while it has a syntax error
+        if(stale)
+            ParseAll();
+        return (hole < 0) ? program : null;
+    }
+
+    public List<Diagnostic> Errors() throws Exception
+    {
+        if(stale)
+            ParseAll();
+        if(errors == null)
+            errors = Parse(Region(0, Length()), null, maxerrors)._errors;
+        return errors;
+    }
+
+    public int Length()
+    {
+        return text.length - (gapend - gapstart);
+    }
+
+    public String Text()
+    {
+        return new String(Region(0, Length()));
+    }
+
+    public ParseTree.Program Edit(int offset, int removed, String inserted) throws Exception
+    {
+        Change(offset, removed, inserted);
+        return Program();
+    }
+
+    public void Change(int offset, int removed, String inserted) throws Exception
+    {
+        int length = Length();
+        if(offset < 0 || removed < 0 || offset + removed > length)
+            throw new IndexOutOfBoundsException("edit " + offset + "+" + removed + " of a text of " + length + " chars");
+        if(program == null || stale)
+        {
+            Replace(offset, removed, inserted);
+            Stale();
+            return;
+        }
+
+        // the functions [first, last) overlap or touch the edit (and the hole, if any, is between
+        // two of them); lo..hi spans them, and the text from the function before them and up to
+        // the function after them
+        List<ParseTree.FuncDecl> funcs = program.funcs;
+        int first = FirstEndingFrom(funcs, offset);
+        int last  = first;
+        while(last < funcs.size() && funcs.get(last).start <= offset + removed)
+            last++;
+        if(hole >= 0)
+        {
+            first = Math.min(first, hole);
+            last  = Math.max(last , hole);
+        }
+        int lo    = (first > 0)            ? funcs.get(first-1).end : 0;
+        int hi    = (last < funcs.size())  ? funcs.get(last).start  : length;
+        int delta = inserted.length() - removed;
+
+        boolean safe = !HasBlockComment(Region(lo, hi));
+        Replace(offset, removed, inserted);
+        char[] region = Region(lo, hi + delta);
+        if(!safe || !Isolated(region, hi + delta < Length()))
+        {
+            Stale();
+            return;
+        }
+
+        Parser parser = Parse(region, program.symbols, 1);
+        List<ParseTree.FuncDecl> parsed = (parser._parsetree != null) ? parser._parsetree.funcs : List.of();
+        for(ParseTree.FuncDecl func : parsed)
+        {
+            func.start += lo;
+            func.end   += lo;
+        }
+        funcs.subList(first, last).clear();
+        funcs.addAll(first, parsed);
+        for(int i=first+parsed.size(); i<funcs.size(); i++)
+        {
+            funcs.get(i).start += delta;
+            funcs.get(i).end   += delta;
+        }
+        reparsed = parsed.size();
+        if(parser._parsetree != null)
+        {
+            hole   = -1;
+            errors = List.of();
+        }
+        else
+        {
+            hole   = first;                     // the region is left out of the tree
+            errors = null;                      // found by a full parse, if asked for
+        }
+    }
+
+    public int Offset(int line, int character)
+    {
+        // the offset of a 0-based line and char in it, as the parser counts them (lines end at \n);
+        // positions past the end of a line or of the text are moved back to it
+        if(line >= linecount)
+            return Length();
+        line = Math.max(0, line);
+        int end = (line + 1 < linecount) ? lines[line + 1] - 1 : Length();    // at its \n
+        return lines[line] + Math.min(Math.max(0, character), end - lines[line]);
+    }
+
+    public int[] Position(int offset)
+    {
+        // the 0-based line and char of an offset, the inverse of Offset()
+        int line = LineOf(offset);
+        return new int[] { line, offset - lines[line] };
+    }
+
+    int LineOf(int offset)
+    {
+        // the last line that starts at or before offset
+        int lo = 0, hi = linecount - 1;
+        while(lo < hi)
+        {
+            int mid = (lo + hi + 1) >>> 1;
+            if(lines[mid] <= offset) lo = mid;
+            else                     hi = mid - 1;
+        }
+        return lo;
+    }
+
+    void Index(int offset, int removed, String inserted)
+    {
+        // the line starts of an edit: those in the removed chars are dropped, those of inserted
+        // added, and those after moved by the change in length
+        int first = LineOf(offset) + 1;                 // lines[first, last) start in the removed chars
+        int last  = LineOf(offset + removed) + 1;
+        int added = 0;
+        for(int i = inserted.indexOf('\n'); i >= 0; i = inserted.indexOf('\n', i + 1))
+            added++;
+        int count = first + added + linecount - last;
+        if(count > lines.length)
+            lines = Arrays.copyOf(lines, Math.max(lines.length * 2, count));
+        System.arraycopy(lines, last, lines, first + added, linecount - last);
+        for(int l = first + added; l < count; l++)
+            lines[l] += inserted.length() - removed;
+        for(int i = inserted.indexOf('\n'), l = first; i >= 0; i = inserted.indexOf('\n', i + 1))
+            lines[l++] = offset + i + 1;
+        linecount = count;
+    }
+
+    char CharAt(int offset)
+    {
+        return (offset < gapstart) ? text[offset] : text[offset + gapend - gapstart];
+    }
+
+    void Stale()
+    {
+        stale     = true;
+        program   = null;
+        hole      = -1;
+        errors    = List.of();
+        reparsed  = -1;
+    }
+
+    void ParseAll() throws Exception
+    {
+        Parser parser = Parse(Region(0, Length()), null, maxerrors);
+        program   = parser._parsetree;
+        errors    = parser._errors;
+        hole      = -1;
+        stale     = false;
+        reparsed  = -1;
+        if(program != null)
+            program.funcs = new ArrayList<ParseTree.FuncDecl>(program.funcs); // spliced by Change()
+    }
+
+    static Parser Parse(char[] source, SymbolTable symbols, int maxerrors) throws Exception
+    {
+        // a parse of source, interning into symbols (a new table if null); nothing is printed: the
+        // unexpected chars are among the errors, and the stdio of a LanguageServer is its client's
+        Lexer lexer = new Lexer(source, source.length);
+        lexer.quiet = true;
+        if(symbols != null)
+            lexer.symbols = symbols;
+        Parser parser = new Parser(lexer, null);
+        parser._maxerrors = Math.max(1, maxerrors);
+        parser.yyparse();
+        return parser;
+    }
+
+    static int FirstEndingFrom(List<ParseTree.FuncDecl> funcs, int offset)
+    {
+        // the first function that ends at or after offset (the spans are in order)
+        int lo = 0, hi = funcs.size();
+        while(lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if(funcs.get(mid).end < offset) lo = mid + 1;
+            else                            hi = mid;
+        }
+        return lo;
+    }
+
+    static boolean HasBlockComment(char[] region)
+    {
+        for(int i=0; i+1<region.length; i++)
+            if((region[i] == '%' && region[i+1] == '*') || (region[i] == '*' && region[i+1] == '%'))
+                return true;
+        return false;
+    }
+
+    static boolean Isolated(char[] region, boolean followed)
+    {
+        // the region has no block comment, and if text follows it, it does not end in a line
+        // comment or in an identifier char
+        if(HasBlockComment(region))
+            return false;
+        if(!followed || region.length == 0)
+            return true;
+        char c = region[region.length - 1];
+        if(Character.isLetterOrDigit(c) || c == '_')
+            return false;
+        for(int i=region.length-1; i>=0; i--)
+        {
+            char d = region[i];
+            if(d == '\n' || d == '\r' || d == 0x0B || d == 0x0C || d == 0x85 || d == 0x2028 || d == 0x2029)
+                return true;            // the last line has no "%%"
+            if(d == '%' && i > 0 && region[i-1] == '%')
+                return false;
+        }
+        return true;
+    }
+
+    char[] Region(int from, int to)
+    {
+        // a copy of the text [from, to), across the gap
+        char[] region = new char[to - from];
+        int    before = Math.max(0, Math.min(to, gapstart) - from);
+        System.arraycopy(text, from, region, 0, before);
+        System.arraycopy(text, gapend + from + before - gapstart, region, before, region.length - before);
+        return region;
+    }
+
+    void Replace(int offset, int removed, String inserted)
+    {
+        // moves the gap to offset, deletes removed chars after it and fills it with inserted
+        Index(offset, removed, inserted);
+        if(offset < gapstart)
+            System.arraycopy(text, offset, text, gapend - (gapstart - offset), gapstart - offset);
+        else
+            System.arraycopy(text, gapend, text, gapstart, offset - gapstart);
+        gapend  -= gapstart - offset;
+        gapstart = offset;
+        gapend  += removed;
+        if(gapend - gapstart < inserted.length())
+        {
+            int    after    = text.length - gapend;
+            char[] grown    = new char[Math.max(text.length * 2, gapstart + inserted.length() + after + 1024)];
+            System.arraycopy(text, 0, grown, 0, gapstart);
+            System.arraycopy(text, gapend, grown, grown.length - after, after);
+            gapend = grown.length - after;
+            text   = grown;
+        }
+        inserted.getChars(0, inserted.length(), text, gapstart);
+        gapstart += inserted.length();
+    }
+}
@@ -0,0 +1,286 @@
+import java.util.*;
+
+public class Json
+{
+    // A minimal JSON reader and writer for the language server (no dependencies). Values are
+    // mapped to Java as:
+    //   object -> LinkedHashMap<String, Object>    array -> ArrayList<Object>
+    //   string -> String    number -> Long (integral) or Double    true/false -> Boolean    null -> null
+
+    final String text;
+    int          pos;
+
+    Json(String text)
+    {
+        this.text = text;
+    }
+
+    public static Object Parse(String text)
+    {
+        Json   json  = new Json(text);
+        Object value = json.Value();
+        json.Blanks();
+        if(json.pos != text.length())
+            throw json.Error("end of input");
+        return value;
+    }
+
+    public static String Write(Object value)
+    {
+        StringBuilder sb = new StringBuilder();
+        Write(sb, value);
+        return sb.toString();
+    }
+
+    public static void Write(StringBuilder sb, Object value)
+    {
+        if(value == null)
+            sb.append("null");
+        else if(value instanceof String)
+            WriteString(sb, (String) value);
+        else if(value instanceof Boolean || value instanceof Integer || value instanceof Long)
+            sb.append(value);
+        else if(value instanceof Number)
+        {
+            double d = ((Number) value).doubleValue();
+            if(d == Math.rint(d) && Math.abs(d) < 1e15) sb.append((long) d);
+            else                                        sb.append(d);
+        }
+        else if(value instanceof Map)
+        {
+            sb.append('{');
+            boolean first = true;
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                if(!first) sb.append(',');
+                first = false;
+                WriteString(sb, entry.getKey().toString());
+                sb.append(':');
+                Write(sb, entry.getValue());
+            }
+            sb.append('}');
+        }
+        else if(value instanceof List)
+        {
+            sb.append('[');
+            List<?> list = (List<?>) value;
+            for(int i=0; i<list.size(); i++)
+            {
+                if(i != 0) sb.append(',');
+                Write(sb, list.get(i));
+            }
+            sb.append(']');
+        }
+        else
+            WriteString(sb, value.toString());
+    }
+
+    static void WriteString(StringBuilder sb, String s)
+    {
+        sb.append('"');
+        for(int i=0; i<s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch(c)
+            {
+                case '"' : sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n" ); break;
+                case '\r': sb.append("\\r" ); break;
+                case '\t': sb.append("\\t" ); break;
+                default:
+                    if(c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else         sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    // accessors for the parsed objects, which return null for a missing member or a null object
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> Object(Object object, String member)
+    {
+        return (Map<String, Object>) Get(object, member);
+    }
+    @SuppressWarnings("unchecked")
+    public static List<Object> Array(Object object, String member)
+    {
+        return (List<Object>) Get(object, member);
+    }
+    public static String String(Object object, String member)
+    {
+        return (String) Get(object, member);
+    }
+    public static int Int(Object object, String member, int otherwise)
+    {
+        Object value = Get(object, member);
+        return (value instanceof Number) ? ((Number) value).intValue() : otherwise;
+    }
+    public static Object Get(Object object, String member)
+    {
+        return (object instanceof Map) ? ((Map<?, ?>) object).get(member) : null;
+    }
+
+    // builds an object from alternating member names and values
+    public static Map<String, Object> Of(Object... members)
+    {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        for(int i=0; i+1<members.length; i+=2)
+            object.put((String) members[i], members[i+1]);
+        return object;
+    }
+
+    Object Value()
+    {
+        Blanks();
+        if(pos >= text.length())
+            throw Error("a value");
+        char c = text.charAt(pos);
+        switch(c)
+        {
+            case '{': return ObjectValue();
+            case '[': return ArrayValue();
+            case '"': return StringValue();
+            case 't': Word("true" ); return Boolean.TRUE;
+            case 'f': Word("false"); return Boolean.FALSE;
+            case 'n': Word("null" ); return null;
+        }
+        if(c == '-' || (c >= '0' && c <= '9'))
+            return NumberValue();
+        throw Error("a value");
+    }
+
+    Map<String, Object> ObjectValue()
+    {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        pos++;
+        Blanks();
+        if(Next('}'))
+            return object;
+        do
+        {
+            Blanks();
+            if(pos >= text.length() || text.charAt(pos) != '"')
+                throw Error("a member name");
+            String name = StringValue();
+            Blanks();
+            if(!Next(':'))
+                throw Error("':'");
+            object.put(name, Value());
+            Blanks();
+        }
+        while(Next(','));
+        if(!Next('}'))
+            throw Error("',' or '}'");
+        return object;
+    }
+
+    List<Object> ArrayValue()
+    {
+        List<Object> array = new ArrayList<Object>();
+        pos++;
+        Blanks();
+        if(Next(']'))
+            return array;
+        do
+        {
+            array.add(Value());
+            Blanks();
+        }
+        while(Next(','));
+        if(!Next(']'))
+            throw Error("',' or ']'");
+        return array;
+    }
+
+    String StringValue()
+    {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while(true)
+        {
+            if(pos >= text.length())
+                throw Error("'\"'");
+            char c = text.charAt(pos++);
+            if(c == '"')
+                return sb.toString();
+            if(c != '\\')
+            {
+                sb.append(c);
+                continue;
+            }
+            if(pos >= text.length())
+                throw Error("an escape");
+            char e = text.charAt(pos++);
+            switch(e)
+            {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if(pos + 4 > text.length())
+                        throw Error("4 hex digits");
+                    sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default : sb.append(e); break;  // '"', '\\', '/'
+            }
+        }
+    }
+
+    Object NumberValue()
+    {
+        int     start    = pos;
+        boolean integral = true;
+        if(text.charAt(pos) == '-')
+            pos++;
+        while(pos < text.length())
+        {
+            char c = text.charAt(pos);
+            if(c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && pos > start))
+                integral = false;
+            else if(c < '0' || c > '9')
+                break;
+            pos++;
+        }
+        String number = text.substring(start, pos);
+        try
+        {
+            return integral ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        }
+        catch(NumberFormatException e)
+        {
+            return Double.parseDouble(number);
+        }
+    }
+
+    void Word(String word)
+    {
+        if(!text.startsWith(word, pos))
+            throw Error("'" + word + "'");
+        pos += word.length();
+    }
+
+    boolean Next(char c)
+    {
+        if(pos < text.length() && text.charAt(pos) == c)
+        {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    void Blanks()
+    {
+        while(pos < text.length() && (text.charAt(pos) == ' ' || text.charAt(pos) == '\t' || text.charAt(pos) == '\n' || text.charAt(pos) == '\r'))
+            pos++;
+    }
+
+    IllegalArgumentException Error(String expected)
+    {
+        return new IllegalArgumentException("JSON: " + expected + " is expected at offset " + pos);
+    }
+}
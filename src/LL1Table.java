@@ -0,0 +1,482 @@
+import java.util.*;
+
+public class LL1Table
+{
+    // The non-left-recursive grammar of Grammar.txt as data, and the LL(1) parse table derived from it.
+    // The table is computed (FIRST/FOLLOW, then one production per nonterminal and lookahead) once,
+    // when this class is first used, and is kept as a flat int array: Predict(A, t) is one array load.
+    //
+    // Symbols are ints:  terminals   0 ..  63 : the token types of Parser (ENDMARKER, NUM, ..., IDENT)
+    //                    nonterminals 64 .. 127
+    //                    actions     128 ..    : ACTION + production, pushed below the right-hand side of
+    //                                            an expanded production; popping it reduces the production
+
+    public static final int NONTERMINAL = 64;
+    public static final int ACTION     = 128;
+    public static final int TERMINALS  = Parser.IDENT + 1;
+
+    public static final int PROGRAM        = NONTERMINAL +  0;
+    public static final int DECL_LIST      = NONTERMINAL +  1;
+    public static final int DECL_LIST_     = NONTERMINAL +  2;
+    public static final int FUN_DECL       = NONTERMINAL +  3;
+    public static final int PARAMS         = NONTERMINAL +  4;
+    public static final int PARAM_LIST     = NONTERMINAL +  5;
+    public static final int PARAM_LIST_    = NONTERMINAL +  6;
+    public static final int PARAM          = NONTERMINAL +  7;
+    public static final int TYPE_SPEC      = NONTERMINAL +  8;
+    public static final int TYPE_SPEC_     = NONTERMINAL +  9;
+    public static final int PRIM_TYPE      = NONTERMINAL + 10;
+    public static final int LOCAL_DECLS    = NONTERMINAL + 11;
+    public static final int LOCAL_DECLS_   = NONTERMINAL + 12;
+    public static final int LOCAL_DECL     = NONTERMINAL + 13;
+    public static final int STMT_LIST      = NONTERMINAL + 14;
+    public static final int STMT_LIST_     = NONTERMINAL + 15;
+    public static final int STMT           = NONTERMINAL + 16;
+    public static final int ASSIGN_STMT    = NONTERMINAL + 17;
+    public static final int PRINT_STMT     = NONTERMINAL + 18;
+    public static final int RETURN_STMT    = NONTERMINAL + 19;
+    public static final int IF_STMT        = NONTERMINAL + 20;
+    public static final int WHILE_STMT     = NONTERMINAL + 21;
+    public static final int COMPOUND_STMT  = NONTERMINAL + 22;
+    public static final int ARGS           = NONTERMINAL + 23;
+    public static final int ARG_LIST       = NONTERMINAL + 24;
+    public static final int ARG_LIST_      = NONTERMINAL + 25;
+    public static final int EXPR           = NONTERMINAL + 26;
+    public static final int EXPR_          = NONTERMINAL + 27;
+    public static final int TERM           = NONTERMINAL + 28;
+    public static final int TERM_          = NONTERMINAL + 29;
+    public static final int FACTOR         = NONTERMINAL + 30;
+    public static final int FACTOR_        = NONTERMINAL + 31;
+    public static final int NONTERMINALS   = 32;
+
+    // names as used in the error messages of Parser
+    static final String[] NAMES =
+    {
+        "program", "decl_list", "decl_list'", "fun_decl", "params", "param_list", "param_list'", "param",
+        "type_spec", "type_spec'", "prim_type", "local_decls", "local_decls'", "local_decl", "stmt_list", "stmt_list'",
+        "stmt", "assign_stmt", "print_stmt", "return_stmt", "if_stmt", "while_stmt", "compound_stmt", "args",
+        "arg_list", "arg_list'", "expr", "expr'", "term", "term'", "factor", "factor'",
+    };
+
+    // productions; the order defines the production numbers P_... used by the actions
+    static final int[][] GRAMMAR =
+    {
+        { PROGRAM      , DECL_LIST, Parser.ENDMARKER },
+        { DECL_LIST    , DECL_LIST_ },
+        { DECL_LIST_   , FUN_DECL, DECL_LIST_ },
+        { DECL_LIST_   },
+        { FUN_DECL     , TYPE_SPEC, Parser.IDENT, Parser.LPAREN, PARAMS, Parser.RPAREN, Parser.BEGIN, LOCAL_DECLS, STMT_LIST, Parser.END },
+        { PARAMS       , PARAM_LIST },
+        { PARAMS       },
+        { PARAM_LIST   , PARAM, PARAM_LIST_ },
+        { PARAM_LIST_  , Parser.COMMA, PARAM, PARAM_LIST_ },
+        { PARAM_LIST_  },
+        { PARAM        , TYPE_SPEC, Parser.IDENT },
+        { TYPE_SPEC    , PRIM_TYPE, TYPE_SPEC_ },
+        { TYPE_SPEC_   , Parser.LBRACKET, Parser.RBRACKET },
+        { TYPE_SPEC_   },
+        { PRIM_TYPE    , Parser.NUM },
+        { PRIM_TYPE    , Parser.BOOL },
+        { LOCAL_DECLS  , LOCAL_DECLS_ },
+        { LOCAL_DECLS_ , LOCAL_DECL, LOCAL_DECLS_ },
+        { LOCAL_DECLS_ },
+        { LOCAL_DECL   , TYPE_SPEC, Parser.IDENT, Parser.SEMI },
+        { STMT_LIST    , STMT_LIST_ },
+        { STMT_LIST_   , STMT, STMT_LIST_ },
+        { STMT_LIST_   },
+        { STMT         , ASSIGN_STMT },
+        { STMT         , PRINT_STMT },
+        { STMT         , RETURN_STMT },
+        { STMT         , IF_STMT },
+        { STMT         , WHILE_STMT },
+        { STMT         , COMPOUND_STMT },
+        { ASSIGN_STMT  , Parser.IDENT, Parser.ASSIGN, EXPR, Parser.SEMI },
+        { PRINT_STMT   , Parser.PRINT, EXPR, Parser.SEMI },
+        { RETURN_STMT  , Parser.RETURN, EXPR, Parser.SEMI },
+        { IF_STMT      , Parser.IF, Parser.LPAREN, EXPR, Parser.RPAREN, STMT, Parser.ELSE, STMT },
+        { WHILE_STMT   , Parser.WHILE, Parser.LPAREN, EXPR, Parser.RPAREN, STMT },
+        { COMPOUND_STMT, Parser.BEGIN, LOCAL_DECLS, STMT_LIST, Parser.END },
+        { ARGS         , ARG_LIST },
+        { ARGS         },
+        { ARG_LIST     , EXPR, ARG_LIST_ },
+        { ARG_LIST_    , Parser.COMMA, EXPR, ARG_LIST_ },
+        { ARG_LIST_    },
+        { EXPR         , TERM, EXPR_ },
+        { EXPR_        , Parser.EXPROP, TERM, EXPR_ },
+        { EXPR_        , Parser.RELOP, TERM, EXPR_ },
+        { EXPR_        },
+        { TERM         , FACTOR, TERM_ },
+        { TERM_        , Parser.TERMOP, FACTOR, TERM_ },
+        { TERM_        },
+        { FACTOR       , Parser.IDENT, FACTOR_ },
+        { FACTOR       , Parser.LPAREN, EXPR, Parser.RPAREN },
+        { FACTOR       , Parser.NUM_LIT },
+        { FACTOR       , Parser.BOOL_LIT },
+        { FACTOR       , Parser.NEW, PRIM_TYPE, Parser.LBRACKET, EXPR, Parser.RBRACKET },
+        { FACTOR_      , Parser.LPAREN, ARGS, Parser.RPAREN },
+        { FACTOR_      , Parser.LBRACKET, EXPR, Parser.RBRACKET },
+        { FACTOR_      , Parser.DOT, Parser.SIZE },
+        { FACTOR_      },
+    };
+
+    public static final int P_PROGRAM            =  0;
+    public static final int P_DECL_LIST          =  1;
+    public static final int P_DECL_LIST_         =  2;
+    public static final int P_DECL_LIST_EPS      =  3;
+    public static final int P_FUN_DECL           =  4;
+    public static final int P_PARAMS             =  5;
+    public static final int P_PARAMS_EPS         =  6;
+    public static final int P_PARAM_LIST         =  7;
+    public static final int P_PARAM_LIST_        =  8;
+    public static final int P_PARAM_LIST_EPS     =  9;
+    public static final int P_PARAM              = 10;
+    public static final int P_TYPE_SPEC          = 11;
+    public static final int P_TYPE_SPEC_ARRAY    = 12;
+    public static final int P_TYPE_SPEC_VALUE    = 13;
+    public static final int P_PRIM_TYPE_NUM      = 14;
+    public static final int P_PRIM_TYPE_BOOL     = 15;
+    public static final int P_LOCAL_DECLS        = 16;
+    public static final int P_LOCAL_DECLS_       = 17;
+    public static final int P_LOCAL_DECLS_EPS    = 18;
+    public static final int P_LOCAL_DECL         = 19;
+    public static final int P_STMT_LIST          = 20;
+    public static final int P_STMT_LIST_         = 21;
+    public static final int P_STMT_LIST_EPS      = 22;
+    public static final int P_STMT_ASSIGN        = 23;
+    public static final int P_STMT_PRINT         = 24;
+    public static final int P_STMT_RETURN        = 25;
+    public static final int P_STMT_IF            = 26;
+    public static final int P_STMT_WHILE         = 27;
+    public static final int P_STMT_COMPOUND      = 28;
+    public static final int P_ASSIGN_STMT        = 29;
+    public static final int P_PRINT_STMT         = 30;
+    public static final int P_RETURN_STMT        = 31;
+    public static final int P_IF_STMT            = 32;
+    public static final int P_WHILE_STMT         = 33;
+    public static final int P_COMPOUND_STMT      = 34;
+    public static final int P_ARGS               = 35;
+    public static final int P_ARGS_EPS           = 36;
+    public static final int P_ARG_LIST           = 37;
+    public static final int P_ARG_LIST_          = 38;
+    public static final int P_ARG_LIST_EPS       = 39;
+    public static final int P_EXPR               = 40;
+    public static final int P_EXPR_EXPROP        = 41;
+    public static final int P_EXPR_RELOP         = 42;
+    public static final int P_EXPR_EPS           = 43;
+    public static final int P_TERM               = 44;
+    public static final int P_TERM_TERMOP        = 45;
+    public static final int P_TERM_EPS           = 46;
+    public static final int P_FACTOR_IDENT       = 47;
+    public static final int P_FACTOR_PAREN       = 48;
+    public static final int P_FACTOR_NUM_LIT     = 49;
+    public static final int P_FACTOR_BOOL_LIT    = 50;
+    public static final int P_FACTOR_NEW         = 51;
+    public static final int P_FACTOR_PARENARGS   = 52;
+    public static final int P_FACTOR_BRACKEXPR   = 53;
+    public static final int P_FACTOR_DOTSIZE     = 54;
+    public static final int P_FACTOR_EPS         = 55;
+
+    // flattened grammar and table
+    static final int[]  LHS;        // LHS[p]            : left-hand side of production p
+    static final int[]  RHS;        // RHS[RHS_START[p]..]: right-hand side of production p
+    static final int[]  RHS_START;
+    static final int[]  RHS_LENGTH;
+    static final int[]  TABLE;      // TABLE[A*TERMINALS+t]: production to expand A with lookahead t, or -1
+    static final long[] FIRST;      // bit sets of terminals, per nonterminal
+    static final long[] FOLLOW;
+    static final long[] EXPECTED;   // bit sets of the lookaheads with a production (TABLE[A*TERMINALS+t] != -1), per nonterminal
+
+    static
+    {
+        int count = GRAMMAR.length;
+        LHS        = new int[count];
+        RHS_START  = new int[count];
+        RHS_LENGTH = new int[count];
+        int total = 0;
+        for(int[] prod : GRAMMAR)
+            total += prod.length - 1;
+        RHS = new int[total];
+        for(int p=0, pos=0; p<count; p++)
+        {
+            LHS[p]        = GRAMMAR[p][0];
+            RHS_START[p]  = pos;
+            RHS_LENGTH[p] = GRAMMAR[p].length - 1;
+            for(int i=1; i<GRAMMAR[p].length; i++)
+                RHS[pos++] = GRAMMAR[p][i];
+        }
+
+        // FIRST and nullable, by iterating to a fixed point
+        FIRST = new long[NONTERMINALS];
+        boolean[] nullable = new boolean[NONTERMINALS];
+        for(boolean changed = true; changed; )
+        {
+            changed = false;
+            for(int p=0; p<count; p++)
+            {
+                int     A     = LHS[p] - NONTERMINAL;
+                long    first = FIRST[A] | FirstOf(p, 0, nullable);
+                boolean nul   = nullable[A] || NullableFrom(p, 0, nullable);
+                if(first != FIRST[A] || nul != nullable[A])
+                {
+                    FIRST[A]    = first;
+                    nullable[A] = nul;
+                    changed     = true;
+                }
+            }
+        }
+
+        // FOLLOW: for A -> ... B beta, FIRST(beta) is in FOLLOW(B), and FOLLOW(A) too if beta is nullable
+        FOLLOW = new long[NONTERMINALS];
+        for(boolean changed = true; changed; )
+        {
+            changed = false;
+            for(int p=0; p<count; p++)
+            {
+                for(int i=0; i<RHS_LENGTH[p]; i++)
+                {
+                    int B = RHS[RHS_START[p] + i];
+                    if(B < NONTERMINAL)
+                        continue;
+                    long follow = FOLLOW[B - NONTERMINAL] | FirstOf(p, i+1, nullable);
+                    if(NullableFrom(p, i+1, nullable))
+                        follow |= FOLLOW[LHS[p] - NONTERMINAL];
+                    if(follow != FOLLOW[B - NONTERMINAL])
+                    {
+                        FOLLOW[B - NONTERMINAL] = follow;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        TABLE = new int[NONTERMINALS * TERMINALS];
+        Arrays.fill(TABLE, -1);
+        for(int p=0; p<count; p++)
+        {
+            int  A       = LHS[p] - NONTERMINAL;
+            long predict = FirstOf(p, 0, nullable);
+            if(NullableFrom(p, 0, nullable))
+                predict |= FOLLOW[A];
+            for(int t=0; t<TERMINALS; t++)
+            {
+                if((predict & (1L << t)) == 0)
+                    continue;
+                if(TABLE[A * TERMINALS + t] != -1)
+                    throw new IllegalStateException("The grammar is not LL(1): conflict in " + NAMES[A] + " on token " + t + ".");
+                TABLE[A * TERMINALS + t] = p;
+            }
+        }
+        // Parser.term_() also takes "term' -> eps" on END, so that a missing ";" before "}" is
+        // reported at expr' by both engines
+        TABLE[(TERM_ - NONTERMINAL) * TERMINALS + Parser.END] = P_TERM_EPS;
+
+        EXPECTED = new long[NONTERMINALS];
+        for(int A=0; A<NONTERMINALS; A++)
+            for(int t=0; t<TERMINALS; t++)
+                if(TABLE[A * TERMINALS + t] != -1)
+                    EXPECTED[A] |= 1L << t;
+    }
+
+    static long FirstOf(int p, int from, boolean[] nullable)
+    {
+        // FIRST of the suffix RHS[p][from..]
+        long first = 0;
+        for(int i=from; i<RHS_LENGTH[p]; i++)
+        {
+            int sym = RHS[RHS_START[p] + i];
+            if(sym < NONTERMINAL)
+                return first | (1L << sym);
+            first |= FIRST[sym - NONTERMINAL];
+            if(!nullable[sym - NONTERMINAL])
+                return first;
+        }
+        return first;
+    }
+
+    static boolean NullableFrom(int p, int from, boolean[] nullable)
+    {
+        for(int i=from; i<RHS_LENGTH[p]; i++)
+        {
+            int sym = RHS[RHS_START[p] + i];
+            if(sym < NONTERMINAL || !nullable[sym - NONTERMINAL])
+                return false;
+        }
+        return true;
+    }
+
+    public static int Predict(int nonterminal, int token)
+    {
+        if(token < 0 || token >= TERMINALS)
+            return -1;
+        return TABLE[(nonterminal - NONTERMINAL) * TERMINALS + token];
+    }
+
+    public static long Expected(int nonterminal)
+    {
+        // the lookahead tokens for which the nonterminal has a production
+        return EXPECTED[nonterminal - NONTERMINAL];
+    }
+
+    public static String Name(int nonterminal)
+    {
+        return NAMES[nonterminal - NONTERMINAL];
+    }
+
+    public interface Actions
+    {
+        void   Shift(TokenBuffer tokens, int i); // the terminal tokens[i] is matched
+        void   Reduce(int production);           // the right-hand side of a production is complete
+        Object Result();
+    }
+
+    public static final class Recognizer implements Actions
+    {
+        // builds nothing: the parse only decides whether the input is a program (and where it is
+        // not), for Parser.ENGINE_RECOGNIZER; it has no state, so one instance serves every parse
+        public static final Recognizer INSTANCE = new Recognizer();
+
+        public void   Shift(TokenBuffer tokens, int i) { }
+        public void   Reduce(int production)           { }
+        public Object Result()                         { return null; }
+    }
+
+    public static class TreeActions implements Actions
+    {
+        // builds the same ParseTree as the recursive-descent Parser, on a value stack.
+        // The right-recursive lists are collected innermost-first by their primed nonterminals
+        // (an eps creates the list, every element is appended) and reversed once by the unprimed one;
+        // so are the operator chains of expr' and term', which Chain() turns into the flat arrays.
+        Object[] values = new Object[64];
+        int[]    syms   = new int[64];     // the symbol ids of the shifted IDENTs, parallel to values
+        int      count  = 0;
+
+        public void Shift(TokenBuffer tokens, int i)
+        {
+            if(count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+                syms   = Arrays.copyOf(syms  , count * 2);
+            }
+            syms  [count  ] = tokens.sym[i];
+            values[count++] = tokens.Text(i);
+        }
+
+        @SuppressWarnings("unchecked")
+        public void Reduce(int production)
+        {
+            Object[] v = values;
+            int      b = count - RHS_LENGTH[production];
+            Object   node;
+            switch(production)
+            {
+                case P_PROGRAM          : node = new ParseTree.Program((List<ParseTree.FuncDecl>) v[b]); break;
+                case P_DECL_LIST        :
+                case P_LOCAL_DECLS      :
+                case P_STMT_LIST        : node = Ordered((List<Object>) v[b]); break;
+                case P_DECL_LIST_       :
+                case P_LOCAL_DECLS_     :
+                case P_STMT_LIST_       : node = Append((List<Object>) v[b+1], v[b]); break;
+                case P_DECL_LIST_EPS    :
+                case P_PARAM_LIST_EPS   :
+                case P_LOCAL_DECLS_EPS  :
+                case P_STMT_LIST_EPS    :
+                case P_ARG_LIST_EPS     : node = new ArrayList<Object>(); break;
+                case P_EXPR_EPS         :
+                case P_TERM_EPS         : node = null; break; // no operators: most chains are a single operand
+                case P_FUN_DECL         : node = new ParseTree.FuncDecl((String) v[b+1], syms[b+1], (ParseTree.TypeSpec) v[b], (List<ParseTree.Param>) v[b+3],
+                                                                        (List<ParseTree.LocalDecl>) v[b+6], (List<ParseTree.Stmt>) v[b+7]); break;
+                case P_PARAMS           :
+                case P_ARGS             : node = v[b]; break;
+                case P_PARAMS_EPS       :
+                case P_ARGS_EPS         : node = List.of(); break;
+                case P_PARAM_LIST       : node = Ordered(Append((List<Object>) v[b+1], v[b])); break;
+                case P_PARAM_LIST_      : node = Append((List<Object>) v[b+2], v[b+1]); break;
+                case P_PARAM            : node = new ParseTree.Param((String) v[b+1], syms[b+1], (ParseTree.TypeSpec) v[b]); break;
+                case P_TYPE_SPEC        : node = new ParseTree.TypeSpec((ParseTree.PrimType) v[b], (ParseTree.TypeSpec_) v[b+1]); break;
+                case P_TYPE_SPEC_ARRAY  : node = new ParseTree.TypeSpec_Array(); break;
+                case P_TYPE_SPEC_VALUE  : node = new ParseTree.TypeSpec_Value(); break;
+                case P_PRIM_TYPE_NUM    : node = new ParseTree.PrimTypeNum(); break;
+                case P_PRIM_TYPE_BOOL   : node = new ParseTree.PrimTypeBool(); break;
+                case P_LOCAL_DECL       : node = new ParseTree.LocalDecl((String) v[b+1], syms[b+1], (ParseTree.TypeSpec) v[b]); break;
+                case P_STMT_ASSIGN      :
+                case P_STMT_PRINT       :
+                case P_STMT_RETURN      :
+                case P_STMT_IF          :
+                case P_STMT_WHILE       :
+                case P_STMT_COMPOUND    : node = v[b]; break;
+                case P_ASSIGN_STMT      : node = new ParseTree.StmtAssign((String) v[b], syms[b], (ParseTree.Expr) v[b+2]); break;
+                case P_PRINT_STMT       : node = new ParseTree.StmtPrint((ParseTree.Expr) v[b+1]); break;
+                case P_RETURN_STMT      : node = new ParseTree.StmtReturn((ParseTree.Expr) v[b+1]); break;
+                case P_IF_STMT          : node = new ParseTree.StmtIf((ParseTree.Expr) v[b+2], (ParseTree.Stmt) v[b+4], (ParseTree.Stmt) v[b+6]); break;
+                case P_WHILE_STMT       : node = new ParseTree.StmtWhile((ParseTree.Expr) v[b+2], (ParseTree.Stmt) v[b+4]); break;
+                case P_COMPOUND_STMT    : node = new ParseTree.StmtCompound((List<ParseTree.LocalDecl>) v[b+1], (List<ParseTree.Stmt>) v[b+2]); break;
+                case P_ARG_LIST         : node = Ordered(Append((List<Object>) v[b+1], new ParseTree.Arg((ParseTree.Expr) v[b]))); break;
+                case P_ARG_LIST_        : node = Append((List<Object>) v[b+2], new ParseTree.Arg((ParseTree.Expr) v[b+1])); break;
+                case P_EXPR             : { ParseTree.Term[]   terms   = new ParseTree.Term  [ChainLength((List<Object>) v[b+1])];
+                                            node = new ParseTree.Expr(terms, Chain(v[b], (List<Object>) v[b+1], terms)); break; }
+                case P_EXPR_EXPROP      :
+                case P_EXPR_RELOP       :
+                case P_TERM_TERMOP      : node = Append(Append((v[b+2] != null) ? (List<Object>) v[b+2] : new ArrayList<Object>(4), v[b+1]), v[b]); break;
+                case P_TERM             : { ParseTree.Factor[] factors = new ParseTree.Factor[ChainLength((List<Object>) v[b+1])];
+                                            node = new ParseTree.Term(factors, Chain(v[b], (List<Object>) v[b+1], factors)); break; }
+                case P_FACTOR_IDENT     : node = new ParseTree.FactorIdentExt((String) v[b], syms[b], (ParseTree.Factor_) v[b+1]); break;
+                case P_FACTOR_PAREN     : node = new ParseTree.FactorParen((ParseTree.Expr) v[b+1]); break;
+                case P_FACTOR_NUM_LIT   : node = new ParseTree.FactorNumLit(Double.parseDouble((String) v[b])); break;
+                case P_FACTOR_BOOL_LIT  : node = new ParseTree.FactorBoolLit(Boolean.parseBoolean((String) v[b])); break;
+                case P_FACTOR_NEW       : node = new ParseTree.FactorNew((ParseTree.PrimType) v[b+1], (ParseTree.Expr) v[b+3]); break;
+                case P_FACTOR_PARENARGS : node = new ParseTree.FactorIdent_ParenArgs((List<ParseTree.Arg>) v[b+1]); break;
+                case P_FACTOR_BRACKEXPR : node = new ParseTree.FactorIdent_BrackExpr((ParseTree.Expr) v[b+1]); break;
+                case P_FACTOR_DOTSIZE   : node = new ParseTree.FactorIdent_DotSize(); break;
+                case P_FACTOR_EPS       : node = new ParseTree.FactorIdent_Eps(); break;
+                default                 : throw new IllegalStateException("unknown production " + production);
+            }
+            Arrays.fill(v, b, count, null);
+            if(b == v.length)
+            {
+                values = v = Arrays.copyOf(v, b * 2);
+                syms   = Arrays.copyOf(syms, b * 2);
+            }
+            v[b]  = node;
+            count = b + 1;
+        }
+
+        public Object Result()
+        {
+            return values[0];
+        }
+
+        static List<Object> Append(List<Object> list, Object element)
+        {
+            list.add(element);
+            return list;
+        }
+
+        static int ChainLength(List<Object> rest)
+        {
+            return (rest == null) ? 1 : rest.size() / 2 + 1;
+        }
+
+        static byte[] Chain(Object first, List<Object> rest, Object[] operands)
+        {
+            // the operator chain of expr'/term' is collected innermost-first as operand, operator pairs:
+            // rest = [x_n, op_n, ..., x_1, op_1] (null for none); operands gets first, x_1 .. x_n and the result op_1 .. op_n
+            int    n   = ChainLength(rest) - 1;
+            byte[] ops = (n == 0) ? ParseTree.NO_OPS : new byte[n];
+            operands[0] = first;
+            for(int i=0; i<n; i++)
+            {
+                operands[i+1] = rest.get(rest.size() - 2 - 2*i);
+                ops[i]        = ParseTree.OpCode((String) rest.get(rest.size() - 1 - 2*i));
+            }
+            return ops;
+        }
+
+        static List<Object> Ordered(List<Object> reversed)
+        {
+            if(reversed.isEmpty())
+                return List.of();
+            Collections.reverse(reversed);
+            return reversed;
+        }
+    }
+}
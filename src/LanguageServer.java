@@ -0,0 +1,329 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class LanguageServer
+{
+    // A Language Server Protocol server over stdin/stdout (JSON-RPC 2.0 with Content-Length
+    // headers), so that an editor keeps one warm checker for all its keystrokes:
+    //   java Program --lsp [--debounce ms]
+    // It keeps every open document in an Incremental, which re-parses only the function an edit
+    // touches (textDocumentSync is incremental), and answers:
+    //   initialize, shutdown, exit, textDocument/didOpen, didChange, didClose
+    //   textDocument/publishDiagnostics : the syntax errors of a document (up to MAX_ERRORS), sent
+    //                                     once the edits have paused for the debounce delay
+    //   textDocument/formatting         : the whole document replaced by the printed parse tree
+    //                                     (no edit while it has a syntax error)
+    // Lines and characters are the parser's: lines end at \n, characters are UTF-16 chars.
+
+    public static final int MAX_ERRORS = 100;
+
+    static class Document
+    {
+        final String      uri;
+        final Incremental text;
+        ScheduledFuture<?> pending;     // the debounced publishing of its diagnostics
+        Document(String uri, Incremental text)
+        {
+            this.uri  = uri ;
+            this.text = text;
+        }
+    }
+
+    final InputStream               in;
+    final OutputStream              out;
+    final long                      debounce;   // milliseconds
+    final Map<String, Document>     documents = new HashMap<String, Document>();
+    final ScheduledExecutorService  publisher;
+    boolean                         shutdown;
+
+    public LanguageServer(InputStream in, OutputStream out, long debounce)
+    {
+        this.in        = in;
+        this.out       = out;
+        this.debounce  = debounce;
+        this.publisher = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "lsp-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        long debounce = 50;
+        for(int i=0; i<args.length; i++)
+            if(args[i].equals("--debounce") && i+1 < args.length)
+                debounce = Long.parseLong(args[++i]);
+        System.exit(new LanguageServer(System.in, System.out, debounce).Run());
+    }
+
+    public int Run() throws Exception
+    {
+        // serves messages until "exit" (exit code 0 after "shutdown", 1 otherwise) or the end of input
+        try
+        {
+            while(true)
+            {
+                String message = Read(in);
+                if(message == null)
+                    return 1;
+                Object request;
+                try
+                {
+                    request = Json.Parse(message);
+                }
+                catch(IllegalArgumentException e)
+                {
+                    Send(Json.Of("jsonrpc", "2.0", "id", null, "error", Json.Of("code", -32700, "message", e.getMessage())));
+                    continue;
+                }
+                String method = Json.String(request, "method");
+                if("exit".equals(method))
+                    return shutdown ? 0 : 1;
+                Handle(request, method);
+            }
+        }
+        finally
+        {
+            publisher.shutdownNow();
+        }
+    }
+
+    void Handle(Object request, String method)
+    {
+        Object id     = Json.Get(request, "id");
+        Object params = Json.Get(request, "params");
+        try
+        {
+            Object result = null;
+            switch(method == null ? "" : method)
+            {
+                case "initialize":
+                    result = Json.Of(
+                        "capabilities", Json.Of(
+                            "textDocumentSync", Json.Of("openClose", true, "change", 2),
+                            "documentFormattingProvider", true),
+                        "serverInfo", Json.Of("name", "minic-syntax-checker"));
+                    break;
+                case "shutdown":
+                    shutdown = true;
+                    break;
+                case "textDocument/didOpen":
+                    DidOpen(Json.Object(params, "textDocument"));
+                    break;
+                case "textDocument/didChange":
+                    DidChange(Json.String(Json.Object(params, "textDocument"), "uri"), Json.Array(params, "contentChanges"));
+                    break;
+                case "textDocument/didClose":
+                    DidClose(Json.String(Json.Object(params, "textDocument"), "uri"));
+                    break;
+                case "textDocument/formatting":
+                    result = Formatting(Json.String(Json.Object(params, "textDocument"), "uri"));
+                    break;
+                case "initialized":
+                case "$/cancelRequest":
+                case "$/setTrace":
+                    break;
+                default:
+                    if(id != null)
+                        Send(Json.Of("jsonrpc", "2.0", "id", id, "error", Json.Of("code", -32601, "message", "unknown method " + method)));
+                    return;
+            }
+            if(id != null)
+                Send(Json.Of("jsonrpc", "2.0", "id", id, "result", result));
+        }
+        catch(Exception e)
+        {
+            if(id != null)
+                Send(Json.Of("jsonrpc", "2.0", "id", id, "error", Json.Of("code", -32603, "message", String.valueOf(e))));
+        }
+    }
+
+    void DidOpen(Map<String, Object> item) throws Exception
+    {
+        Incremental text = new Incremental(Json.String(item, "text"));
+        text.maxerrors = MAX_ERRORS;
+        Document document = new Document(Json.String(item, "uri"), text);
+        synchronized(documents)
+        {
+            documents.put(document.uri, document);
+        }
+        Schedule(document);
+    }
+
+    void DidChange(String uri, List<Object> changes) throws Exception
+    {
+        Document document = Find(uri);
+        if(document == null || changes == null)
+            return;
+        synchronized(document)
+        {
+            for(Object change : changes)
+            {
+                String inserted = Json.String(change, "text");
+                Object range    = Json.Get(change, "range");
+                Incremental text = document.text;
+                if(range == null)
+                {
+                    text.Change(0, text.Length(), inserted);   // the whole text
+                    continue;
+                }
+                Object start = Json.Get(range, "start"), end = Json.Get(range, "end");
+                int    from  = text.Offset(Json.Int(start, "line", 0), Json.Int(start, "character", 0));
+                int    to    = text.Offset(Json.Int(end  , "line", 0), Json.Int(end  , "character", 0));
+                text.Change(from, Math.max(0, to - from), inserted);
+            }
+        }
+        Schedule(document);
+    }
+
+    void DidClose(String uri)
+    {
+        Document document;
+        synchronized(documents)
+        {
+            document = documents.remove(uri);
+        }
+        if(document == null)
+            return;
+        synchronized(document)
+        {
+            if(document.pending != null)
+                document.pending.cancel(false);
+        }
+        Send(Json.Of("jsonrpc", "2.0", "method", "textDocument/publishDiagnostics",
+                     "params", Json.Of("uri", uri, "diagnostics", List.of())));
+    }
+
+    List<Object> Formatting(String uri) throws Exception
+    {
+        Document document = Find(uri);
+        if(document == null)
+            return null;
+        synchronized(document)
+        {
+            ParseTree.Program program = document.text.Program();
+            if(program == null)
+                return List.of();
+            StringBuilder sb = new StringBuilder();
+            program.Print(sb, 0);
+            int[] end = document.text.Position(document.text.Length());
+            return List.of(Json.Of("range", Range(0, 0, end[0], end[1]), "newText", sb.toString()));
+        }
+    }
+
+    Document Find(String uri)
+    {
+        synchronized(documents)
+        {
+            return documents.get(uri);
+        }
+    }
+
+    void Schedule(Document document)
+    {
+        // a new edit restarts the delay, so a burst of keystrokes is published once
+        synchronized(document)
+        {
+            if(document.pending != null)
+                document.pending.cancel(false);
+            document.pending = publisher.schedule(() -> Publish(document), debounce, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void Publish(Document document)
+    {
+        List<Object> diagnostics = new ArrayList<Object>();
+        synchronized(document)
+        {
+            if(Find(document.uri) != document)
+                return;                         // closed meanwhile
+            try
+            {
+                for(Diagnostic error : document.text.Errors())
+                {
+                    int line   = Math.max(0, error.line   - 1);
+                    int column = Math.max(0, error.column - 1);
+                    diagnostics.add(Json.Of(
+                        "range"   , Range(line, column, line, column + error.length),
+                        "severity", 1,
+                        "source"  , "minic",
+                        "message" , error.Message()));
+                }
+            }
+            catch(Exception e)
+            {
+                diagnostics.add(Json.Of("range", Range(0, 0, 0, 0), "severity", 1, "source", "minic", "message", String.valueOf(e)));
+            }
+        }
+        Send(Json.Of("jsonrpc", "2.0", "method", "textDocument/publishDiagnostics",
+                     "params", Json.Of("uri", document.uri, "diagnostics", diagnostics)));
+    }
+
+    static Map<String, Object> Range(int line0, int char0, int line1, int char1)
+    {
+        return Json.Of("start", Json.Of("line", line0, "character", char0),
+                       "end"  , Json.Of("line", line1, "character", char1));
+    }
+
+    public static String Read(InputStream in) throws IOException
+    {
+        // one message: headers up to an empty line, then Content-Length bytes of UTF-8 JSON
+        int    length = -1;
+        String header;
+        while((header = ReadLine(in)) != null && !header.isEmpty())
+        {
+            int colon = header.indexOf(':');
+            if(colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length"))
+                length = Integer.parseInt(header.substring(colon + 1).trim());
+        }
+        if(header == null || length < 0)
+            return null;
+        byte[] body = in.readNBytes(length);
+        if(body.length < length)
+            return null;
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    static String ReadLine(InputStream in) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        while(true)
+        {
+            int b = in.read();
+            if(b < 0)
+                return (sb.length() == 0) ? null : sb.toString();
+            if(b == '\n')
+                return sb.toString();
+            if(b != '\r')
+                sb.append((char) b);
+        }
+    }
+
+    void Send(Object message)
+    {
+        try
+        {
+            Write(out, message);
+        }
+        catch(IOException e)
+        {
+            // the client is gone; the read loop ends at the end of its input
+        }
+    }
+
+    public static void Write(OutputStream out, Object message) throws IOException
+    {
+        // the reader thread and the publisher both send, a whole message at a time
+        byte[] body = Json.Write(message).getBytes(StandardCharsets.UTF_8);
+        synchronized(out)
+        {
+            out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+        }
+    }
+}
@@ -1,5 +1,5 @@
-/* The following code was generated by JFlex 1.6.1 */
-
+/* The following code was generated by JFlex 1.6.1 */
+
 /* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
  * Copyright (C) 2000 Gerwin Klein <lsf@jflex.de>                          *
  * All rights reserved.                                                    *
@@ -10,771 +10,899 @@
  *                                                                         *
  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
 
-
-/**
- * This class is a scanner generated by 
- * <a href="http://www.jflex.de/">JFlex</a> 1.6.1
- * from the specification file <tt>Lexer.flex</tt>
- */
-class Lexer {
-
-  /** This character denotes the end of file */
-  public static final int YYEOF = -1;
-
-  /** initial size of the lookahead buffer */
-  private static final int ZZ_BUFFERSIZE = 16384;
-
-  /** lexical states */
-  public static final int YYINITIAL = 0;
-
-  /**
-   * ZZ_LEXSTATE[l] is the state in the DFA for the lexical state l
-   * ZZ_LEXSTATE[l+1] is the state in the DFA for the lexical state l
-   *                  at the beginning of a line
-   * l is of the form l = 2*k, k a non negative integer
-   */
-  private static final int ZZ_LEXSTATE[] = { 
-     0, 0
-  };
-
-  /** 
-   * Translates characters to character classes
-   */
-  private static final String ZZ_CMAP_PACKED = 
-    "\10\0\1\53\1\6\1\5\1\11\1\11\1\10\22\0\1\6\4\0"+
-    "\1\7\2\0\1\36\1\37\1\12\1\46\1\43\1\45\1\2\1\47"+
-    "\12\1\1\0\1\42\1\44\1\52\1\51\2\0\32\3\1\40\1\0"+
-    "\1\41\1\0\1\4\1\0\1\33\1\16\1\3\1\50\1\21\1\26"+
-    "\1\3\1\27\1\24\2\3\1\20\1\15\1\13\1\17\1\32\1\3"+
-    "\1\30\1\23\1\31\1\14\1\3\1\22\2\3\1\25\1\34\1\0"+
-    "\1\35\7\0\1\11\u1fa2\0\1\11\1\11\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\udfe6\0";
-
-  /** 
-   * Translates characters to character classes
-   */
-  private static final char [] ZZ_CMAP = zzUnpackCMap(ZZ_CMAP_PACKED);
-
-  /** 
-   * Translates DFA states to action switch labels.
-   */
-  private static final int [] ZZ_ACTION = zzUnpackAction();
-
-  private static final String ZZ_ACTION_PACKED_0 =
-    "\1\0\1\1\1\2\1\3\1\4\1\5\1\6\1\1"+
-    "\1\7\14\4\1\10\1\11\1\12\1\13\1\14\1\15"+
-    "\1\16\1\17\1\20\1\21\2\20\1\22\1\0\1\6"+
-    "\1\0\3\4\1\21\3\4\1\23\5\4\1\24\1\2"+
-    "\1\0\1\25\1\26\10\4\1\7\1\27\1\30\1\31"+
-    "\1\4\1\32\1\4\1\33\1\4\1\34\1\4\1\35"+
-    "\1\36";
-
-  private static int [] zzUnpackAction() {
-    int [] result = new int[76];
-    int offset = 0;
-    offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
-    return result;
-  }
-
-  private static int zzUnpackAction(String packed, int offset, int [] result) {
-    int i = 0;       /* index in packed string  */
-    int j = offset;  /* index in unpacked array */
-    int l = packed.length();
-    while (i < l) {
-      int count = packed.charAt(i++);
-      int value = packed.charAt(i++);
-      do result[j++] = value; while (--count > 0);
-    }
-    return j;
-  }
-
-
-  /** 
-   * Translates a state to a row index in the transition table
-   */
-  private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
-
-  private static final String ZZ_ROWMAP_PACKED_0 =
-    "\0\0\0\54\0\130\0\54\0\204\0\54\0\260\0\334"+
-    "\0\54\0\u0108\0\u0134\0\u0160\0\u018c\0\u01b8\0\u01e4\0\u0210"+
-    "\0\u023c\0\u0268\0\u0294\0\u02c0\0\u02ec\0\54\0\54\0\54"+
-    "\0\54\0\54\0\54\0\54\0\54\0\u0318\0\54\0\u0344"+
-    "\0\54\0\54\0\u0370\0\u039c\0\u03c8\0\u03f4\0\u0420\0\u044c"+
-    "\0\204\0\u0478\0\u04a4\0\u04d0\0\204\0\u04fc\0\u0528\0\u0554"+
-    "\0\u0580\0\u05ac\0\54\0\u0370\0\u05d8\0\204\0\204\0\u0604"+
-    "\0\u0630\0\u065c\0\u0688\0\u06b4\0\u06e0\0\u070c\0\u0738\0\204"+
-    "\0\u03c8\0\204\0\204\0\u0764\0\204\0\u0790\0\204\0\u07bc"+
-    "\0\204\0\u07e8\0\204\0\204";
-
-  private static int [] zzUnpackRowMap() {
-    int [] result = new int[76];
-    int offset = 0;
-    offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
-    return result;
-  }
-
-  private static int zzUnpackRowMap(String packed, int offset, int [] result) {
-    int i = 0;  /* index in packed string  */
-    int j = offset;  /* index in unpacked array */
-    int l = packed.length();
-    while (i < l) {
-      int high = packed.charAt(i++) << 16;
-      result[j++] = high | packed.charAt(i++);
-    }
-    return j;
-  }
-
-  /** 
-   * The transition table of the DFA
-   */
-  private static final int [] ZZ_TRANS = zzUnpackTrans();
-
-  private static final String ZZ_TRANS_PACKED_0 =
-    "\1\2\1\3\1\4\1\5\1\2\1\6\1\7\1\10"+
-    "\1\7\1\2\1\11\1\12\2\5\1\13\1\14\1\5"+
-    "\1\15\1\16\1\17\1\20\1\5\1\21\1\5\1\22"+
-    "\1\23\1\24\1\25\1\26\1\27\1\30\1\31\1\32"+
-    "\1\33\1\34\1\35\1\36\2\37\1\11\1\5\1\40"+
-    "\1\41\1\42\55\0\1\3\1\43\52\0\1\5\1\0"+
-    "\2\5\6\0\21\5\14\0\1\5\11\0\1\7\1\0"+
-    "\1\7\52\0\1\44\2\0\1\45\42\0\1\5\1\0"+
-    "\2\5\6\0\1\5\1\46\4\5\1\47\12\5\14\0"+
-    "\1\5\4\0\1\5\1\0\2\5\6\0\4\5\1\50"+
-    "\14\5\14\0\1\5\4\0\1\5\1\0\2\5\6\0"+
-    "\15\5\1\51\3\5\14\0\1\5\4\0\1\5\1\0"+
-    "\2\5\6\0\5\5\1\52\13\5\14\0\1\5\4\0"+
-    "\1\5\1\0\2\5\6\0\14\5\1\53\4\5\14\0"+
-    "\1\5\4\0\1\5\1\0\2\5\6\0\11\5\1\54"+
-    "\7\5\14\0\1\5\4\0\1\5\1\0\2\5\6\0"+
-    "\13\5\1\55\5\5\14\0\1\5\4\0\1\5\1\0"+
-    "\2\5\6\0\20\5\1\56\14\0\1\5\4\0\1\5"+
-    "\1\0\2\5\6\0\6\5\1\57\12\5\14\0\1\5"+
-    "\4\0\1\5\1\0\2\5\6\0\15\5\1\60\3\5"+
-    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\15\5"+
-    "\1\61\3\5\14\0\1\5\4\0\1\5\1\0\2\5"+
-    "\6\0\1\62\20\5\14\0\1\5\50\0\1\63\3\0"+
-    "\2\41\53\0\1\41\2\0\1\64\52\0\5\44\1\0"+
-    "\2\44\2\0\42\44\12\45\1\65\41\45\1\0\1\5"+
-    "\1\0\2\5\6\0\2\5\1\66\16\5\14\0\1\5"+
-    "\4\0\1\5\1\0\2\5\6\0\7\5\1\67\11\5"+
-    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\4\5"+
-    "\1\70\14\5\14\0\1\5\4\0\1\5\1\0\2\5"+
-    "\6\0\10\5\1\71\10\5\14\0\1\5\4\0\1\5"+
-    "\1\0\2\5\6\0\11\5\1\72\7\5\14\0\1\5"+
-    "\4\0\1\5\1\0\2\5\6\0\12\5\1\73\6\5"+
-    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\5\5"+
-    "\1\74\13\5\14\0\1\5\4\0\1\5\1\0\2\5"+
-    "\6\0\16\5\1\75\2\5\14\0\1\5\4\0\1\5"+
-    "\1\0\2\5\6\0\1\5\1\76\17\5\14\0\1\5"+
-    "\4\0\1\5\1\0\2\5\6\0\11\5\1\77\7\5"+
-    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\21\5"+
-    "\14\0\1\100\3\0\7\45\1\101\2\45\1\65\41\45"+
-    "\1\0\1\5\1\0\2\5\6\0\5\5\1\102\13\5"+
-    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\6\5"+
-    "\1\103\12\5\14\0\1\5\4\0\1\5\1\0\2\5"+
-    "\6\0\5\5\1\104\13\5\14\0\1\5\4\0\1\5"+
-    "\1\0\2\5\6\0\6\5\1\105\12\5\14\0\1\5"+
-    "\4\0\1\5\1\0\2\5\6\0\10\5\1\76\10\5"+
-    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\1\5"+
-    "\1\106\17\5\14\0\1\5\4\0\1\5\1\0\2\5"+
-    "\6\0\6\5\1\107\12\5\14\0\1\5\4\0\1\5"+
-    "\1\0\2\5\6\0\1\110\20\5\14\0\1\5\4\0"+
-    "\1\5\1\0\2\5\6\0\6\5\1\111\12\5\14\0"+
-    "\1\5\4\0\1\5\1\0\2\5\6\0\15\5\1\112"+
-    "\3\5\14\0\1\5\4\0\1\5\1\0\2\5\6\0"+
-    "\16\5\1\113\2\5\14\0\1\5\4\0\1\5\1\0"+
-    "\2\5\6\0\1\114\20\5\14\0\1\5\3\0";
-
-  private static int [] zzUnpackTrans() {
-    int [] result = new int[2068];
-    int offset = 0;
-    offset = zzUnpackTrans(ZZ_TRANS_PACKED_0, offset, result);
-    return result;
-  }
-
-  private static int zzUnpackTrans(String packed, int offset, int [] result) {
-    int i = 0;       /* index in packed string  */
-    int j = offset;  /* index in unpacked array */
-    int l = packed.length();
-    while (i < l) {
-      int count = packed.charAt(i++);
-      int value = packed.charAt(i++);
-      value--;
-      do result[j++] = value; while (--count > 0);
-    }
-    return j;
-  }
-
-
-  /* error codes */
-  private static final int ZZ_UNKNOWN_ERROR = 0;
-  private static final int ZZ_NO_MATCH = 1;
-  private static final int ZZ_PUSHBACK_2BIG = 2;
-
-  /* error messages for the codes above */
-  private static final String ZZ_ERROR_MSG[] = {
-    "Unknown internal scanner error",
-    "Error: could not match input",
-    "Error: pushback value was too large"
-  };
-
-  /**
-   * ZZ_ATTRIBUTE[aState] contains the attributes of state <code>aState</code>
-   */
-  private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
-
-  private static final String ZZ_ATTRIBUTE_PACKED_0 =
-    "\1\0\1\11\1\1\1\11\1\1\1\11\2\1\1\11"+
-    "\14\1\10\11\1\1\1\11\1\1\2\11\1\0\1\1"+
-    "\1\0\15\1\1\11\1\1\1\0\27\1";
-
-  private static int [] zzUnpackAttribute() {
-    int [] result = new int[76];
-    int offset = 0;
-    offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
-    return result;
-  }
-
-  private static int zzUnpackAttribute(String packed, int offset, int [] result) {
-    int i = 0;       /* index in packed string  */
-    int j = offset;  /* index in unpacked array */
-    int l = packed.length();
-    while (i < l) {
-      int count = packed.charAt(i++);
-      int value = packed.charAt(i++);
-      do result[j++] = value; while (--count > 0);
-    }
-    return j;
-  }
-
-  /** the input device */
-  private java.io.Reader zzReader;
-
-  /** the current state of the DFA */
-  private int zzState;
-
-  /** the current lexical state */
-  private int zzLexicalState = YYINITIAL;
-
-  /** this buffer contains the current text to be matched and is
-      the source of the yytext() string */
-  private char zzBuffer[] = new char[ZZ_BUFFERSIZE];
-
-  /** the textposition at the last accepting state */
-  private int zzMarkedPos;
-
-  /** the current text position in the buffer */
-  private int zzCurrentPos;
-
-  /** startRead marks the beginning of the yytext() string in the buffer */
-  private int zzStartRead;
-
-  /** endRead marks the last character in the buffer, that has been read
-      from input */
-  private int zzEndRead;
-
-  /** number of newlines encountered up to the start of the matched text */
-  private int yyline;
-
-  /** the number of characters up to the start of the matched text */
-  private int yychar;
-
-  /**
-   * the number of characters from the last newline up to the start of the 
-   * matched text
-   */
-  private int yycolumn;
-
-  /** 
-   * zzAtBOL == true <=> the scanner is currently at the beginning of a line
-   */
-  private boolean zzAtBOL = true;
-
-  /** zzAtEOF == true <=> the scanner is at the EOF */
-  private boolean zzAtEOF;
-
-  /** denotes if the user-EOF-code has already been executed */
-  private boolean zzEOFDone;
-  
-  /** 
-   * The number of occupied positions in zzBuffer beyond zzEndRead.
-   * When a lead/high surrogate has been read from the input stream
-   * into the final zzBuffer position, this will have a value of 1;
-   * otherwise, it will have a value of 0.
-   */
-  private int zzFinalHighSurrogate = 0;
-
-  /* user code: */
-
-  public Parser   parser;
-  public int      lineno;
-  public int      column;
-  public int      tokenColumn;
-
-  public Lexer(java.io.Reader r, Parser parser) {
-    this(r);
-    this.parser = parser;
-    this.lineno = 1;
-    this.column = 1;
+
+/**
+ * This class is a scanner generated by 
+ * <a href="http://www.jflex.de/">JFlex</a> 1.6.1
+ * from the specification file <tt>Lexer.flex</tt>
+ */
+class Lexer implements Scanner {
+
+  /** This character denotes the end of file */
+  public static final int YYEOF = -1;
+
+  /** initial size of the lookahead buffer */
+  private static final int ZZ_BUFFERSIZE = 16384;
+
+  /** lexical states */
+  public static final int YYINITIAL = 0;
+
+  /**
+   * ZZ_LEXSTATE[l] is the state in the DFA for the lexical state l
+   * ZZ_LEXSTATE[l+1] is the state in the DFA for the lexical state l
+   *                  at the beginning of a line
+   * l is of the form l = 2*k, k a non negative integer
+   */
+  private static final int ZZ_LEXSTATE[] = { 
+     0, 0
+  };
+
+  /** 
+   * Translates characters to character classes
+   */
+  private static final String ZZ_CMAP_PACKED = 
+    "\10\0\1\53\1\6\1\5\1\11\1\11\1\10\22\0\1\6\4\0"+
+    "\1\7\2\0\1\36\1\37\1\12\1\46\1\43\1\45\1\2\1\47"+
+    "\12\1\1\0\1\42\1\44\1\52\1\51\2\0\32\3\1\40\1\0"+
+    "\1\41\1\0\1\4\1\0\1\33\1\16\1\3\1\50\1\21\1\26"+
+    "\1\3\1\27\1\24\2\3\1\20\1\15\1\13\1\17\1\32\1\3"+
+    "\1\30\1\23\1\31\1\14\1\3\1\22\2\3\1\25\1\34\1\0"+
+    "\1\35\7\0\1\11\u1fa2\0\1\11\1\11\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\udfe6\0";
+
+  /** 
+   * Translates characters to character classes
+   */
+  private static final char [] ZZ_CMAP = zzUnpackCMap(ZZ_CMAP_PACKED, 0x100);
+
+  /** 
+   * Translates DFA states to action switch labels.
+   */
+  private static final int [] ZZ_ACTION = zzUnpackAction();
+
+  private static final String ZZ_ACTION_PACKED_0 =
+    "\1\0\1\1\1\2\1\3\1\4\1\5\1\6\1\1"+
+    "\1\7\14\4\1\10\1\11\1\12\1\13\1\14\1\15"+
+    "\1\16\1\17\1\20\1\21\2\20\1\22\1\0\1\6"+
+    "\1\0\3\4\1\21\3\4\1\23\5\4\1\24\1\2"+
+    "\1\0\1\25\1\26\10\4\1\7\1\27\1\30\1\31"+
+    "\1\4\1\32\1\4\1\33\1\4\1\34\1\4\1\35"+
+    "\1\36";
+
+  private static int [] zzUnpackAction() {
+    int [] result = new int[76];
+    int offset = 0;
+    offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackAction(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+
+  /** 
+   * Translates a state to a row index in the transition table
+   */
+  private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
+
+  private static final String ZZ_ROWMAP_PACKED_0 =
+    "\0\0\0\54\0\130\0\54\0\204\0\54\0\260\0\334"+
+    "\0\54\0\u0108\0\u0134\0\u0160\0\u018c\0\u01b8\0\u01e4\0\u0210"+
+    "\0\u023c\0\u0268\0\u0294\0\u02c0\0\u02ec\0\54\0\54\0\54"+
+    "\0\54\0\54\0\54\0\54\0\54\0\u0318\0\54\0\u0344"+
+    "\0\54\0\54\0\u0370\0\u039c\0\u03c8\0\u03f4\0\u0420\0\u044c"+
+    "\0\204\0\u0478\0\u04a4\0\u04d0\0\204\0\u04fc\0\u0528\0\u0554"+
+    "\0\u0580\0\u05ac\0\54\0\u0370\0\u05d8\0\204\0\204\0\u0604"+
+    "\0\u0630\0\u065c\0\u0688\0\u06b4\0\u06e0\0\u070c\0\u0738\0\204"+
+    "\0\u03c8\0\204\0\204\0\u0764\0\204\0\u0790\0\204\0\u07bc"+
+    "\0\204\0\u07e8\0\204\0\204";
+
+  private static int [] zzUnpackRowMap() {
+    int [] result = new int[76];
+    int offset = 0;
+    offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackRowMap(String packed, int offset, int [] result) {
+    int i = 0;  /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int high = packed.charAt(i++) << 16;
+      result[j++] = high | packed.charAt(i++);
+    }
+    return j;
+  }
+
+  /** 
+   * The transition table of the DFA
+   */
+  private static final int [] ZZ_TRANS = zzUnpackTrans();
+
+  private static final String ZZ_TRANS_PACKED_0 =
+    "\1\2\1\3\1\4\1\5\1\2\1\6\1\7\1\10"+
+    "\1\7\1\2\1\11\1\12\2\5\1\13\1\14\1\5"+
+    "\1\15\1\16\1\17\1\20\1\5\1\21\1\5\1\22"+
+    "\1\23\1\24\1\25\1\26\1\27\1\30\1\31\1\32"+
+    "\1\33\1\34\1\35\1\36\2\37\1\11\1\5\1\40"+
+    "\1\41\1\42\55\0\1\3\1\43\52\0\1\5\1\0"+
+    "\2\5\6\0\21\5\14\0\1\5\11\0\1\7\1\0"+
+    "\1\7\52\0\1\44\2\0\1\45\42\0\1\5\1\0"+
+    "\2\5\6\0\1\5\1\46\4\5\1\47\12\5\14\0"+
+    "\1\5\4\0\1\5\1\0\2\5\6\0\4\5\1\50"+
+    "\14\5\14\0\1\5\4\0\1\5\1\0\2\5\6\0"+
+    "\15\5\1\51\3\5\14\0\1\5\4\0\1\5\1\0"+
+    "\2\5\6\0\5\5\1\52\13\5\14\0\1\5\4\0"+
+    "\1\5\1\0\2\5\6\0\14\5\1\53\4\5\14\0"+
+    "\1\5\4\0\1\5\1\0\2\5\6\0\11\5\1\54"+
+    "\7\5\14\0\1\5\4\0\1\5\1\0\2\5\6\0"+
+    "\13\5\1\55\5\5\14\0\1\5\4\0\1\5\1\0"+
+    "\2\5\6\0\20\5\1\56\14\0\1\5\4\0\1\5"+
+    "\1\0\2\5\6\0\6\5\1\57\12\5\14\0\1\5"+
+    "\4\0\1\5\1\0\2\5\6\0\15\5\1\60\3\5"+
+    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\15\5"+
+    "\1\61\3\5\14\0\1\5\4\0\1\5\1\0\2\5"+
+    "\6\0\1\62\20\5\14\0\1\5\50\0\1\63\3\0"+
+    "\2\41\53\0\1\41\2\0\1\64\52\0\5\44\1\0"+
+    "\2\44\2\0\42\44\12\45\1\65\41\45\1\0\1\5"+
+    "\1\0\2\5\6\0\2\5\1\66\16\5\14\0\1\5"+
+    "\4\0\1\5\1\0\2\5\6\0\7\5\1\67\11\5"+
+    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\4\5"+
+    "\1\70\14\5\14\0\1\5\4\0\1\5\1\0\2\5"+
+    "\6\0\10\5\1\71\10\5\14\0\1\5\4\0\1\5"+
+    "\1\0\2\5\6\0\11\5\1\72\7\5\14\0\1\5"+
+    "\4\0\1\5\1\0\2\5\6\0\12\5\1\73\6\5"+
+    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\5\5"+
+    "\1\74\13\5\14\0\1\5\4\0\1\5\1\0\2\5"+
+    "\6\0\16\5\1\75\2\5\14\0\1\5\4\0\1\5"+
+    "\1\0\2\5\6\0\1\5\1\76\17\5\14\0\1\5"+
+    "\4\0\1\5\1\0\2\5\6\0\11\5\1\77\7\5"+
+    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\21\5"+
+    "\14\0\1\100\3\0\7\45\1\101\2\45\1\65\41\45"+
+    "\1\0\1\5\1\0\2\5\6\0\5\5\1\102\13\5"+
+    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\6\5"+
+    "\1\103\12\5\14\0\1\5\4\0\1\5\1\0\2\5"+
+    "\6\0\5\5\1\104\13\5\14\0\1\5\4\0\1\5"+
+    "\1\0\2\5\6\0\6\5\1\105\12\5\14\0\1\5"+
+    "\4\0\1\5\1\0\2\5\6\0\10\5\1\76\10\5"+
+    "\14\0\1\5\4\0\1\5\1\0\2\5\6\0\1\5"+
+    "\1\106\17\5\14\0\1\5\4\0\1\5\1\0\2\5"+
+    "\6\0\6\5\1\107\12\5\14\0\1\5\4\0\1\5"+
+    "\1\0\2\5\6\0\1\110\20\5\14\0\1\5\4\0"+
+    "\1\5\1\0\2\5\6\0\6\5\1\111\12\5\14\0"+
+    "\1\5\4\0\1\5\1\0\2\5\6\0\15\5\1\112"+
+    "\3\5\14\0\1\5\4\0\1\5\1\0\2\5\6\0"+
+    "\16\5\1\113\2\5\14\0\1\5\4\0\1\5\1\0"+
+    "\2\5\6\0\1\114\20\5\14\0\1\5\3\0";
+
+  private static int [] zzUnpackTrans() {
+    int [] result = new int[2068];
+    int offset = 0;
+    offset = zzUnpackTrans(ZZ_TRANS_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackTrans(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      value--;
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+
+  /* error codes */
+  private static final int ZZ_UNKNOWN_ERROR = 0;
+  private static final int ZZ_NO_MATCH = 1;
+  private static final int ZZ_PUSHBACK_2BIG = 2;
+
+  /* error messages for the codes above */
+  private static final String ZZ_ERROR_MSG[] = {
+    "Unknown internal scanner error",
+    "Error: could not match input",
+    "Error: pushback value was too large"
+  };
+
+  /**
+   * ZZ_ATTRIBUTE[aState] contains the attributes of state <code>aState</code>
+   */
+  private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
+
+  private static final String ZZ_ATTRIBUTE_PACKED_0 =
+    "\1\0\1\11\1\1\1\11\1\1\1\11\2\1\1\11"+
+    "\14\1\10\11\1\1\1\11\1\1\2\11\1\0\1\1"+
+    "\1\0\15\1\1\11\1\1\1\0\27\1";
+
+  private static int [] zzUnpackAttribute() {
+    int [] result = new int[76];
+    int offset = 0;
+    offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
+    return result;
+  }
+
+  private static int zzUnpackAttribute(String packed, int offset, int [] result) {
+    int i = 0;       /* index in packed string  */
+    int j = offset;  /* index in unpacked array */
+    int l = packed.length();
+    while (i < l) {
+      int count = packed.charAt(i++);
+      int value = packed.charAt(i++);
+      do result[j++] = value; while (--count > 0);
+    }
+    return j;
+  }
+
+  /** the input device */
+  private java.io.Reader zzReader;
+
+  /** the current state of the DFA */
+  private int zzState;
+
+  /** the current lexical state */
+  private int zzLexicalState = YYINITIAL;
+
+  /** this buffer contains the current text to be matched and is
+      the source of the yytext() string; the source itself for Lexer(char[], int) */
+  private char zzBuffer[];
+
+  /** the textposition at the last accepting state */
+  private int zzMarkedPos;
+
+  /** the current text position in the buffer */
+  private int zzCurrentPos;
+
+  /** startRead marks the beginning of the yytext() string in the buffer */
+  private int zzStartRead;
+
+  /** endRead marks the last character in the buffer, that has been read
+      from input */
+  private int zzEndRead;
+
+  /** number of newlines encountered up to the start of the matched text */
+  private int yyline;
+
+  /** the number of characters up to the start of the matched text */
+  private int yychar;
+
+  /**
+   * the number of characters from the last newline up to the start of the 
+   * matched text
+   */
+  private int yycolumn;
+
+  /** 
+   * zzAtBOL == true <=> the scanner is currently at the beginning of a line
+   */
+  private boolean zzAtBOL = true;
+
+  /** zzAtEOF == true <=> the scanner is at the EOF */
+  private boolean zzAtEOF;
+
+  /** denotes if the user-EOF-code has already been executed */
+  private boolean zzEOFDone;
+  
+  /** 
+   * The number of occupied positions in zzBuffer beyond zzEndRead.
+   * When a lead/high surrogate has been read from the input stream
+   * into the final zzBuffer position, this will have a value of 1;
+   * otherwise, it will have a value of 0.
+   */
+  private int zzFinalHighSurrogate = 0;
+
+  /* user code: */
+
+  public TokenBuffer tokens;
+  public SymbolTable symbols     = new SymbolTable();
+  public char[]      source;
+  public int         lineno      = 1;
+  public int         column      = 1;
+  public int         tokenColumn;
+  public boolean     quiet;                 // no message on stderr for a backspace, nor from the Parser for an unexpected char (see MiniC)
+
+  public Lexer(char[] source, int length) {
+    // the whole input is retained in source; a token is an offset (yychar) and a length into it,
+    // so no text is copied per token
+    Reset(source, length);
+  }
+
+  public void Reset(char[] source, int length) {
+    // scans source[0, length) from its start, with none of the state of the last input; the
+    // source is scanned in place (it is the JFlex buffer, all read: zzRefill() only reports its
+    // end, and never shifts it), and the identifiers of the last input are forgotten (see
+    // SymbolTable.Clear)
+    this.source = source;
+    zzReader  = null;
+    zzBuffer  = source;
+    zzEndRead = length;
+    zzAtEOF   = false;
+    zzAtBOL   = true;
+    zzEOFDone = false;
+    zzStartRead = zzCurrentPos = zzMarkedPos = 0;
+    zzFinalHighSurrogate = 0;
+    yyline = yychar = yycolumn = 0;
+    zzLexicalState = YYINITIAL;
+    lineno = 1;
+    column = 1;
+    tokenColumn = 0;
+    tokens = null;
+    symbols.Clear();
+  }
+
+  public int Fill(TokenBuffer tokens) throws java.io.IOException {
+    // lexes the next block of tokens into the buffer, until it is full or the input ends
+    // (ENDMARKER) or has an unexpected character (LEXERROR), and returns the number of tokens
+    if(source == null)
+      throw new IllegalStateException("Lexer.Fill() needs the whole source: use Lexer(char[], int).");
+    this.tokens    = tokens;
+    tokens.source  = source;
+    tokens.bytes   = null;
+    tokens.symbols = symbols;
+    tokens.report  = !quiet;
+    tokens.count   = 0;
+    while(tokens.count < tokens.type.length) {
+      int type = yylex();
+      if(type == 0) {
+        // the end marker keeps the column of the last token, as the parser has always reported it
+        tokens.Add(Parser.ENDMARKER, yychar, 0, lineno, tokenColumn);
+        break;
+      }
+      if(type == -1)
+        break;
+    }
+    return tokens.count;
+  }
+
+  private int Token(int type) {
+    // only the position is recorded; the text stays in the source (see TokenBuffer.Text)
+    tokenColumn = column;
+    tokens.Add(type, yychar, yylength(), lineno, column);
+    column += yylength();
+    return type;
+  }
+
+  private int Ident() {
+    // an identifier is interned as it is lexed, so every occurrence of a name shares one id
+    Token(Parser.IDENT);
+    if (tokens.intern)
+      tokens.sym[tokens.count-1] = symbols.Intern(source, yychar, yylength());
+    return Parser.IDENT;
+  }
+
+
+  /**
+   * Creates a new scanner
+   *
+   * @param   in  the java.io.Reader to read input from.
+   */
+  Lexer(java.io.Reader in) {
+    this.zzBuffer = new char[ZZ_BUFFERSIZE];
+    this.zzReader = in;
+  }
+
+
+  /** 
+   * Unpacks the compressed character translation table.
+   *
+   * @param packed   the packed character translation table
+   * @return         the unpacked character translation table
+   */
+  private static char [] zzUnpackCMap(String packed) {
+    char [] map = new char[0x110000];
+    int i = 0;  /* index in packed string  */
+    int j = 0;  /* index in unpacked array */
+    while (i < 166) {
+      int  count = packed.charAt(i++);
+      char value = packed.charAt(i++);
+      do map[j++] = value; while (--count > 0);
+    }
+    return map;
   }
-
-
-  /**
-   * Creates a new scanner
-   *
-   * @param   in  the java.io.Reader to read input from.
-   */
-  Lexer(java.io.Reader in) {
-    this.zzReader = in;
-  }
-
-
-  /** 
-   * Unpacks the compressed character translation table.
-   *
-   * @param packed   the packed character translation table
-   * @return         the unpacked character translation table
-   */
-  private static char [] zzUnpackCMap(String packed) {
-    char [] map = new char[0x110000];
-    int i = 0;  /* index in packed string  */
-    int j = 0;  /* index in unpacked array */
-    while (i < 166) {
-      int  count = packed.charAt(i++);
-      char value = packed.charAt(i++);
-      do map[j++] = value; while (--count > 0);
-    }
-    return map;
-  }
-
-
-  /**
-   * Refills the input buffer.
-   *
-   * @return      <code>false</code>, iff there was new input.
-   * 
-   * @exception   java.io.IOException  if any I/O-Error occurs
-   */
-  private boolean zzRefill() throws java.io.IOException {
-
-    /* first: make room (if you can) */
-    if (zzStartRead > 0) {
-      zzEndRead += zzFinalHighSurrogate;
-      zzFinalHighSurrogate = 0;
-      System.arraycopy(zzBuffer, zzStartRead,
-                       zzBuffer, 0,
-                       zzEndRead-zzStartRead);
-
-      /* translate stored positions */
-      zzEndRead-= zzStartRead;
-      zzCurrentPos-= zzStartRead;
-      zzMarkedPos-= zzStartRead;
-      zzStartRead = 0;
-    }
-
-    /* is the buffer big enough? */
-    if (zzCurrentPos >= zzBuffer.length - zzFinalHighSurrogate) {
-      /* if not: blow it up */
-      char newBuffer[] = new char[zzBuffer.length*2];
-      System.arraycopy(zzBuffer, 0, newBuffer, 0, zzBuffer.length);
-      zzBuffer = newBuffer;
-      zzEndRead += zzFinalHighSurrogate;
-      zzFinalHighSurrogate = 0;
-    }
-
-    /* fill the buffer with new input */
-    int requested = zzBuffer.length - zzEndRead;
-    int numRead = zzReader.read(zzBuffer, zzEndRead, requested);
-
-    /* not supposed to occur according to specification of java.io.Reader */
-    if (numRead == 0) {
-      throw new java.io.IOException("Reader returned 0 characters. See JFlex examples for workaround.");
-    }
-    if (numRead > 0) {
-      zzEndRead += numRead;
-      /* If numRead == requested, we might have requested to few chars to
-         encode a full Unicode character. We assume that a Reader would
-         otherwise never return half characters. */
-      if (numRead == requested) {
-        if (Character.isHighSurrogate(zzBuffer[zzEndRead - 1])) {
-          --zzEndRead;
-          zzFinalHighSurrogate = 1;
-        }
-      }
-      /* potentially more input available */
-      return false;
-    }
-
-    /* numRead < 0 ==> end of stream */
-    return true;
-  }
-
-    
-  /**
-   * Closes the input stream.
-   */
-  public final void yyclose() throws java.io.IOException {
-    zzAtEOF = true;            /* indicate end of file */
-    zzEndRead = zzStartRead;  /* invalidate buffer    */
-
-    if (zzReader != null)
-      zzReader.close();
-  }
-
-
-  /**
-   * Resets the scanner to read from a new input stream.
-   * Does not close the old reader.
-   *
-   * All internal variables are reset, the old input stream 
-   * <b>cannot</b> be reused (internal buffer is discarded and lost).
-   * Lexical state is set to <tt>ZZ_INITIAL</tt>.
-   *
-   * Internal scan buffer is resized down to its initial length, if it has grown.
-   *
-   * @param reader   the new input stream 
-   */
-  public final void yyreset(java.io.Reader reader) {
-    zzReader = reader;
-    zzAtBOL  = true;
-    zzAtEOF  = false;
-    zzEOFDone = false;
-    zzEndRead = zzStartRead = 0;
-    zzCurrentPos = zzMarkedPos = 0;
-    zzFinalHighSurrogate = 0;
-    yyline = yychar = yycolumn = 0;
-    zzLexicalState = YYINITIAL;
-    if (zzBuffer.length > ZZ_BUFFERSIZE)
-      zzBuffer = new char[ZZ_BUFFERSIZE];
-  }
-
-
-  /**
-   * Returns the current lexical state.
-   */
-  public final int yystate() {
-    return zzLexicalState;
-  }
-
-
-  /**
-   * Enters a new lexical state
-   *
-   * @param newState the new lexical state
-   */
-  public final void yybegin(int newState) {
-    zzLexicalState = newState;
-  }
-
-
-  /**
-   * Returns the text matched by the current regular expression.
-   */
-  public final String yytext() {
-    return new String( zzBuffer, zzStartRead, zzMarkedPos-zzStartRead );
-  }
-
-
-  /**
-   * Returns the character at position <tt>pos</tt> from the 
-   * matched text. 
-   * 
-   * It is equivalent to yytext().charAt(pos), but faster
-   *
-   * @param pos the position of the character to fetch. 
-   *            A value from 0 to yylength()-1.
-   *
-   * @return the character at position pos
-   */
-  public final char yycharat(int pos) {
-    return zzBuffer[zzStartRead+pos];
-  }
-
-
-  /**
-   * Returns the length of the matched text region.
-   */
-  public final int yylength() {
-    return zzMarkedPos-zzStartRead;
-  }
-
-
-  /**
-   * Reports an error that occured while scanning.
-   *
-   * In a wellformed scanner (no or only correct usage of 
-   * yypushback(int) and a match-all fallback rule) this method 
-   * will only be called with things that "Can't Possibly Happen".
-   * If this method is called, something is seriously wrong
-   * (e.g. a JFlex bug producing a faulty scanner etc.).
-   *
-   * Usual syntax/scanner level error handling should be done
-   * in error fallback rules.
-   *
-   * @param   errorCode  the code of the errormessage to display
-   */
-  private void zzScanError(int errorCode) {
-    String message;
-    try {
-      message = ZZ_ERROR_MSG[errorCode];
-    }
-    catch (ArrayIndexOutOfBoundsException e) {
-      message = ZZ_ERROR_MSG[ZZ_UNKNOWN_ERROR];
-    }
-
-    throw new Error(message);
-  } 
-
-
-  /**
-   * Pushes the specified amount of characters back into the input stream.
-   *
-   * They will be read again by then next call of the scanning method
-   *
-   * @param number  the number of characters to be read again.
-   *                This number must not be greater than yylength()!
-   */
-  public void yypushback(int number)  {
-    if ( number > yylength() )
-      zzScanError(ZZ_PUSHBACK_2BIG);
-
-    zzMarkedPos -= number;
-  }
-
-
-  /**
-   * Contains user EOF-code, which will be executed exactly once,
-   * when the end of file is reached
-   */
-  private void zzDoEOF() throws java.io.IOException {
-    if (!zzEOFDone) {
-      zzEOFDone = true;
-      yyclose();
-    }
-  }
-
-
-  /**
-   * Resumes scanning until the next regular expression is matched,
-   * the end of input is encountered or an I/O-Error occurs.
-   *
-   * @return      the next token
-   * @exception   java.io.IOException  if any I/O-Error occurs
-   */
-  public int yylex() throws java.io.IOException {
-    int zzInput;
-    int zzAction;
-
-    // cached fields:
-    int zzCurrentPosL;
-    int zzMarkedPosL;
-    int zzEndReadL = zzEndRead;
-    char [] zzBufferL = zzBuffer;
-    char [] zzCMapL = ZZ_CMAP;
-
-    int [] zzTransL = ZZ_TRANS;
-    int [] zzRowMapL = ZZ_ROWMAP;
-    int [] zzAttrL = ZZ_ATTRIBUTE;
-
-    while (true) {
-      zzMarkedPosL = zzMarkedPos;
-
-      zzAction = -1;
-
-      zzCurrentPosL = zzCurrentPos = zzStartRead = zzMarkedPosL;
-  
-      zzState = ZZ_LEXSTATE[zzLexicalState];
-
-      // set up zzAction for empty match case:
-      int zzAttributes = zzAttrL[zzState];
-      if ( (zzAttributes & 1) == 1 ) {
-        zzAction = zzState;
-      }
-
-
-      zzForAction: {
-        while (true) {
-    
-          if (zzCurrentPosL < zzEndReadL) {
-            zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
-            zzCurrentPosL += Character.charCount(zzInput);
-          }
-          else if (zzAtEOF) {
-            zzInput = YYEOF;
-            break zzForAction;
-          }
-          else {
-            // store back cached positions
-            zzCurrentPos  = zzCurrentPosL;
-            zzMarkedPos   = zzMarkedPosL;
-            boolean eof = zzRefill();
-            // get translated positions and possibly new buffer
-            zzCurrentPosL  = zzCurrentPos;
-            zzMarkedPosL   = zzMarkedPos;
-            zzBufferL      = zzBuffer;
-            zzEndReadL     = zzEndRead;
-            if (eof) {
-              zzInput = YYEOF;
-              break zzForAction;
-            }
-            else {
-              zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
-              zzCurrentPosL += Character.charCount(zzInput);
-            }
-          }
-          int zzNext = zzTransL[ zzRowMapL[zzState] + zzCMapL[zzInput] ];
-          if (zzNext == -1) break zzForAction;
-          zzState = zzNext;
-
-          zzAttributes = zzAttrL[zzState];
-          if ( (zzAttributes & 1) == 1 ) {
-            zzAction = zzState;
-            zzMarkedPosL = zzCurrentPosL;
-            if ( (zzAttributes & 8) == 8 ) break zzForAction;
-          }
-
-        }
-      }
-
-      // store back cached position
-      zzMarkedPos = zzMarkedPosL;
-
-      if (zzInput == YYEOF && zzStartRead == zzCurrentPos) {
-        zzAtEOF = true;
-            zzDoEOF();
-          { return 0; }
-      }
-      else {
-        switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
-          case 1: 
-            { System.err.println("Error: unexpected character '"+yytext()+"'"); return -1;
-            }
-          case 31: break;
-          case 2: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.NUM_LIT;
-            }
-          case 32: break;
-          case 3: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.DOT    ;
-            }
-          case 33: break;
-          case 4: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.IDENT  ;
-            }
-          case 34: break;
-          case 5: 
-            { lineno++; column = 1; /* skip */
-            }
-          case 35: break;
-          case 6: 
-            { column += yytext().length(); /* skip */
-            }
-          case 36: break;
-          case 7: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.TERMOP ;
-            }
-          case 37: break;
-          case 8: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.BEGIN  ;
-            }
-          case 38: break;
-          case 9: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.END    ;
-            }
-          case 39: break;
-          case 10: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.LPAREN ;
-            }
-          case 40: break;
-          case 11: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.RPAREN ;
-            }
-          case 41: break;
-          case 12: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.LBRACKET;
-            }
-          case 42: break;
-          case 13: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.RBRACKET;
-            }
-          case 43: break;
-          case 14: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.SEMI   ;
-            }
-          case 44: break;
-          case 15: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.COMMA  ;
-            }
-          case 45: break;
-          case 16: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.RELOP  ;
-            }
-          case 46: break;
-          case 17: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.EXPROP ;
-            }
-          case 47: break;
-          case 18: 
-            { System.err.println("Sorry, backspace doesn't work");
-            }
-          case 48: break;
-          case 19: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.IF     ;
-            }
-          case 49: break;
-          case 20: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.ASSIGN ;
-            }
-          case 50: break;
-          case 21: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.NUM    ;
-            }
-          case 51: break;
-          case 22: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.NEW    ;
-            }
-          case 52: break;
-          case 23: 
+
+
+  /**
+   * Unpacks the compressed character translation table, up to a char.
+   * ZZ_CMAP holds the Latin-1 chars only: JFlex 1.6.1 unpacks the map of all
+   * 0x110000 code points, 2 MB that took 15-25 ms of every start.
+   *
+   * @param packed   the packed character translation table
+   * @param size     the number of chars to unpack
+   * @return         the unpacked character translation table
+   */
+  private static char [] zzUnpackCMap(String packed, int size) {
+    char [] map = new char[size];
+    int i = 0;  /* index in packed string  */
+    int j = 0;  /* index in unpacked array */
+    while (i < packed.length() && j < size) {
+      int  count = packed.charAt(i++);
+      char value = packed.charAt(i++);
+      do map[j++] = value; while (--count > 0 && j < size);
+    }
+    return map;
+  }
+
+  /**
+   * The character classes of the chars that are not in ZZ_CMAP, as the runs of
+   * the packed table. It is unpacked only when such a char is first lexed.
+   */
+  private static final class ZzCMapRuns {
+    static final int  [] START = new int [ZZ_CMAP_PACKED.length() / 2];   /* the first char of each run */
+    static final char [] VALUE = new char[ZZ_CMAP_PACKED.length() / 2];
+    static {
+      for (int i = 0, j = 0, r = 0; i < ZZ_CMAP_PACKED.length(); r++) {
+        START[r] = j;
+        j += ZZ_CMAP_PACKED.charAt(i++);
+        VALUE[r] = ZZ_CMAP_PACKED.charAt(i++);
+      }
+    }
+  }
+
+  /**
+   * Translates a char from 0x100 on to its character class.
+   *
+   * @param c   the code point
+   * @return    its character class
+   */
+  private static char zzCMapHigh(int c) {
+    int [] start = ZzCMapRuns.START;
+    int lo = 0, hi = start.length - 1;    /* the last run that starts at or before c */
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (start[mid] <= c) lo = mid;
+      else                 hi = mid - 1;
+    }
+    return ZzCMapRuns.VALUE[lo];
+  }
+
+
+  /**
+   * Refills the input buffer.
+   *
+   * @return      <code>false</code>, iff there was new input.
+   * 
+   * @exception   java.io.IOException  if any I/O-Error occurs
+   */
+  private boolean zzRefill() throws java.io.IOException {
+
+    /* a source scanned in place (see Reset) is all in the buffer already */
+    if (zzReader == null)
+      return true;
+
+    /* first: make room (if you can) */
+    if (zzStartRead > 0) {
+      zzEndRead += zzFinalHighSurrogate;
+      zzFinalHighSurrogate = 0;
+      System.arraycopy(zzBuffer, zzStartRead,
+                       zzBuffer, 0,
+                       zzEndRead-zzStartRead);
+
+      /* translate stored positions */
+      zzEndRead-= zzStartRead;
+      zzCurrentPos-= zzStartRead;
+      zzMarkedPos-= zzStartRead;
+      zzStartRead = 0;
+    }
+
+    /* is the buffer big enough? */
+    if (zzCurrentPos >= zzBuffer.length - zzFinalHighSurrogate) {
+      /* if not: blow it up */
+      char newBuffer[] = new char[zzBuffer.length*2];
+      System.arraycopy(zzBuffer, 0, newBuffer, 0, zzBuffer.length);
+      zzBuffer = newBuffer;
+      zzEndRead += zzFinalHighSurrogate;
+      zzFinalHighSurrogate = 0;
+    }
+
+    /* fill the buffer with new input */
+    int requested = zzBuffer.length - zzEndRead;
+    int numRead = zzReader.read(zzBuffer, zzEndRead, requested);
+
+    /* not supposed to occur according to specification of java.io.Reader */
+    if (numRead == 0) {
+      throw new java.io.IOException("Reader returned 0 characters. See JFlex examples for workaround.");
+    }
+    if (numRead > 0) {
+      zzEndRead += numRead;
+      /* If numRead == requested, we might have requested to few chars to
+         encode a full Unicode character. We assume that a Reader would
+         otherwise never return half characters. */
+      if (numRead == requested) {
+        if (Character.isHighSurrogate(zzBuffer[zzEndRead - 1])) {
+          --zzEndRead;
+          zzFinalHighSurrogate = 1;
+        }
+      }
+      /* potentially more input available */
+      return false;
+    }
+
+    /* numRead < 0 ==> end of stream */
+    return true;
+  }
+
+    
+  /**
+   * Closes the input stream.
+   */
+  public final void yyclose() throws java.io.IOException {
+    zzAtEOF = true;            /* indicate end of file */
+    zzEndRead = zzStartRead;  /* invalidate buffer    */
+
+    if (zzReader != null)
+      zzReader.close();
+  }
+
+
+  /**
+   * Resets the scanner to read from a new input stream.
+   * Does not close the old reader.
+   *
+   * All internal variables are reset, the old input stream 
+   * <b>cannot</b> be reused (internal buffer is discarded and lost).
+   * Lexical state is set to <tt>ZZ_INITIAL</tt>.
+   *
+   * Internal scan buffer is resized down to its initial length, if it has grown.
+   *
+   * @param reader   the new input stream 
+   */
+  public final void yyreset(java.io.Reader reader) {
+    zzReader = reader;
+    zzAtBOL  = true;
+    zzAtEOF  = false;
+    zzEOFDone = false;
+    zzEndRead = zzStartRead = 0;
+    zzCurrentPos = zzMarkedPos = 0;
+    zzFinalHighSurrogate = 0;
+    yyline = yychar = yycolumn = 0;
+    zzLexicalState = YYINITIAL;
+    if (zzBuffer == null || zzBuffer == source || zzBuffer.length > ZZ_BUFFERSIZE)
+      zzBuffer = new char[ZZ_BUFFERSIZE];   // never the source of Reset(), which is not ours to fill
+    source = null;
+  }
+
+
+  /**
+   * Returns the current lexical state.
+   */
+  public final int yystate() {
+    return zzLexicalState;
+  }
+
+
+  /**
+   * Enters a new lexical state
+   *
+   * @param newState the new lexical state
+   */
+  public final void yybegin(int newState) {
+    zzLexicalState = newState;
+  }
+
+
+  /**
+   * Returns the text matched by the current regular expression.
+   */
+  public final String yytext() {
+    return new String( zzBuffer, zzStartRead, zzMarkedPos-zzStartRead );
+  }
+
+
+  /**
+   * Returns the character at position <tt>pos</tt> from the 
+   * matched text. 
+   * 
+   * It is equivalent to yytext().charAt(pos), but faster
+   *
+   * @param pos the position of the character to fetch. 
+   *            A value from 0 to yylength()-1.
+   *
+   * @return the character at position pos
+   */
+  public final char yycharat(int pos) {
+    return zzBuffer[zzStartRead+pos];
+  }
+
+
+  /**
+   * Returns the length of the matched text region.
+   */
+  public final int yylength() {
+    return zzMarkedPos-zzStartRead;
+  }
+
+
+  /**
+   * Reports an error that occured while scanning.
+   *
+   * In a wellformed scanner (no or only correct usage of 
+   * yypushback(int) and a match-all fallback rule) this method 
+   * will only be called with things that "Can't Possibly Happen".
+   * If this method is called, something is seriously wrong
+   * (e.g. a JFlex bug producing a faulty scanner etc.).
+   *
+   * Usual syntax/scanner level error handling should be done
+   * in error fallback rules.
+   *
+   * @param   errorCode  the code of the errormessage to display
+   */
+  private void zzScanError(int errorCode) {
+    String message;
+    try {
+      message = ZZ_ERROR_MSG[errorCode];
+    }
+    catch (ArrayIndexOutOfBoundsException e) {
+      message = ZZ_ERROR_MSG[ZZ_UNKNOWN_ERROR];
+    }
+
+    throw new Error(message);
+  } 
+
+
+  /**
+   * Pushes the specified amount of characters back into the input stream.
+   *
+   * They will be read again by then next call of the scanning method
+   *
+   * @param number  the number of characters to be read again.
+   *                This number must not be greater than yylength()!
+   */
+  public void yypushback(int number)  {
+    if ( number > yylength() )
+      zzScanError(ZZ_PUSHBACK_2BIG);
+
+    zzMarkedPos -= number;
+  }
+
+
+  /**
+   * Contains user EOF-code, which will be executed exactly once,
+   * when the end of file is reached
+   */
+  private void zzDoEOF() throws java.io.IOException {
+    if (!zzEOFDone) {
+      zzEOFDone = true;
+      yyclose();
+    }
+  }
+
+
+  /**
+   * Resumes scanning until the next regular expression is matched,
+   * the end of input is encountered or an I/O-Error occurs.
+   *
+   * @return      the next token
+   * @exception   java.io.IOException  if any I/O-Error occurs
+   */
+  public int yylex() throws java.io.IOException {
+    int zzInput;
+    int zzAction;
+
+    // cached fields:
+    int zzCurrentPosL;
+    int zzMarkedPosL;
+    int zzEndReadL = zzEndRead;
+    char [] zzBufferL = zzBuffer;
+    char [] zzCMapL = ZZ_CMAP;
+
+    int [] zzTransL = ZZ_TRANS;
+    int [] zzRowMapL = ZZ_ROWMAP;
+    int [] zzAttrL = ZZ_ATTRIBUTE;
+
+    while (true) {
+      zzMarkedPosL = zzMarkedPos;
+
+      yychar+= zzMarkedPosL-zzStartRead;
+
+      zzAction = -1;
+
+      zzCurrentPosL = zzCurrentPos = zzStartRead = zzMarkedPosL;
+  
+      zzState = ZZ_LEXSTATE[zzLexicalState];
+
+      // set up zzAction for empty match case:
+      int zzAttributes = zzAttrL[zzState];
+      if ( (zzAttributes & 1) == 1 ) {
+        zzAction = zzState;
+      }
+
+
+      zzForAction: {
+        while (true) {
+    
+          if (zzCurrentPosL < zzEndReadL) {
+            zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
+            zzCurrentPosL += Character.charCount(zzInput);
+          }
+          else if (zzAtEOF) {
+            zzInput = YYEOF;
+            break zzForAction;
+          }
+          else {
+            // store back cached positions
+            zzCurrentPos  = zzCurrentPosL;
+            zzMarkedPos   = zzMarkedPosL;
+            boolean eof = zzRefill();
+            // get translated positions and possibly new buffer
+            zzCurrentPosL  = zzCurrentPos;
+            zzMarkedPosL   = zzMarkedPos;
+            zzBufferL      = zzBuffer;
+            zzEndReadL     = zzEndRead;
+            if (eof) {
+              zzInput = YYEOF;
+              break zzForAction;
+            }
+            else {
+              zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
+              zzCurrentPosL += Character.charCount(zzInput);
+            }
+          }
+          int zzNext = zzTransL[ zzRowMapL[zzState] + (zzInput < 0x100 ? zzCMapL[zzInput] : zzCMapHigh(zzInput)) ];
+          if (zzNext == -1) break zzForAction;
+          zzState = zzNext;
+
+          zzAttributes = zzAttrL[zzState];
+          if ( (zzAttributes & 1) == 1 ) {
+            zzAction = zzState;
+            zzMarkedPosL = zzCurrentPosL;
+            if ( (zzAttributes & 8) == 8 ) break zzForAction;
+          }
+
+        }
+      }
+
+      // store back cached position
+      zzMarkedPos = zzMarkedPosL;
+
+      if (zzInput == YYEOF && zzStartRead == zzCurrentPos) {
+        zzAtEOF = true;
+            zzDoEOF();
+          { return 0; }
+      }
+      else {
+        switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
+          case 1: 
+            { Token(Parser.LEXERROR); return -1;
+            }
+          case 31: break;
+          case 2: 
+            { return Token(Parser.NUM_LIT);
+            }
+          case 32: break;
+          case 3: 
+            { return Token(Parser.DOT);
+            }
+          case 33: break;
+          case 4: 
+            { return Ident();
+            }
+          case 34: break;
+          case 5: 
+            { lineno++; column = 1; /* skip */
+            }
+          case 35: break;
+          case 6: 
+            { column += yylength(); /* skip */
+            }
+          case 36: break;
+          case 7: 
+            { return Token(Parser.TERMOP);
+            }
+          case 37: break;
+          case 8: 
+            { return Token(Parser.BEGIN);
+            }
+          case 38: break;
+          case 9: 
+            { return Token(Parser.END);
+            }
+          case 39: break;
+          case 10: 
+            { return Token(Parser.LPAREN);
+            }
+          case 40: break;
+          case 11: 
+            { return Token(Parser.RPAREN);
+            }
+          case 41: break;
+          case 12: 
+            { return Token(Parser.LBRACKET);
+            }
+          case 42: break;
+          case 13: 
+            { return Token(Parser.RBRACKET);
+            }
+          case 43: break;
+          case 14: 
+            { return Token(Parser.SEMI);
+            }
+          case 44: break;
+          case 15: 
+            { return Token(Parser.COMMA);
+            }
+          case 45: break;
+          case 16: 
+            { return Token(Parser.RELOP);
+            }
+          case 46: break;
+          case 17: 
+            { return Token(Parser.EXPROP);
+            }
+          case 47: break;
+          case 18: 
+            { if(!quiet) System.err.println("Sorry, backspace doesn't work");
+            }
+          case 48: break;
+          case 19: 
+            { return Token(Parser.IF);
+            }
+          case 49: break;
+          case 20: 
+            { return Token(Parser.ASSIGN);
+            }
+          case 50: break;
+          case 21: 
+            { return Token(Parser.NUM);
+            }
+          case 51: break;
+          case 22: 
+            { return Token(Parser.NEW);
+            }
+          case 52: break;
+          case 23: 
             { // update lineno and column if comment contains newlines
-                                        for (int i = 0; i < yytext().length(); i++) {
-                                           if(yytext().charAt(i)=='\n') { lineno++; column = 1; }
+                                        for (int i = 0; i < yylength(); i++) {
+                                           if(yycharat(i)=='\n') { lineno++; column = 1; }
                                            else { column++; }
-                                        }
-            }
-          case 53: break;
-          case 24: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.BOOL   ;
-            }
-          case 54: break;
-          case 25: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.ELSE   ;
-            }
-          case 55: break;
-          case 26: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.SIZE   ;
-            }
-          case 56: break;
-          case 27: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.BOOL_LIT;
-            }
-          case 57: break;
-          case 28: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.WHILE  ;
-            }
-          case 58: break;
-          case 29: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.PRINT  ;
-            }
-          case 59: break;
-          case 30: 
-            { tokenColumn = column; parser.yylval = new ParserVal((Object)yytext()); column += yytext().length(); return Parser.RETURN ;
-            }
-          case 60: break;
-          default:
-            zzScanError(ZZ_NO_MATCH);
-        }
-      }
-    }
-  }
-
-
-}
+                                        }
+            }
+          case 53: break;
+          case 24: 
+            { return Token(Parser.BOOL);
+            }
+          case 54: break;
+          case 25: 
+            { return Token(Parser.ELSE);
+            }
+          case 55: break;
+          case 26: 
+            { return Token(Parser.SIZE);
+            }
+          case 56: break;
+          case 27: 
+            { return Token(Parser.BOOL_LIT);
+            }
+          case 57: break;
+          case 28: 
+            { return Token(Parser.WHILE);
+            }
+          case 58: break;
+          case 29: 
+            { return Token(Parser.PRINT);
+            }
+          case 59: break;
+          case 30: 
+            { return Token(Parser.RETURN);
+            }
+          case 60: break;
+          default:
+            zzScanError(ZZ_NO_MATCH);
+        }
+      }
+    }
+  }
+
+
+}
@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+
+public final class MiniC
+{
+    // The parser as a library, for services that check MiniC inside their own JVM:
+    //   MiniC.ParseResult result = MiniC.Parse(source, MiniC.Options.DEFAULT.MaxErrors(10));
+    //   if(!result.ok) for(MiniC.Message error : result.errors) ...
+    // A call parses with its own lexer, parser, token block and symbol table, and touches no
+    // static state that is not final (Metrics and the Compiler's stdout are not used, and a large
+    // input is parsed by ParallelParser without its metrics), so any number of threads can parse
+    // at once, and the calls are reentrant. What a call returns is its caller's alone:
+    //   - Options and Message are immutable, and so is ParseResult, apart from its tree
+    //   - the tree (null unless ok, or if Options.Tree(false) only asked for the verdict) is built
+    //     for this call and shares nothing with another one; its names are in its own SymbolTable
+    //   - with Tree(false), the first error is found by the recognizer, which builds nothing (see
+    //     Parser.ENGINE_RECOGNIZER); it does not recover, so MaxErrors above 1 parses as with a
+    //     tree, for all the errors, and only leaves the tree out of the result
+    //   - the messages are formatted before the call returns, so the result keeps no reference to
+    //     the input (a byte[] or a CharSequence is only read during the call)
+    // Nothing is printed: the scanners are quiet, and an unexpected char is one of the errors.
+    // A file (or byte[]) of ParallelParser.THRESHOLD bytes or more is parsed on the common
+    // fork-join pool, as by the checker.
+
+    public static final class Options
+    {
+        public static final Options DEFAULT = new Options(1, null, true);
+
+        public final int     maxerrors;     // syntax errors to report before the parse gives up (see Parser.Recover)
+        public final String  file;          // names the input in the Events of its parse, or null
+        public final boolean tree;          // false: the verdict and the errors, without the tree
+
+        Options(int maxerrors, String file, boolean tree)
+        {
+            this.maxerrors = maxerrors;
+            this.file      = file;
+            this.tree      = tree;
+        }
+
+        public Options MaxErrors(int maxerrors)
+        {
+            return new Options(Math.max(1, maxerrors), file, tree);
+        }
+
+        public Options File(String file)
+        {
+            return new Options(maxerrors, file, tree);
+        }
+
+        public Options Tree(boolean tree)
+        {
+            return new Options(maxerrors, file, tree);
+        }
+    }
+
+    public static final class Message
+    {
+        public final int    line;           // 0 if the error has no position
+        public final int    column;
+        public final String text;
+
+        Message(int line, int column, String text)
+        {
+            this.line   = line;
+            this.column = column;
+            this.text   = text;
+        }
+
+        public String toString()
+        {
+            return line + ":" + column + ": " + text;
+        }
+    }
+
+    public static final class ParseResult
+    {
+        public final boolean           ok;
+        public final List<Message>     errors;  // unmodifiable, in source order
+        public final ParseTree.Program tree;    // null unless ok and Options.tree
+
+        ParseResult(ParseTree.Program tree, List<Message> errors)
+        {
+            this.ok     = errors.isEmpty();
+            this.errors = errors;
+            this.tree   = tree;
+        }
+
+        public String Format()
+        {
+            // the indented code of the tree, as the checker prints it after "Success", or null
+            if(tree == null)
+                return null;
+            StringWriter out = new StringWriter();
+            try
+            {
+                tree.Print(out, 0);
+            }
+            catch(IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);  // a StringWriter does not throw
+            }
+            return out.toString();
+        }
+    }
+
+    private MiniC()
+    {
+    }
+
+    public static ParseResult Parse(CharSequence source)
+    {
+        return Parse(source, Options.DEFAULT);
+    }
+
+    public static ParseResult Parse(CharSequence source, Options options)
+    {
+        // the chars are copied, and scanned by Lexer, as the source of new Compiler(Reader)
+        int    length = source.length();
+        char[] chars  = new char[length];
+        if(source instanceof String)
+            ((String) source).getChars(0, length, chars, 0);
+        else
+            for(int i=0; i<length; i++)
+                chars[i] = source.charAt(i);
+        Lexer lexer = new Lexer(chars, length);
+        lexer.quiet = true;
+        return Parse(lexer, options);
+    }
+
+    public static ParseResult Parse(byte[] utf8, Options options)
+    {
+        return Parse(ByteBuffer.wrap(utf8), options);
+    }
+
+    public static ParseResult Parse(Path path, Options options) throws IOException
+    {
+        // read, or mapped if it is large, as by ByteLexer.Open; the file names its Events
+        return Parse(ByteLexer.Open(path), (options.file != null) ? options : options.File(path.toString()));
+    }
+
+    static ParseResult Parse(ByteBuffer bytes, Options options)
+    {
+        if(bytes.limit() >= ParallelParser.THRESHOLD && options.tree)
+        {
+            // the chunks either all parse, or the file is parsed as one for its errors
+            try
+            {
+                ParseTree.Program program = ParallelParser.Parse(bytes, java.util.concurrent.ForkJoinPool.commonPool(), options.file, false);
+                if(program != null)
+                    return new ParseResult(program, List.of());
+            }
+            catch(Exception e)
+            {
+                // parsed as one below
+            }
+        }
+        ByteLexer lexer = new ByteLexer(bytes);
+        lexer.quiet = true;
+        return Parse(lexer, options);
+    }
+
+    static ParseResult Parse(Scanner lexer, Options options)
+    {
+        try
+        {
+            // the recognizer reports one error: more are found by the recursive parse, which recovers
+            boolean recognize = !options.tree && options.maxerrors == 1;
+            Parser  parser    = new Parser(lexer, null, options.file, recognize ? Parser.ENGINE_RECOGNIZER : Parser.ENGINE_RECURSIVE);
+            parser._maxerrors = options.maxerrors;
+            parser.yyparse();
+            List<Message> errors = new ArrayList<Message>(parser._errors.size());
+            for(Diagnostic error : parser._errors)
+                errors.add(new Message(error.line, error.column, error.Message()));
+            return new ParseResult(options.tree ? parser._parsetree : null, Collections.unmodifiableList(errors));
+        }
+        catch(Exception e)
+        {
+            // not from the grammar (yyparse() records those): the first block of tokens failed
+            return new ParseResult(null, List.of(new Message(0, 0, String.valueOf(e))));
+        }
+    }
+}
@@ -0,0 +1,294 @@
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ParallelParser
+{
+    // Parses one large file on several cores. The functions of a program are independent, so the
+    // source is cut into chunks of whole functions, which are lexed and parsed at the same time on
+    // a fork-join pool, and their FuncDecls are put back together in source order:
+    //   - Split() pre-scans the bytes for the lines that start outside of any function: after a
+    //     "}" that closes the brace depth to 0, at the next \n with only blanks and comments in
+    //     between. It skips "%%" and "%* *%" comments as ByteLexer does; a block comment is greedy
+    //     (it extends to the last "*%" of the file), so no cut falls inside it.
+    //   - a chunk is scanned by a ByteLexer over its range of the same buffer, from the line the
+    //     chunk starts on, so lines, columns and offsets (FuncDecl.start/end) are those of the file
+    //   - the identifiers of each chunk are interned into its own SymbolTable; they are then
+    //     interned into the table of the first chunk, and the sym ids of the tree are renumbered
+    // A program whose chunks all parse is exactly the program a parse of the whole file builds
+    // (decl_list is a sequence of fun_decls, and every cut is between two tokens). If any chunk
+    // does not parse, Parse() returns null, and the caller parses the file as one, so the errors
+    // and their recovery are those of the sequential parse. A file with a char that no token has
+    // outside of its comments is not split at all (its scanners would report the char twice).
+
+    public static final int THRESHOLD = 8 << 20;    // bytes; smaller files are parsed as one
+    public static final int MIN_CHUNK = 256 << 10;
+
+    static final boolean[] TOKEN_CHAR = new boolean[128];  // the chars of tokens, but "{" "}" "%"
+    static
+    {
+        for(int c='a'; c<='z'; c++) TOKEN_CHAR[c] = true;
+        for(int c='A'; c<='Z'; c++) TOKEN_CHAR[c] = true;
+        for(int c='0'; c<='9'; c++) TOKEN_CHAR[c] = true;
+        for(char c : "_()[];,.+-*/=<>".toCharArray())
+            TOKEN_CHAR[c] = true;
+    }
+
+    public static ParseTree.Program Parse(ByteBuffer bytes, ForkJoinPool pool) throws Exception
+    {
+        return Parse(bytes, pool, null);
+    }
+
+    public static ParseTree.Program Parse(ByteBuffer bytes, ForkJoinPool pool, String file) throws Exception
+    {
+        return Parse(bytes, pool, file, true);
+    }
+
+    public static ParseTree.Program Parse(ByteBuffer bytes, ForkJoinPool pool, String file, boolean metrics) throws Exception
+    {
+        // about 4 chunks per core, so that the cores are kept busy while the chunk sizes vary
+        return Parse(bytes, pool, Math.max(MIN_CHUNK, bytes.limit() / (pool.getParallelism() * 4)), file, metrics);
+    }
+
+    public static ParseTree.Program Parse(ByteBuffer bytes, ForkJoinPool pool, int chunk) throws Exception
+    {
+        return Parse(bytes, pool, chunk, null);
+    }
+
+    public static ParseTree.Program Parse(ByteBuffer bytes, ForkJoinPool pool, int chunk, String file) throws Exception
+    {
+        return Parse(bytes, pool, chunk, file, true);
+    }
+
+    public static ParseTree.Program Parse(ByteBuffer bytes, ForkJoinPool pool, int chunk, String file, boolean metrics) throws Exception
+    {
+        // file names the input in the Events of the chunks; if metrics, their tokens and allocations
+        // are counted in Metrics on the threads that parse them (not for MiniC, which keeps none)
+        int[] splits = Split(bytes, chunk);
+        int   count  = splits.length / 2 - 1;
+        if(count <= 1)
+            return null;
+
+        List<ForkJoinTask<Parser>> tasks = new ArrayList<ForkJoinTask<Parser>>();
+        for(int c=0; c<count; c++)
+        {
+            int from = splits[2*c], line = splits[2*c+1], to = splits[2*c+2];
+            tasks.add(pool.submit(() ->
+            {
+                long   allocated0 = metrics ? Metrics.Allocated() : -1;
+                Parser parser     = new Parser(new ByteLexer(bytes, from, to, line), null, file);
+                parser.yyparse();
+                if(metrics)
+                    Metrics.Chunk(parser._consumed, allocated0);
+                return parser;
+            }));
+        }
+        List<Parser> parsers = new ArrayList<Parser>();
+        for(ForkJoinTask<Parser> task : tasks)
+        {
+            Parser parser = task.join();
+            if(parser._parsetree == null)
+            {
+                for(ForkJoinTask<Parser> other : tasks)
+                    other.cancel(false);
+                return null;
+            }
+            parsers.add(parser);
+        }
+
+        // the first chunk's table becomes the program's; the others' ids are mapped into it
+        SymbolTable symbols = parsers.get(0)._parsetree.symbols;
+        List<ForkJoinTask<?>> renumbering = new ArrayList<ForkJoinTask<?>>();
+        for(int c=1; c<count; c++)
+        {
+            SymbolTable table = parsers.get(c)._parsetree.symbols;
+            int[]       map   = new int[table.Count()];
+            for(int id=0; id<map.length; id++)
+                map[id] = symbols.Intern(table.Name(id));
+            List<ParseTree.FuncDecl> funcs = parsers.get(c)._parsetree.funcs;
+            renumbering.add(pool.submit(() ->
+            {
+                for(ParseTree.FuncDecl func : funcs)
+                    Renumber(func, map);
+            }));
+        }
+        for(ForkJoinTask<?> task : renumbering)
+            task.join();
+
+        List<ParseTree.FuncDecl> funcs = new ArrayList<ParseTree.FuncDecl>();
+        for(Parser parser : parsers)
+            funcs.addAll(parser._parsetree.funcs);
+        ParseTree.Program program = new ParseTree.Program(funcs);
+        program.symbols = symbols;
+        return program;
+    }
+
+    public static int[] Split(ByteBuffer in, int chunk)
+    {
+        // the chunks as { offset, line } pairs, ending with { limit, 0 }: each starts at the start of
+        // a line outside of any function, at least chunk bytes after the one before
+        int     end       = in.limit();
+        int     lastclose = -2;             // of the greedy block comment; -2: not searched yet
+        int     depth     = 0;
+        boolean between   = false;          // a function has closed, and no token has followed it
+        int     line      = 1;
+        int     last      = 0;
+        int[]   splits    = new int[16];
+        int     n         = 0;
+        splits[n++] = 0;
+        splits[n++] = 1;
+        for(int p=0; p<end; p++)
+        {
+            int b = in.get(p);
+            switch(b)
+            {
+                case '\n':
+                    line++;
+                    if(between && depth == 0 && p + 1 - last >= chunk && p + 1 < end)
+                    {
+                        if(n + 2 > splits.length)
+                            splits = Arrays.copyOf(splits, splits.length * 2);
+                        last = p + 1;
+                        splits[n++] = last;
+                        splits[n++] = line;
+                    }
+                    break;
+                case ' ': case '\t': case '\r':
+                    break;
+                case '%':
+                    if(p+1 < end && in.get(p+1) == '%')
+                    {
+                        // to the char that ends the line, which is not a part of the comment
+                        while(p+1 < end && !EndsLine(in, p+1))
+                            p++;
+                        break;
+                    }
+                    if(p+1 < end && in.get(p+1) == '*')
+                    {
+                        if(lastclose == -2)
+                            lastclose = LastClose(in, end);
+                        if(lastclose >= p+2)
+                        {
+                            for(p += 2; p < lastclose + 1; p++)
+                                if(in.get(p) == '\n')
+                                    line++;
+                            break;              // p is on the "%" of the last "*%"
+                        }
+                    }
+                    return new int[] { 0, 1, end, 0 };  // an unexpected character
+                case '{':
+                    depth++;
+                    between = false;
+                    break;
+                case '}':
+                    depth--;
+                    between = (depth == 0);
+                    break;
+                default:
+                    if(b < 0 || !TOKEN_CHAR[b])
+                        return new int[] { 0, 1, end, 0 };
+                    between = false;
+                    break;
+            }
+        }
+        if(n + 2 > splits.length)
+            splits = Arrays.copyOf(splits, n + 2);
+        splits[n++] = end;
+        splits[n++] = 0;
+        return Arrays.copyOf(splits, n);
+    }
+
+    static boolean EndsLine(ByteBuffer in, int p)
+    {
+        // a char that ends a line comment (JFlex's "."), as ByteLexer checks it
+        int c = in.get(p) & 0xFF;
+        if(c == '\n' || c == '\r' || c == 0x0B || c == 0x0C)
+            return true;
+        if(c == 0xC2)
+            return p+1 < in.limit() && (in.get(p+1) & 0xFF) == 0x85;
+        if(c == 0xE2)
+            return p+2 < in.limit() && (in.get(p+1) & 0xFF) == 0x80 && ((in.get(p+2) & 0xFF) == 0xA8 || (in.get(p+2) & 0xFF) == 0xA9);
+        return false;
+    }
+
+    static int LastClose(ByteBuffer in, int end)
+    {
+        for(int i=end-2; i>=0; i--)
+            if(in.get(i) == '*' && in.get(i+1) == '%')
+                return i;
+        return -1;
+    }
+
+    static void Renumber(ParseTree.FuncDecl func, int[] map)
+    {
+        // the sym ids of a function, from its chunk's SymbolTable to the program's
+        func.sym = map[func.sym];
+        for(ParseTree.Param param : func.params)
+            param.sym = map[param.sym];
+        Renumber(func.localdecls, func.stmtlist, map);
+    }
+
+    static void Renumber(List<ParseTree.LocalDecl> localdecls, List<ParseTree.Stmt> stmtlist, int[] map)
+    {
+        for(ParseTree.LocalDecl localdecl : localdecls)
+            localdecl.sym = map[localdecl.sym];
+        for(ParseTree.Stmt stmt : stmtlist)
+            Renumber(stmt, map);
+    }
+
+    static void Renumber(ParseTree.Stmt stmt, int[] map)
+    {
+        if(stmt instanceof ParseTree.StmtAssign)
+        {
+            ParseTree.StmtAssign assign = (ParseTree.StmtAssign) stmt;
+            assign.sym = map[assign.sym];
+            Renumber(assign.expr, map);
+        }
+        else if(stmt instanceof ParseTree.StmtPrint)
+            Renumber(((ParseTree.StmtPrint) stmt).expr, map);
+        else if(stmt instanceof ParseTree.StmtReturn)
+            Renumber(((ParseTree.StmtReturn) stmt).expr, map);
+        else if(stmt instanceof ParseTree.StmtIf)
+        {
+            ParseTree.StmtIf stmtif = (ParseTree.StmtIf) stmt;
+            Renumber(stmtif.cond, map);
+            Renumber(stmtif.thenstmt, map);
+            Renumber(stmtif.elsestmt, map);
+        }
+        else if(stmt instanceof ParseTree.StmtWhile)
+        {
+            ParseTree.StmtWhile stmtwhile = (ParseTree.StmtWhile) stmt;
+            Renumber(stmtwhile.cond, map);
+            Renumber(stmtwhile.stmt, map);
+        }
+        else if(stmt instanceof ParseTree.StmtCompound)
+        {
+            ParseTree.StmtCompound compound = (ParseTree.StmtCompound) stmt;
+            Renumber(compound.localdecls, compound.stmtlist, map);
+        }
+    }
+
+    static void Renumber(ParseTree.Expr expr, int[] map)
+    {
+        for(ParseTree.Term term : expr.terms)
+        {
+            for(ParseTree.Factor factor : term.factors)
+            {
+                if(factor instanceof ParseTree.FactorParen)
+                    Renumber(((ParseTree.FactorParen) factor).expr, map);
+                else if(factor instanceof ParseTree.FactorNew)
+                    Renumber(((ParseTree.FactorNew) factor).expr, map);
+                else if(factor instanceof ParseTree.FactorIdentExt)
+                {
+                    ParseTree.FactorIdentExt ident = (ParseTree.FactorIdentExt) factor;
+                    ident.sym = map[ident.sym];
+                    if(ident.factor_ instanceof ParseTree.FactorIdent_ParenArgs)
+                        for(ParseTree.Arg arg : ((ParseTree.FactorIdent_ParenArgs) ident.factor_).args)
+                            Renumber(arg.expr, map);
+                    else if(ident.factor_ instanceof ParseTree.FactorIdent_BrackExpr)
+                        Renumber(((ParseTree.FactorIdent_BrackExpr) ident.factor_).expr, map);
+                }
+            }
+        }
+    }
+}
@@ -23,98 +23,181 @@
 /////////////////////////////////////////////////////////////////////////////////////////
 
 import java.util.List;
-import java.util.ArrayList;
+import java.io.IOException;
 
 public class ParseTree
 {
+    // The tree is printed in one walk, straight to an Appendable: a statement-level node writes its
+    // lines with Print(out, depth), prefixing each with depth levels of INDENT, and an expression-level
+    // node appends its text inline with Append(out). No intermediate strings or line arrays are built.
+    public static final String INDENT  = "    ";
+    public static final String NEWLINE = System.lineSeparator();
+
+    // The binary operators of Expr (EXPROP, RELOP) and Term (TERMOP), one byte each
+    public static final byte     OP_ADD = 0, OP_SUB = 1, OP_OR = 2;
+    public static final byte     OP_EQ  = 3, OP_NE  = 4, OP_LT = 5, OP_LE = 6, OP_GT = 7, OP_GE = 8;
+    public static final byte     OP_MUL = 9, OP_DIV = 10, OP_AND = 11;
+    public static final String[] OP_NAMES = { "+", "-", "or", "=", "<>", "<", "<=", ">", ">=", "*", "/", "and" };
+    public static final byte[]   NO_OPS   = new byte[0];
+    public static byte OpCode(String op)
+    {
+        switch(op)
+        {
+            case "+"  : return OP_ADD;
+            case "-"  : return OP_SUB;
+            case "or" : return OP_OR ;
+            case "="  : return OP_EQ ;
+            case "<>" : return OP_NE ;
+            case "<"  : return OP_LT ;
+            case "<=" : return OP_LE ;
+            case ">"  : return OP_GT ;
+            case ">=" : return OP_GE ;
+            case "*"  : return OP_MUL;
+            case "/"  : return OP_DIV;
+            case "and": return OP_AND;
+        }
+        throw new IllegalArgumentException("unknown operator " + op);
+    }
+
     public static abstract class Node
     {
-        abstract public String[] ToStringList() throws Exception; // This is used to print conde with indentation and comments
+        abstract public void Print(Appendable out, int depth) throws IOException; // This is used to print conde with indentation and comments
+        public String[] ToStringList() throws Exception
+        {
+            StringBuilder sb = new StringBuilder();
+            Print(sb, 0);
+            if(sb.length() == 0)
+                return new String[0];
+            return sb.toString().split(NEWLINE);
+        }
     }
     public static abstract class NodeString extends Node
     {
         abstract public String ToString();
-        public String[] ToStringList() throws Exception
+        public void Append(Appendable out) throws IOException
+        {
+            out.append(ToString());
+        }
+        public void Print(Appendable out, int depth) throws IOException
         {
-            return new String[] { ToString() };
+            Indent(out, depth);
+            Append(out);
+            out.append(NEWLINE);
         }
     }
+    public static String AppendToString(NodeString node)
+    {
+        StringBuilder sb = new StringBuilder();
+        try
+        {
+            node.Append(sb);
+        }
+        catch(IOException e)
+        {
+            throw new java.io.UncheckedIOException(e); // a StringBuilder does not throw
+        }
+        return sb.toString();
+    }
+    public static void Indent(Appendable out, int depth) throws IOException
+    {
+        for(int i=0; i<depth; i++)
+            out.append(INDENT);
+    }
     public static <T> String NodeListToString(List<? extends NodeString> nodes, String separator)
     {
-        String str = "";
+        StringBuilder sb = new StringBuilder();
+        try
+        {
+            AppendNodeList(sb, nodes, separator);
+        }
+        catch(IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+    public static void AppendNodeList(Appendable out, List<? extends NodeString> nodes, String separator) throws IOException
+    {
         for(int i=0; i<nodes.size(); i++)
         {
-            if(i == 0) str +=           nodes.get(i).ToString();
-            else       str += separator+nodes.get(i).ToString();
+            if(i != 0) out.append(separator);
+            nodes.get(i).Append(out);
         }
-        return str;
     }
 
     public static class Program extends Node
     {
         //public ParseTreeInfo.ProgramInfo info = new ParseTreeInfo.ProgramInfo();
         public List<FuncDecl> funcs;
+        public SymbolTable    symbols; // the names of the sym ids in the tree (idents are SymbolTable.Name(sym))
         public Program(List<FuncDecl> funcs)
         {
             this.funcs = funcs;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            ArrayList<String> strs = new ArrayList<String>();
-            for(var func : funcs)
+            for(int i=0; i<funcs.size(); i++)
             {
-                if(strs.size() != 0)
-                    strs.add("");
-                for(String str : func.ToStringList())
-                    strs.add(str);
+                if(i != 0)
+                    out.append(NEWLINE); // an empty line between functions
+                funcs.get(i).Print(out, depth);
             }
-            return strs.toArray(String[]::new);
         }
     }
     public static class FuncDecl extends Node
     {
         //public ParseTreeInfo.FuncDefnInfo info = new ParseTreeInfo.FuncDefnInfo();
         public String          ident     ;
+        public int             sym       ;
         public TypeSpec        rettype   ;
         public List<Param    > params    ;
         public List<LocalDecl> localdecls;
         public List<Stmt     > stmtlist  ;
-        public FuncDecl(String ident, TypeSpec rettype, List<Param> params, List<LocalDecl> localdecls, List<Stmt> stmtlist)
+        public int             start = -1;  // the span of the function in the source, from its type to its "}"
+        public int             end   = -1;  // (offsets as TokenBuffer.start); -1 if the engine does not record it
+        public FuncDecl(String ident, int sym, TypeSpec rettype, List<Param> params, List<LocalDecl> localdecls, List<Stmt> stmtlist)
         {
             this.ident      = ident     ;
+            this.sym        = sym       ;
             this.rettype    = rettype   ;
             this.params     = params    ;
             this.localdecls = localdecls;
             this.stmtlist   = stmtlist  ;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            String head = rettype.ToString() + " " + ident + "(" + NodeListToString(params,", ") + ")";
+            Indent(out, depth);
+            rettype.Append(out);
+            out.append(' ').append(ident).append('(');
+            AppendNodeList(out, params, ", ");
+            out.append(')').append(NEWLINE);
 
-            ArrayList<String> strs = new ArrayList<String>();
-            strs.add(head);
-            strs.add("{");
+            Indent(out, depth); out.append('{').append(NEWLINE);
             for(var localdecl : localdecls)
-                strs.add("    " + localdecl.ToString());
+                localdecl.Print(out, depth+1);
             for(var stmt : stmtlist)
-                for(String str : stmt.ToStringList())
-                    strs.add("    "+str);
-            strs.add("}");
-
-            return strs.toArray(String[]::new);
+                stmt.Print(out, depth+1);
+            Indent(out, depth); out.append('}').append(NEWLINE);
         }
     }
     public static class Param extends NodeString
     {
         //public ParseTreeInfo.ParamInfo info = new ParseTreeInfo.ParamInfo();
         public String   ident   ;
+        public int      sym     ;
         public TypeSpec typespec;
-        public Param(String ident, TypeSpec typespec)
+        public Param(String ident, int sym, TypeSpec typespec)
         {
             this.ident    = ident   ;
+            this.sym      = sym     ;
             this.typespec = typespec;
         }
-        public String ToString() { return typespec.ToString() + " " + ident; }
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
+        {
+            typespec.Append(out);
+            out.append(' ').append(ident);
+        }
     }
     public static class TypeSpec extends NodeString
     {
@@ -123,6 +206,7 @@ public class ParseTree
         public TypeSpec_ spec;
         public TypeSpec(PrimType type, TypeSpec_ spec) { this.type = type; this.spec = spec; }
         public String ToString() { return type.ToString()+spec.ToString(); }
+        public void Append(Appendable out) throws IOException { out.append(type.ToString()).append(spec.ToString()); }
     }
     public abstract static class TypeSpec_ extends NodeString
     {
@@ -151,13 +235,20 @@ public class ParseTree
     {
         //public ParseTreeInfo.LocalDeclInfo info = new ParseTreeInfo.LocalDeclInfo();
         public String   ident   ;
+        public int      sym     ;
         public TypeSpec typespec;
-        public LocalDecl(String ident, TypeSpec typespec)
+        public LocalDecl(String ident, int sym, TypeSpec typespec)
         {
             this.ident    = ident   ;
+            this.sym      = sym     ;
             this.typespec = typespec;
         }
-        public String[] ToStringList() throws Exception { return new String[] { ToString() }; }
+        public void Print(Appendable out, int depth) throws IOException
+        {
+            Indent(out, depth);
+            typespec.Append(out);
+            out.append(' ').append(ident).append(';').append(NEWLINE);
+        }
         public String ToString()
         {
             String str = typespec.ToString() + " " + ident + ";";
@@ -167,22 +258,31 @@ public class ParseTree
     public abstract static class Stmt extends Node
     {
         //public ParseTreeInfo.StmtStmtInfo info = new ParseTreeInfo.StmtStmtInfo();
-        abstract public String[] ToStringList() throws Exception;
+        abstract public void Print(Appendable out, int depth) throws IOException;
+        public void PrintNested(Appendable out, int depth) throws IOException
+        {
+            // the body of an if or a while: a compound statement keeps the depth of the
+            // if/while, so that its braces line up with it; any other statement is indented
+            Print(out, depth+1);
+        }
     }
     public static class StmtAssign extends Stmt
     {
         public String  ident;
+        public int     sym  ;
         public Expr    expr ;
-        public StmtAssign(String ident, Expr expr)
+        public StmtAssign(String ident, int sym, Expr expr)
         {
             this.ident = ident;
+            this.sym   = sym  ;
             this.expr  = expr ;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            String str = ident;
-            str  += " <- " + expr.ToString() + ";";
-            return new String[] { str };
+            Indent(out, depth);
+            out.append(ident).append(" <- ");
+            expr.Append(out);
+            out.append(';').append(NEWLINE);
         }
     }
     public static class StmtPrint extends Stmt
@@ -192,12 +292,12 @@ public class ParseTree
         {
             this.expr = expr;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            return new String[]
-                    {
-                            "print " + expr.ToString() + ";"
-                    };
+            Indent(out, depth);
+            out.append("print ");
+            expr.Append(out);
+            out.append(';').append(NEWLINE);
         }
     }
     public static class StmtReturn extends Stmt
@@ -207,12 +307,12 @@ public class ParseTree
         {
             this.expr = expr;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            return new String[]
-                    {
-                            "return " + expr.ToString() + ";"
-                    };
+            Indent(out, depth);
+            out.append("return ");
+            expr.Append(out);
+            out.append(';').append(NEWLINE);
         }
     }
     public static class StmtIf extends Stmt
@@ -226,22 +326,16 @@ public class ParseTree
             this.thenstmt  = thenstmt ;
             this.elsestmt  = elsestmt ;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            ArrayList<String> strs = new ArrayList<String>();
-            strs.add("if ( " + cond.ToString() + " )");
-            {
-                String indent = (thenstmt instanceof StmtCompound)? "" : "    ";
-                for(String str : thenstmt.ToStringList())
-                    strs.add(indent+str);
-            }
-            strs.add("else");
-            {
-                String indent = (elsestmt instanceof StmtCompound)? "" : "    ";
-                for(String str : elsestmt.ToStringList())
-                    strs.add(indent+str);
-            }
-            return strs.toArray(String[]::new);
+            Indent(out, depth);
+            out.append("if ( ");
+            cond.Append(out);
+            out.append(" )").append(NEWLINE);
+            thenstmt.PrintNested(out, depth);
+            Indent(out, depth);
+            out.append("else").append(NEWLINE);
+            elsestmt.PrintNested(out, depth);
         }
     }
     public static class StmtWhile extends Stmt
@@ -253,16 +347,13 @@ public class ParseTree
             this.cond  = cond ;
             this.stmt  = stmt ;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            ArrayList<String> strs = new ArrayList<String>();
-            strs.add("while ( " + cond.ToString() + " )");
-            {
-                String indent = (stmt instanceof StmtCompound)? "" : "    ";
-                for(String str : stmt.ToStringList())
-                    strs.add(indent+str);
-            }
-            return strs.toArray(String[]::new);
+            Indent(out, depth);
+            out.append("while ( ");
+            cond.Append(out);
+            out.append(" )").append(NEWLINE);
+            stmt.PrintNested(out, depth);
         }
     }
     public static class StmtCompound extends Stmt
@@ -274,17 +365,18 @@ public class ParseTree
             this.localdecls = localdecls;
             this.stmtlist   = stmtlist  ;
         }
-        public String[] ToStringList() throws Exception
+        public void Print(Appendable out, int depth) throws IOException
         {
-            ArrayList<String> strs = new ArrayList<String>();
-            strs.add("{");
+            Indent(out, depth); out.append('{').append(NEWLINE);
             for(LocalDecl localdecl : localdecls)
-                strs.add("    " + localdecl.ToString());
+                localdecl.Print(out, depth+1);
             for(Stmt stmt : stmtlist)
-                for(String str : stmt.ToStringList())
-                    strs.add("    "+str);
-            strs.add("}");
-            return strs.toArray(String[]::new);
+                stmt.Print(out, depth+1);
+            Indent(out, depth); out.append('}').append(NEWLINE);
+        }
+        public void PrintNested(Appendable out, int depth) throws IOException
+        {
+            Print(out, depth);
         }
     }
     public static class Arg extends NodeString
@@ -293,105 +385,49 @@ public class ParseTree
         public Expr expr;
         public Arg(Expr expr)    { this.expr = expr;       }
         public String ToString() { return expr.ToString(); }
+        public void Append(Appendable out) throws IOException { expr.Append(out); }
     }
     public static class Expr extends NodeString
     {
-        public Term  term ;
-        public Expr_ expr_;
-        public Expr(Term term, Expr_ expr_)
+        // expr -> term expr', with the right-nested expr' chain stored flat:
+        // terms[0] ops[0] terms[1] ops[1] ... terms[n], where ops[i] is an OP_ code
+        public Term[] terms;
+        public byte[] ops  ;
+        public Expr(Term[] terms, byte[] ops)
         {
-            this.term  = term ;
-            this.expr_ = expr_;
+            this.terms = terms;
+            this.ops   = ops  ;
         }
-        public String ToString()
-        {
-            String str = term.ToString();
-            if(expr_ != null) str += expr_.ToString();
-            return str;
-        }
-    }
-    public static class Expr_ extends NodeString
-    {
-        public String op   ;
-        public Term   term ;
-        public Expr_  expr_;
-        public Expr_()
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
         {
-            // for "expr_ -> eps"
-            this.op    = null;
-            this.term  = null;
-            this.expr_ = null;
-        }
-        public Expr_(String op, Term term, Expr_ expr_)
-        {
-            // for "expr_ -> EXPROP term expr_"
-            // for "expr_ -> RELOP term expr_"
-            this.op    = op   ;
-            this.term  = term ;
-            this.expr_ = expr_;
-        }
-        public String ToString()
-        {
-            if(op==null && term==null && expr_==null)
+            terms[0].Append(out);
+            for(int i=0; i<ops.length; i++)
             {
-                return "";
-            }
-            else
-            {
-                String opstr = " " + op + " ";
-                String str = opstr + term.ToString();
-                if(expr_ != null) str += expr_.ToString();
-                return str;
+                out.append(' ').append(OP_NAMES[ops[i]]).append(' ');
+                terms[i+1].Append(out);
             }
         }
     }
     public static class Term extends NodeString
     {
-        public Factor factor;
-        public Term_  term_ ;
-        public Term(Factor factor, Term_  term_)
+        // term -> factor term', with the right-nested term' chain stored flat:
+        // factors[0] ops[0] factors[1] ops[1] ... factors[n], where ops[i] is an OP_ code
+        public Factor[] factors;
+        public byte[]   ops    ;
+        public Term(Factor[] factors, byte[] ops)
         {
-            this.factor = factor;
-            this.term_  = term_ ;
+            this.factors = factors;
+            this.ops     = ops    ;
         }
-        public String ToString()
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
         {
-            String str = factor.ToString();
-            if(term_ != null) str += term_.ToString();
-            return str;
-        }
-    }
-    public static class Term_ extends NodeString
-    {
-        public String op;
-        public Factor factor;
-        public Term_  term_ ;
-        public Term_()
-        {
-            // for "term_ -> eps"
-            this.op     = null;
-            this.factor = null;
-            this.term_  = null;
-        }
-        public Term_(String op, Factor factor, Term_  term_)
-        {
-            // for "term_ -> TERMOP factor term_"
-            this.op     = op    ;
-            this.factor = factor;
-            this.term_  = term_ ;
-        }
-        public String ToString()
-        {
-            if(op==null && factor==null && term_==null)
-            {
-                return "";
-            }
-            else
+            factors[0].Append(out);
+            for(int i=0; i<ops.length; i++)
             {
-                String opstr = " " + op + " ";
-                String str = opstr + factor.ToString();
-                if(term_ != null) str += term_.ToString();
-                return str;
+                out.append(' ').append(OP_NAMES[ops[i]]).append(' ');
+                factors[i+1].Append(out);
             }
         }
     }
@@ -402,14 +438,26 @@ public class ParseTree
     {
         public Expr expr;
         public FactorParen(Expr expr) { this.expr = expr; }
-        public String ToString() { return "( " + expr.ToString() + " )"; }
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
+        {
+            out.append("( ");
+            expr.Append(out);
+            out.append(" )");
+        }
     }
     public static class FactorIdentExt extends Factor
     {
         public String  ident;
+        public int     sym;
         public Factor_ factor_;
-        public FactorIdentExt(String ident, Factor_ factor_) { this.ident = ident; this.factor_ = factor_; }
-        public String ToString() { return ident + factor_.ToString(); }
+        public FactorIdentExt(String ident, int sym, Factor_ factor_) { this.ident = ident; this.sym = sym; this.factor_ = factor_; }
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
+        {
+            out.append(ident);
+            factor_.Append(out);
+        }
     }
     public static class FactorNumLit extends Factor
     {
@@ -433,10 +481,12 @@ public class ParseTree
         public PrimType type;
         public Expr     expr;
         public FactorNew(PrimType type, Expr expr) { this.type = type; this.expr = expr; }
-        public String ToString()
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
         {
-            String str = "new " + type.ToString() + " [ " + expr.ToString() + " ]";
-            return str;
+            out.append("new ").append(type.ToString()).append(" [ ");
+            expr.Append(out);
+            out.append(" ]");
         }
     }
     public static abstract class Factor_ extends NodeString
@@ -446,20 +496,24 @@ public class ParseTree
     {
         public List<Arg> args ;
         public FactorIdent_ParenArgs(List<Arg> args) { this.args = args; }
-        public String ToString()
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
         {
-            String str = "( " + NodeListToString(args,", ") + " )";
-            return str;
+            out.append("( ");
+            AppendNodeList(out, args, ", ");
+            out.append(" )");
         }
     }
     public static class FactorIdent_BrackExpr extends Factor_
     {
         public Expr      expr;
         public FactorIdent_BrackExpr(Expr expr) { this.expr = expr; }
-        public String ToString()
+        public String ToString() { return AppendToString(this); }
+        public void Append(Appendable out) throws IOException
         {
-            String str = "[ " + expr.ToString() + " ]";
-            return str;
+            out.append("[ ");
+            expr.Append(out);
+            out.append(" ]");
         }
     }
     public static class FactorIdent_DotSize extends Factor_
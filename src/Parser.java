@@ -30,102 +30,275 @@ public class Parser {
     public static final int BOOL_LIT = 33;
     public static final int IDENT = 34;
 
-    public class Token
+    TokenBuffer _tokens;        // the current block of tokens, filled by the lexer
+    int         _pos;           // index of the current token in _tokens
+    Scanner     _lexer;         // Lexer (chars) or ByteLexer (UTF-8 bytes)
+    Object[]    _chain    = new Object[64];  // operands of the expr/term chains being parsed (see PushChain)
+    byte[]      _chainops = new byte[64];    // the operator before each operand
+    int         _chainlen;
+    Compiler _compiler;
+    public ParseTree.Program _parsetree;
+    public Arena             _arena;        // instead of _parsetree, with ENGINE_ARENA
+    public Diagnostic        _error;        // the first syntax error
+    public List<Diagnostic>  _errors    = new ArrayList<Diagnostic>(); // all reported syntax errors, in order
+    public int               _maxerrors = 1;  // errors to report before the parse gives up (see Recover)
+    SyntaxError              _lasterror;    // the error Recover() gave up on, already in _errors
+    long                     _consumed;     // tokens consumed so far
+    long                     _lexed;        // the end of the last token lexed (its offset, as TokenBuffer.start)
+    public String            _file;         // the name of the input, for the Events of its parse
+    int                      _prevtype;     // the type of the token before the current one
+    int[]                    _stack    = new int[64];   // of program_table(), kept for the next parse
+
+    public static final int ENGINE_RECURSIVE  = 0;  // one method per nonterminal (program() and below)
+    public static final int ENGINE_TABLE      = 1;  // LL1Table with an explicit stack (program_table())
+    public static final int ENGINE_ARENA      = 2;  // program_table() building an Arena instead of a ParseTree
+    public static final int ENGINE_RECOGNIZER = 3;  // program_table() building nothing: pass/fail and the first error only
+    public int               _engine = ENGINE_RECURSIVE;
+
+    public Parser(java.io.Reader r, Compiler compiler) throws Exception
+    {
+        this(ReadAll(r), compiler);
+    }
+    private Parser(java.nio.CharBuffer source, Compiler compiler) throws Exception
+    {
+        this(source.array(), source.limit(), compiler);
+    }
+    public Parser(char[] source, int length, Compiler compiler) throws Exception
+    {
+        this(new Lexer(source, length), compiler);
+    }
+    public Parser(Scanner lexer, Compiler compiler) throws Exception
+    {
+        this(lexer, compiler, null);
+    }
+    public Parser(Scanner lexer, Compiler compiler, String file) throws Exception
     {
-        public int       type;
-        public ParserVal attr;
+        this(lexer, compiler, file, ENGINE_RECURSIVE);
+    }
+    public Parser(Scanner lexer, Compiler compiler, String file, int engine) throws Exception
+    {
+        _tokens    = new TokenBuffer();
+        Reset(lexer, compiler, file, engine);
+    }
 
-        public Token(int type, ParserVal attr) {
-            this.type   = type;
-            this.attr   = attr;
-        }
+    public void Reset(Scanner lexer, Compiler compiler, String file) throws Exception
+    {
+        Reset(lexer, compiler, file, ENGINE_RECURSIVE);
     }
 
-    public ParserVal yylval;
-    Token _token;
-    Lexer _lexer;
-    Compiler _compiler;
-    public ParseTree.Program _parsetree;
-    public String            _errormsg;
-    public Parser(java.io.Reader r, Compiler compiler) throws Exception
+    public void Reset(Scanner lexer, Compiler compiler, String file, int engine) throws Exception
     {
+        // starts the parse of a new input (a lexer reset onto it), with none of the state of the
+        // last one; the token block and the chain arrays are reused (see ParserPool). The engine
+        // is known before the first block is lexed, so a recognizer's identifiers are not interned
         _compiler  = compiler;
+        _file      = file;
         _parsetree = null;
-        _errormsg  = null;
-        _lexer     = new Lexer(r, this);
-        _token     = null;                  // _token is initially null
-        Advance();                          // make _token to point the first token by calling Advance()
+        _arena     = null;
+        _error     = null;
+        _errors.clear();
+        _maxerrors = 1;
+        _lasterror = null;
+        _consumed  = 0;
+        _lexed     = 0;
+        _prevtype  = 0;
+        Arrays.fill(_chain, 0, _chainlen, null);
+        _chainlen  = 0;
+        _engine    = engine;
+        _tokens.intern = (engine != ENGINE_RECOGNIZER);
+        _lexer     = lexer;
+        Fill();                             // lex the first block of tokens
+        _pos       = 0;                     // _pos points the first token
+        Reached();
+    }
+
+    public static java.nio.CharBuffer ReadAll(java.io.Reader r) throws java.io.IOException {
+        // reads the whole input into one array (array() .. limit()), which the lexer then retains
+        char[] buffer = new char[8192];
+        int    length = 0;
+        while (true) {
+            if (length == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            int n = r.read(buffer, length, buffer.length - length);
+            if (n < 0)
+                return java.nio.CharBuffer.wrap(buffer, 0, length);
+            length += n;
+        }
     }
 
     public void Advance() throws Exception {
-        int token_type = _lexer.yylex();                                    // get next/first token from lexer
-        if (token_type == 0) _token = new Token(ENDMARKER, null);     // if  0 => token is endmarker
-        else if (token_type == -1) _token = new Token(LEXERROR, yylval);   // if -1 => there is a lex error
-        else _token = new Token(token_type, yylval);   // otherwise, set up _token
+        _prevtype = _tokens.type[_pos];
+        _consumed++;
+        if (++_pos >= _tokens.count) {      // the block is used up:
+            Fill();                         // lex the next block into the same arrays
+            _pos = 0;
+        }
+        Reached();
+    }
+
+    void Reached() {
+        // the parser has reached the token at _pos: an unexpected char is reported now, as by a
+        // scanner asked for one token at a time, not when it was lexed up to a block ahead (and
+        // not at all if the parse ends before it)
+        if (_tokens.type[_pos] == LEXERROR && _tokens.report)
+            System.err.println(_tokens.Unexpected(_pos));
+    }
+
+    void Fill() throws Exception {
+        // lexes the next block; _lexed is kept for the size of a parse the Compiler reports
+        Events.Lex event = null;
+        if (Events.Recording()) {
+            event = new Events.Lex();
+            event.begin();
+        }
+        _lexer.Fill(_tokens);
+        int last = _tokens.count - 1;
+        int from = (last >= 0) ? _tokens.start[0] : (int) _lexed;
+        if (last >= 0)
+            _lexed = _tokens.start[last] + _tokens.length[last];
+        if (event != null && event.shouldCommit()) {
+            event.file   = _file;
+            event.tokens = _tokens.count;
+            event.bytes  = (int) _lexed - from;
+            event.commit();
+        }
     }
 
     public String Match(int token_type) throws Exception {
-        boolean match = (token_type == _token.type);
-        String lexeme = "";
-        if (_token.attr != null) lexeme = (String) _token.attr.obj;
-
-        if (!match) { // if token does not match
-            String expected = tokenString(token_type);
-            String found = tokenString(_token.type);
-            if (_token.attr != null)
-                throw new Exception("\"" + expected + "\" is expected instead of \"" + lexeme + "\" at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
-            else
-                throw new Exception("\"" + expected + "\" is expected instead of \"" + found + "\" at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
-        }  // throw exception with the line col and token/lexeme (indicating parsing error in this assignment)
-
-        if (_token.type != ENDMARKER)    // if token is not endmarker,
+        if (token_type != _tokens.type[_pos]) // if token does not match
+            throw new SyntaxError(Diagnostic.ExpectedToken(_tokens, _pos, token_type));
+            // throw the line col and token (indicating parsing error in this assignment), formatted only when printed
+
+        int    type   = _tokens.type[_pos];
+        String lexeme = _tokens.Text(_pos); // copied only for identifiers and numbers, null for keywords and punctuation
+
+        if (type != ENDMARKER)          // if token is not endmarker,
             Advance();                  // make token point next token in input by calling Advance()
 
         return lexeme;
     }
 
-    private String tokenString(int token_type) {
-        return switch (token_type) {
-            case NUM -> "num";
-            case BOOL -> "bool";
-            case BEGIN -> "{";
-            case END -> "}";
-            case LPAREN -> "(";
-            case RPAREN -> ")";
-            case LBRACKET -> "[";
-            case RBRACKET -> "]";
-            case SEMI -> ";";
-            case COMMA -> ",";
-            case DOT -> ".";
-            case ASSIGN -> "<-";
-            case RELOP -> "relational operator";
-            case EXPROP -> "expression operator";
-            case TERMOP -> "term operator";
-            case IF -> "if";
-            case ELSE -> "else";
-            case WHILE -> "while";
-            case RETURN -> "return";
-            case PRINT -> "print";
-            case NEW -> "new";
-            case SIZE -> "size";
-            case NUM_LIT -> "number literal";
-            case BOOL_LIT -> "boolean literal";
-            case IDENT -> "identifier";
-            case ENDMARKER -> "end of file";
-            default -> "unknown token";
-        };
-    }
-
     public int yyparse() throws Exception {
         try {
-            _parsetree = program();
-            return 0;
+            switch (_engine) {
+                case ENGINE_TABLE     : _parsetree = (ParseTree.Program) program_table(new LL1Table.TreeActions());     break;
+                case ENGINE_ARENA     : _arena     = (Arena)             program_table(new Arena.Builder());            break;
+                case ENGINE_RECOGNIZER:                                  program_table(LL1Table.Recognizer.INSTANCE);   break;
+                default               : _parsetree = program();                                                          break;
+            }
+        }
+        catch(SyntaxError e)
+        {
+            if (e != _lasterror) {
+                _errors.add(e.diagnostic);
+                Commit(Events.Recording() ? new Events.SyntaxError() : null, e.diagnostic, false, 0);
+            }
         }
         catch(Exception e)
         {
-            _errormsg = e.getMessage();
+            _errors.add(Diagnostic.Other(e.getMessage()));  // not from the grammar (e.g. reading the input)
+        }
+        finally
+        {
+            _lexer.Close();             // no more tokens are needed (a TokenPipeline stops its thread)
+        }
+        if (!_errors.isEmpty()) {
+            // the errors recovered from leave an incomplete tree, which is dropped
+            _error     = _errors.get(0);
+            _parsetree = null;
+            _arena     = null;
             return -1;
         }
+        if (_parsetree != null)
+            _parsetree.symbols = _tokens.symbols;
+        return 0;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////////////////
+    // Panic-mode error recovery, so that one run reports up to _maxerrors syntax errors. The loops of
+    // decl_list', local_decls' and stmt_list' catch the error of an element (or of the list itself),
+    // record it and skip to a synchronizing token, then go on with the next element:
+    //   - in local_decls' and stmt_list' : past the ";" that ends the statement, to the keyword that
+    //                                      starts the next one, or to the "}" that ends the block
+    //                                      (a nested block is skipped as a whole)
+    //   - in decl_list'                  : to the next function start, a type after a "}"
+    // Each recovery records an error and consumes at least one token or ends its list, so the parse
+    // always terminates. An error at the end of the input, or the _maxerrors-th error, ends the parse.
+    // Only the recursive-descent engine recovers; the table-driven engines stop at the first error.
+    //////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    void Recover(SyntaxError e, long before, boolean function) throws Exception {
+        if (e == _lasterror)
+            throw e;                        // given up on by an inner list: pass it on
+        _errors.add(e.diagnostic);
+        _lasterror = e;
+        Events.SyntaxError event = null;
+        if (Events.Recording()) {
+            event = new Events.SyntaxError();
+            event.begin();
+        }
+        long skipped = _consumed;
+        if (_errors.size() >= _maxerrors || _tokens.type[_pos] == ENDMARKER) {
+            Commit(event, e.diagnostic, false, 0);
+            throw e;
+        }
+        // statements never nest in expressions, so no expression is left on the chain
+        Arrays.fill(_chain, 0, _chainlen, null);
+        _chainlen = 0;
+        if (function) SkipToFunction();
+        else          SkipToStatement();
+        if (_consumed == before && _tokens.type[_pos] != END && _tokens.type[_pos] != ENDMARKER)
+            Advance();                      // no token was consumed: skip the one that failed
+        Commit(event, e.diagnostic, true, _consumed - skipped);
+    }
+
+    void Commit(Events.SyntaxError event, Diagnostic error, boolean recovered, long skipped) {
+        // the message is only formatted for a recording that has the event enabled
+        if (event != null && event.shouldCommit()) {
+            event.file      = _file;
+            event.line      = error.line;
+            event.column    = error.column;
+            event.message   = error.Message();
+            event.recovered = recovered;
+            event.skipped   = skipped;
+            event.commit();
+        }
+    }
+
+    void SkipToStatement() throws Exception {
+        int depth = 0;                      // the blocks opened while skipping
+        while (true) {
+            switch (_tokens.type[_pos]) {
+                case ENDMARKER:
+                    return;
+                case SEMI:
+                    if (depth == 0) { Advance(); return; }
+                    break;
+                case IF:
+                case WHILE:
+                case PRINT:
+                case RETURN:
+                    if (depth == 0) return;           // the start of the next statement (after a missing ";")
+                    break;
+                case BEGIN:
+                    depth++;
+                    break;
+                case END:
+                    if (depth == 0) return;           // the end of the enclosing block
+                    if (--depth == 0) { Advance(); return; } // a skipped block ends the statement
+                    break;
+            }
+            Advance();
+        }
+    }
+
+    void SkipToFunction() throws Exception {
+        while (true) {
+            int type = _tokens.type[_pos];
+            if (type == ENDMARKER || ((type == NUM || type == BOOL) && _prevtype == END))
+                return;
+            Advance();
+        }
     }
     //////////////////////////////////////////////////////////////////////////////////////////////////////
     //      program -> decl_list
@@ -169,9 +342,49 @@ public class Parser {
     //               | eps
     //////////////////////////////////////////////////////////////////////////////////////////////////////
 
+    public Object program_table(LL1Table.Actions actions) throws Exception {
+        // table-driven alternative to program(): the same LL(1) decisions, looked up in LL1Table,
+        // with an explicit stack of symbols instead of the call stack, so there is no depth limit.
+        // Actions below each expanded right-hand side build the result: the same ParseTree nodes
+        // (LL1Table.TreeActions), an Arena (Arena.Builder) or nothing (LL1Table.Recognizer).
+        // A terminal is matched as by Match(), but its text is not copied: the actions take what
+        // they need from the buffer, so a parse that builds nothing allocates nothing per token.
+        // The stack only grows with the nesting of the input, and is kept by the parser for the
+        // next parse (see ParserPool), so a recognizer allocates nothing but its Diagnostic.
+        int[] stack = _stack;
+        int   top   = 0;
+        stack[top++] = LL1Table.PROGRAM;
+        while(top > 0) {
+            int sym = stack[--top];
+            if(sym < LL1Table.NONTERMINAL) {
+                if (_tokens.type[_pos] != sym)
+                    throw new SyntaxError(Diagnostic.ExpectedToken(_tokens, _pos, sym));
+                actions.Shift(_tokens, _pos);       // before Advance() moves on (and may refill _tokens)
+                if (sym != ENDMARKER)
+                    Advance();
+            }
+            else if(sym < LL1Table.ACTION) {
+                int prod = LL1Table.Predict(sym, _tokens.type[_pos]);
+                if(prod < 0)
+                    throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, sym));
+                int start = LL1Table.RHS_START[prod];
+                int len   = LL1Table.RHS_LENGTH[prod];
+                if(top + len + 1 > stack.length)
+                    stack = _stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + len + 1));
+                stack[top++] = LL1Table.ACTION + prod;
+                for(int i=len-1; i>=0; i--)
+                    stack[top++] = LL1Table.RHS[start + i];
+            }
+            else {
+                actions.Reduce(sym - LL1Table.ACTION);
+            }
+        }
+        return actions.Result();
+    }
+
     public ParseTree.Program program() throws Exception {
         //      program -> decl_list
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
             case ENDMARKER:
@@ -179,41 +392,60 @@ public class Parser {
                 String v1 = Match(ENDMARKER);
                 return new ParseTree.Program(funcs);
         }
-        throw new Exception("No matching production in program at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.PROGRAM));
     }
 
     public List<ParseTree.FuncDecl> decl_list() throws Exception {
         //    decl_list -> decl_list'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
             case ENDMARKER:
                 return decl_list_();
         }
-        throw new Exception("No matching production in decl_list at " + _lexer.lineno + ":" + _lexer.tokenColumn);
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.DECL_LIST));
     }
 
     public List<ParseTree.FuncDecl> decl_list_() throws Exception {
         //   decl_list' -> fun_decl decl_list'  |  eps
-        switch(_token.type) {
-            case NUM:
-            case BOOL:
-                ParseTree.FuncDecl       v1 = fun_decl();
-                List<ParseTree.FuncDecl> v2 = decl_list_();
-                v2.add(0, v1);
-                return v2;
-            case ENDMARKER:
-                return new ArrayList<ParseTree.FuncDecl>();
+        // the right recursion is unrolled into a loop that appends each fun_decl in order;
+        // an empty list is the shared immutable List.of() (also in the other list productions)
+        List<ParseTree.FuncDecl> funcs = null;
+        while(true) {
+            long before = _consumed;
+            try {
+                switch(_tokens.type[_pos]) {
+                    case NUM:
+                    case BOOL:
+                        if(funcs == null) funcs = new ArrayList<ParseTree.FuncDecl>();
+                        funcs.add(fun_decl());
+                        continue;
+                    case ENDMARKER:
+                        return (funcs != null) ? funcs : List.of();
+                }
+                throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.DECL_LIST_));
+            }
+            catch(SyntaxError e) {
+                Recover(e, before, true);
+            }
         }
-        throw new Exception("No matching production in decl_list' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
     }
 
     public ParseTree.FuncDecl fun_decl() throws Exception {
         //     fun_decl -> type_spec IDENT LPAREN params RPAREN BEGIN local_decls stmt_list END
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
+                Events.Function           event = null;
+                if (Events.Recording()) {
+                    event = new Events.Function();
+                    event.begin();
+                }
+                long                      first = _consumed;
+                int                       line  = _tokens.line[_pos];
+                int                       start = _tokens.start[_pos];
                 ParseTree.TypeSpec        v01 = type_spec();
+                int                       sym = _tokens.sym[_pos]; // the symbol id of the IDENT matched next
                 String                    v02 = Match(IDENT);
                 String                    v03 = Match(LPAREN);
                 List<ParseTree.Param>     v04 = params();
@@ -221,80 +453,93 @@ public class Parser {
                 String                    v06 = Match(BEGIN);
                 List<ParseTree.LocalDecl> v07 = local_decls();
                 List<ParseTree.Stmt>      v08 = stmt_list();
+                int                       end = _tokens.start[_pos] + _tokens.length[_pos];
                 String                    v09 = Match(END);
-                return new ParseTree.FuncDecl(v02, v01, v04, v07, v08);
+                ParseTree.FuncDecl        func = new ParseTree.FuncDecl(v02, sym, v01, v04, v07, v08);
+                func.start = start;         // the span lets Incremental find the functions an edit touches
+                func.end   = end;
+                if (event != null && event.shouldCommit()) {
+                    event.file   = _file;
+                    event.name   = v02;
+                    event.line   = line;
+                    event.tokens = _consumed - first;
+                    event.nodes  = Events.Nodes(func);
+                    event.commit();
+                }
+                return func;
         }
-        throw new Exception("No matching production in fun_decl at " + _lexer.lineno + ":" + _lexer.tokenColumn);
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.FUN_DECL));
     }
 
     public List<ParseTree.Param> params() throws Exception {
         // params -> param_list | eps
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
                 return param_list();
             case RPAREN:
-                return new ArrayList<ParseTree.Param>();
+                return List.of();
         }
-        throw new Exception("No matching production in params at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.PARAMS));
     }
 
     public List<ParseTree.Param> param_list() throws Exception {
         // param_list -> param param_list'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
-                ParseTree.Param v1 = param();
-                List<ParseTree.Param> v2 = param_list_();
-                v2.add(0, v1);
-                return v2;
+                List<ParseTree.Param> v1 = new ArrayList<ParseTree.Param>();
+                v1.add(param());
+                return param_list_(v1);
         }
-        throw new Exception("No matching production in param_list at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.PARAM_LIST));
     }
 
-    public List<ParseTree.Param> param_list_() throws Exception {
+    public List<ParseTree.Param> param_list_(List<ParseTree.Param> params) throws Exception {
         // param_list' -> COMMA param param_list' | eps
         // p.s : I gave up naming with v1 and v2 and so on in some functions
-        switch(_token.type) {
-            case COMMA:
-                String com = Match(COMMA);
-                ParseTree.Param p = param();
-                List<ParseTree.Param> rest = param_list_();
-                rest.add(0, p);
-                return rest;
-            case RPAREN:
-                return new ArrayList<ParseTree.Param>();
+        // the params are appended to the list started by param_list
+        while(true) {
+            switch(_tokens.type[_pos]) {
+                case COMMA:
+                    String com = Match(COMMA);
+                    params.add(param());
+                    continue;
+                case RPAREN:
+                    return params;
+            }
+            throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.PARAM_LIST_));
         }
-        throw new Exception("No matching production in param_list' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
     }
 
     public ParseTree.Param param() throws Exception {
         // param -> type_spec IDENT
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
                 ParseTree.TypeSpec ts = type_spec();
+                int    sym = _tokens.sym[_pos];
                 String id = Match(IDENT);
-                return new ParseTree.Param(id, ts);
+                return new ParseTree.Param(id, sym, ts);
         }
-        throw new Exception("No matching production in param at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.PARAM));
     }
 
     public ParseTree.TypeSpec type_spec() throws Exception {
         //    type_spec -> prim_type type_spec'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
                 ParseTree.PrimType pt = prim_type();
                 ParseTree.TypeSpec_ ts_ = type_spec_();
                 return new ParseTree.TypeSpec(pt, ts_);
         }
-        throw new Exception("No matching production in type_spec at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.TYPE_SPEC));
     }
 
     public ParseTree.TypeSpec_ type_spec_() throws Exception {
         // type_spec' -> LBRACKET RBRACKET | eps
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case LBRACKET:
                 String v1 = Match(LBRACKET);
                 String v2 = Match(RBRACKET);
@@ -302,12 +547,12 @@ public class Parser {
             case IDENT:
                 return new ParseTree.TypeSpec_Value();
         }
-        throw new Exception("No matching production in type_spec' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.TYPE_SPEC_));
     }
 
     public ParseTree.PrimType prim_type() throws Exception {
         //    prim_type -> NUM | BOOL
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case BOOL:
                 String v1 = Match(BOOL);
                 return new ParseTree.PrimTypeBool();
@@ -315,12 +560,12 @@ public class Parser {
                 String v2 = Match(NUM);
                 return new ParseTree.PrimTypeNum();
         }
-        throw new Exception("No matching production in prim_type at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.PRIM_TYPE));
     }
 
     public List<ParseTree.LocalDecl> local_decls() throws Exception {
         //  local_decls -> local_decls'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case BEGIN:
             case END:
             case RETURN:
@@ -332,46 +577,55 @@ public class Parser {
             case IDENT:
                 return local_decls_();
         }
-        throw new Exception("No matching production in local_decls at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.LOCAL_DECLS));
     }
 
     public List<ParseTree.LocalDecl> local_decls_() throws Exception {
         // local_decls' -> local_decl local_decls' | eps
-        switch(_token.type) {
-            case NUM:
-            case BOOL:
-                ParseTree.LocalDecl ld = local_decl();
-                List<ParseTree.LocalDecl> rest = local_decls_();
-                rest.add(0, ld);
-                return rest;
-            case BEGIN:
-            case END:
-            case RETURN:
-            case PRINT:
-            case IF:
-            case WHILE:
-            case IDENT:
-                return new ArrayList<ParseTree.LocalDecl>();
+        List<ParseTree.LocalDecl> decls = null;
+        while(true) {
+            long before = _consumed;
+            try {
+                switch(_tokens.type[_pos]) {
+                    case NUM:
+                    case BOOL:
+                        if(decls == null) decls = new ArrayList<ParseTree.LocalDecl>();
+                        decls.add(local_decl());
+                        continue;
+                    case BEGIN:
+                    case END:
+                    case RETURN:
+                    case PRINT:
+                    case IF:
+                    case WHILE:
+                    case IDENT:
+                        return (decls != null) ? decls : List.of();
+                }
+                throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.LOCAL_DECLS_));
+            }
+            catch(SyntaxError e) {
+                Recover(e, before, false);
+            }
         }
-        throw new Exception("No matching production in local_decls' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
     }
 
     public ParseTree.LocalDecl local_decl() throws Exception {
         //   local_decl -> type_spec IDENT SEMI
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case NUM:
             case BOOL:
                 ParseTree.TypeSpec ts = type_spec();
+                int    sym = _tokens.sym[_pos];
                 String id = Match(IDENT);
                 String semi = Match(SEMI);
-                return new ParseTree.LocalDecl(id, ts);
+                return new ParseTree.LocalDecl(id, sym, ts);
         }
-        throw new Exception("No matching production in local_decl at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.LOCAL_DECL));
     }
 
     public List<ParseTree.Stmt> stmt_list() throws Exception {
         //    stmt_list -> stmt_list'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case BEGIN:
             case END:
             case RETURN:
@@ -381,31 +635,39 @@ public class Parser {
             case IDENT:
                 return stmt_list_();
         }
-        throw new Exception("error");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.STMT_LIST));
     }
 
     public List<ParseTree.Stmt> stmt_list_() throws Exception {
         //   stmt_list' -> stmt stmt_list' | eps
-        switch(_token.type) {
-            case BEGIN:
-            case RETURN:
-            case PRINT:
-            case IF:
-            case WHILE:
-            case IDENT:
-                ParseTree.Stmt s = stmt();
-                List<ParseTree.Stmt> rest = stmt_list_();
-                rest.add(0, s);
-                return rest;
-            case END:
-                return new ArrayList<ParseTree.Stmt>();
+        List<ParseTree.Stmt> stmts = null;
+        while(true) {
+            long before = _consumed;
+            try {
+                switch(_tokens.type[_pos]) {
+                    case BEGIN:
+                    case RETURN:
+                    case PRINT:
+                    case IF:
+                    case WHILE:
+                    case IDENT:
+                        if(stmts == null) stmts = new ArrayList<ParseTree.Stmt>();
+                        stmts.add(stmt());
+                        continue;
+                    case END:
+                        return (stmts != null) ? stmts : List.of();
+                }
+                throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.STMT_LIST_));
+            }
+            catch(SyntaxError e) {
+                Recover(e, before, false);
+            }
         }
-        throw new Exception("No matching production in stmt_list' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
     }
 
     public ParseTree.Stmt stmt() throws Exception {
         // stmt -> assign_stmt | print_stmt | return_stmt | if_stmt | while_stmt | compound_stmt
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case IDENT:
                 return assign_stmt();
             case BEGIN:
@@ -419,16 +681,17 @@ public class Parser {
             case WHILE:
                 return while_stmt();
         }
-        throw new Exception("No matching production in stmt at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.STMT));
     }
 
     public ParseTree.StmtAssign assign_stmt() throws Exception {
         //  assign_stmt -> IDENT ASSIGN expr SEMI
+        int    sym = _tokens.sym[_pos];
         String id = Match(IDENT);
         String as = Match(ASSIGN);
         ParseTree.Expr e = expr();
         String semi = Match(SEMI);
-        return new ParseTree.StmtAssign(id, e);
+        return new ParseTree.StmtAssign(id, sym, e);
     }
 
     public ParseTree.StmtPrint print_stmt() throws Exception {
@@ -480,7 +743,7 @@ public class Parser {
 
     public List<ParseTree.Arg> args() throws Exception {
         //         args -> arg_list | eps
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case LPAREN:
             case NEW:
             case BOOL_LIT:
@@ -488,102 +751,132 @@ public class Parser {
             case IDENT:
                 return arg_list();
             case RPAREN:
-                return new ArrayList<ParseTree.Arg>();
+                return List.of();
         }
-        throw new Exception("No matching production in args at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.ARGS));
     }
 
     public List<ParseTree.Arg> arg_list() throws Exception {
         //     arg_list -> expr arg_list'
-        ParseTree.Arg a = new ParseTree.Arg(expr());
-        List<ParseTree.Arg> rest = arg_list_();
-        rest.add(0, a);
-        return rest;
+        List<ParseTree.Arg> args = new ArrayList<ParseTree.Arg>();
+        args.add(new ParseTree.Arg(expr()));
+        return arg_list_(args);
     }
 
-    public List<ParseTree.Arg> arg_list_() throws Exception {
+    public List<ParseTree.Arg> arg_list_(List<ParseTree.Arg> args) throws Exception {
         //    arg_list' -> COMMA expr arg_list' | eps
-        switch (_token.type) {
-            case COMMA:
-                String cm = Match(COMMA);
-                ParseTree.Arg a = new ParseTree.Arg(expr());
-                List<ParseTree.Arg> rest = arg_list_();
-                rest.add(0, a);
-                return rest;
-            case RPAREN:
-                return new ArrayList<ParseTree.Arg>();
+        // the args are appended to the list started by arg_list
+        while(true) {
+            switch (_tokens.type[_pos]) {
+                case COMMA:
+                    String cm = Match(COMMA);
+                    args.add(new ParseTree.Arg(expr()));
+                    continue;
+                case RPAREN:
+                    return args;
+            }
+            throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.ARG_LIST_));
         }
-        throw new Exception("No matching production in arg_list' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
     }
 
     public ParseTree.Expr expr() throws Exception {
         //         expr -> term expr'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case LPAREN:
             case NEW:
             case BOOL_LIT:
             case NUM_LIT:
             case IDENT:
-                ParseTree.Term t = term();
-                ParseTree.Expr_ e_ = expr_();
-                return new ParseTree.Expr(t, e_);
+                int base = _chainlen;
+                PushChain(term(), (byte) 0);
+                expr_();
+                ParseTree.Term[] terms = new ParseTree.Term[_chainlen - base];
+                return new ParseTree.Expr(terms, PopChain(base, terms));
         }
-        throw new Exception("No matching production in expr at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.EXPR));
     }
 
-    public ParseTree.Expr_ expr_() throws Exception {
+    public void expr_() throws Exception {
         //        expr' -> EXPROP term expr' | RELOP term expr' | eps
-        switch(_token.type) {
-            case EXPROP:
-            case RELOP:
-                String op = Match(_token.type); // EXPROP or RELOP accordingly
-                ParseTree.Term t = term();
-                ParseTree.Expr_ eRest = expr_();
-                return new ParseTree.Expr_(op, t, eRest);
-
-            case RPAREN:
-            case RBRACKET:
-            case SEMI:
-            case COMMA:
-                return new ParseTree.Expr_();
+        // the right recursion is a loop that pushes each operator and term on the chain
+        while(true) {
+            switch(_tokens.type[_pos]) {
+                case EXPROP:
+                case RELOP:
+                    String op = Match(_tokens.type[_pos]); // EXPROP or RELOP accordingly
+                    PushChain(term(), ParseTree.OpCode(op));
+                    continue;
+
+                case RPAREN:
+                case RBRACKET:
+                case SEMI:
+                case COMMA:
+                    return;
+            }
+            throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.EXPR_));
         }
-        throw new Exception("No matching production in expr' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
     }
 
     public ParseTree.Term term() throws Exception {
         //         term -> factor term'
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case LPAREN:
             case NEW:
             case BOOL_LIT:
             case NUM_LIT:
             case IDENT:
-                ParseTree.Factor f = factor();
-                ParseTree.Term_ t_ = term_();
-                return new ParseTree.Term(f,t_);
+                int base = _chainlen;
+                PushChain(factor(), (byte) 0);
+                term_();
+                ParseTree.Factor[] factors = new ParseTree.Factor[_chainlen - base];
+                return new ParseTree.Term(factors, PopChain(base, factors));
         }
-        throw new Exception("No matching production in term at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.TERM));
     }
 
-    public ParseTree.Term_ term_() throws Exception {
+    public void term_() throws Exception {
         //        term' -> TERMOP factor term' | eps
-        switch(_token.type) {
-            case TERMOP:
-                String op = Match(TERMOP);
-                ParseTree.Factor f = factor();
-                ParseTree.Term_ rest = term_();
-                return new ParseTree.Term_(op, f, rest);
+        // the right recursion is a loop that pushes each operator and factor on the chain
+        while(true) {
+            switch(_tokens.type[_pos]) {
+                case TERMOP:
+                    String op = Match(TERMOP);
+                    PushChain(factor(), ParseTree.OpCode(op));
+                    continue;
+
+                case RPAREN:
+                case RBRACKET:
+                case RELOP:
+                case EXPROP:
+                case SEMI:
+                case COMMA:
+                case END:
+                    return;
+            }
+            throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.TERM_));
+        }
+    }
 
-            case RPAREN:
-            case RBRACKET:
-            case RELOP:
-            case EXPROP:
-            case SEMI:
-            case COMMA:
-            case END:
-                return new ParseTree.Term_();
+    void PushChain(Object operand, byte op) {
+        // the operands of the expressions and terms being parsed, with the operator before each;
+        // a nested expression pushes above its enclosing one and pops before it continues
+        if (_chainlen == _chain.length) {
+            _chain    = Arrays.copyOf(_chain   , _chainlen * 2);
+            _chainops = Arrays.copyOf(_chainops, _chainlen * 2);
         }
-        throw new Exception("No matching production in term' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        _chain   [_chainlen] = operand;
+        _chainops[_chainlen] = op;
+        _chainlen++;
+    }
+
+    byte[] PopChain(int base, Object[] operands) {
+        // moves the operands from base on into operands[], and returns the operators between them
+        int    n   = _chainlen - base;
+        byte[] ops = (n == 1) ? ParseTree.NO_OPS : Arrays.copyOfRange(_chainops, base + 1, _chainlen);
+        System.arraycopy(_chain, base, operands, 0, n);
+        Arrays.fill(_chain, base, _chainlen, null);
+        _chainlen = base;
+        return ops;
     }
 
     public ParseTree.Factor factor() throws Exception {
@@ -592,7 +885,7 @@ public class Parser {
         //               | NUM_LIT
         //               | BOOL_LIT
         //               | NEW prim_type LBRACKET expr RBRACKET
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case LPAREN:
                 String lp = Match(LPAREN);
                 ParseTree.Expr e = expr();
@@ -605,9 +898,10 @@ public class Parser {
                 String boolVal = Match(BOOL_LIT);
                 return new ParseTree.FactorBoolLit(Boolean.parseBoolean(boolVal));
             case IDENT:
+                int    sym = _tokens.sym[_pos];
                 String id = Match(IDENT);
                 ParseTree.Factor_ f_ = factor_();
-                return new ParseTree.FactorIdentExt(id, f_);
+                return new ParseTree.FactorIdentExt(id, sym, f_);
             case NEW:
                 String n = Match(NEW);
                 ParseTree.PrimType pt = prim_type();
@@ -616,7 +910,7 @@ public class Parser {
                 String rb = Match(RBRACKET);
                 return new ParseTree.FactorNew(pt, exprInside);
         }
-        throw new Exception("No matching production in factor at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.FACTOR));
     }
 
     public ParseTree.Factor_ factor_() throws Exception {
@@ -624,7 +918,7 @@ public class Parser {
         //               | LBRACKET expr RBRACKET
         //               | DOT SIZE
         //               | eps
-        switch(_token.type) {
+        switch(_tokens.type[_pos]) {
             case LPAREN:
                 String lp = Match(LPAREN);
                 List<ParseTree.Arg> args = args();
@@ -649,7 +943,7 @@ public class Parser {
             case COMMA:
                 return new ParseTree.FactorIdent_Eps();
         }
-        throw new Exception("No matching production in factor' at " + _lexer.lineno + ":" + _lexer.tokenColumn + ".");
+        throw new SyntaxError(Diagnostic.NoProduction(_tokens, _pos, LL1Table.FACTOR_));
     }
 
 }
@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+public class ParserPool
+{
+    // One Parser, Lexer and ByteLexer per thread, reset onto each input instead of created for it,
+    // for the checks of Batch and Daemon, which run many small files on the same few threads. A
+    // new Compiler would allocate a token block (6 int[512]), the chain arrays, a symbol table and
+    // the input: here they are all kept by the thread, with the buffers the inputs are read into.
+    //   - a file below ByteLexer.MAP_THRESHOLD is read into the thread's byte buffer (a larger one
+    //     is mapped, as ByteLexer.Open does); an inline source is copied into its char buffer,
+    //     which Lexer scans in place (see Lexer.Reset)
+    //   - a buffer grows to the input, and is cut back to the largest of the last RECENT inputs
+    //     once it is more than 4 times that and more than KEEP, so one huge file does not pin
+    //     its size on the thread for good
+    // A Compiler (its parser, its tree, its symbols and its errors) is valid until the next one
+    // the same thread gets from its pool: its results must be read before that.
+
+    public static final int KEEP   = 64 << 10;      // bytes or chars a buffer keeps whatever the inputs
+    public static final int RECENT = 16;
+
+    static final ThreadLocal<ParserPool> POOL = ThreadLocal.withInitial(ParserPool::new);
+
+    Parser    parser;                   // created on the first check, then reset
+    Lexer     lexer;
+    ByteLexer bytelexer;
+    byte[]    bytes  = new byte[0];
+    char[]    chars  = new char[0];
+    int[]     recent = new int[RECENT]; // sizes of the last inputs, as a ring
+    int       next;
+
+    public static ParserPool Get()
+    {
+        return POOL.get();
+    }
+
+    public Compiler Compiler(Path path) throws Exception
+    {
+        return Compiler(path, Parser.ENGINE_RECURSIVE);
+    }
+
+    public Compiler Compiler(Path path, int engine) throws Exception
+    {
+        return Compiler(Read(path), path.toString(), engine);
+    }
+
+    public Compiler Compiler(ByteBuffer source, String file) throws Exception
+    {
+        return Compiler(source, file, Parser.ENGINE_RECURSIVE);
+    }
+
+    public Compiler Compiler(ByteBuffer source, String file, int engine) throws Exception
+    {
+        // source is scanned as it is (not copied), as by new Compiler(source, file); the parse
+        // is by engine (Parser.ENGINE_RECOGNIZER for a check that needs no tree)
+        Compiler compiler = new Compiler();
+        if(bytelexer == null) bytelexer = new ByteLexer(source);
+        else                  bytelexer.Reset(source);
+        compiler.bytes  = source;
+        compiler.parser = Parser(bytelexer, compiler, file, engine);
+        return compiler;
+    }
+
+    public Compiler Compiler(String source) throws Exception
+    {
+        return Compiler(source, Parser.ENGINE_RECURSIVE);
+    }
+
+    public Compiler Compiler(String source, int engine) throws Exception
+    {
+        // the chars of source, scanned by Lexer, as by new Compiler(new StringReader(source))
+        int length = source.length();
+        chars = Capacity(chars, length);
+        source.getChars(0, length, chars, 0);
+        Compiler compiler = new Compiler();
+        if(lexer == null) lexer = new Lexer(chars, length);
+        else              lexer.Reset(chars, length);
+        compiler.parser = Parser(lexer, compiler, null, engine);
+        return compiler;
+    }
+
+    Parser Parser(Scanner scanner, Compiler compiler, String file, int engine) throws Exception
+    {
+        if(parser == null) parser = new Parser(scanner, compiler, file, engine);
+        else               parser.Reset(scanner, compiler, file, engine);
+        return parser;
+    }
+
+    public ByteBuffer Read(Path path) throws IOException
+    {
+        // the bytes of a file: in the thread's buffer, or mapped if it is large
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if(size >= ByteLexer.MAP_THRESHOLD)
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            bytes = Capacity(bytes, (int) size);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, (int) size);
+            while(buffer.hasRemaining() && channel.read(buffer) >= 0)
+                ;
+            return buffer.flip();
+        }
+    }
+
+    byte[] Capacity(byte[] buffer, int length)
+    {
+        int size = Size(buffer.length, length);
+        return (size == buffer.length) ? buffer : new byte[size];
+    }
+
+    char[] Capacity(char[] buffer, int length)
+    {
+        int size = Size(buffer.length, length);
+        return (size == buffer.length) ? buffer : new char[size];
+    }
+
+    int Size(int capacity, int length)
+    {
+        // the size of a buffer for an input of length, given the recent inputs
+        recent[next] = length;
+        next = (next + 1) % RECENT;
+        if(length > capacity)
+            return Math.max(length, Math.min(capacity * 2, Integer.MAX_VALUE - 8));
+        int largest = 0;
+        for(int size : recent)
+            largest = Math.max(largest, size);
+        if(capacity > KEEP && capacity > 4 * largest)
+            return Math.max(KEEP, largest);
+        return capacity;
+    }
+}
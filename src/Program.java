@@ -10,11 +10,70 @@ public class Program
         //
 //        args = new String[] { "testcases/fail_01.minc" };
 
-        if(args.length <= 0)
-            return;
-        java.io.Reader r = new java.io.FileReader(args[0]);
+        // options: --max-errors N : report up to N syntax errors per file (default 1)
+        //          -j N           : worker threads when checking many files (see Batch)
+        //          --lsp          : serve the Language Server Protocol on stdin/stdout (see LanguageServer)
+        //          --daemon       : serve check requests, one JSON per line, on stdin or a socket (see Daemon)
+        //          --cache dir    : reuse the results of unchanged files (see ResultCache, Batch)
+        //          --cache-size MB: the size the cache is cut back to (default 256)
+        //          --cds-archive f: create a class-data-sharing archive for fast starts (see StartupArchive)
+        //          --metrics      : print the counters of the checks to stderr at exit (see Metrics)
+        //          --format f     : report as text (default), jsonl or sarif (see Report, Batch)
+        int                    maxerrors = 1;
+        boolean                batch     = false;
+        String                 cachedir  = null;
+        long                   cachesize = ResultCache.DEFAULT_LIMIT;   // a constant: ResultCache is not loaded
+        String                 format    = "text";
+        java.util.List<String> inputs    = new java.util.ArrayList<String>();
+        for(int i=0; i<args.length; i++)
+        {
+            if     (args[i].equals("--max-errors") && i+1 < args.length) maxerrors = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-j"          ) && i+1 < args.length) { batch = true; i++; }
+            else if(args[i].equals("--cache"     ) && i+1 < args.length) cachedir = args[++i];
+            else if(args[i].equals("--cache-size") && i+1 < args.length) cachesize = Long.parseLong(args[++i]) << 20;
+            else if(args[i].equals("--format"    ) && i+1 < args.length) format = args[++i];
+            else if(args[i].equals("--metrics"   ))                      MetricsAtExit();
+            else                                                         inputs.add(args[i]);
+        }
 
-        Compiler compiler = new Compiler(r);
+        if(java.util.Arrays.asList(args).contains("--lsp"))
+        {
+            LanguageServer.main(args);
+            return;
+        }
+        if(java.util.Arrays.asList(args).contains("--daemon"))
+        {
+            Daemon.main(args);
+            return;
+        }
+        if(java.util.Arrays.asList(args).contains("--cds-archive") || java.util.Arrays.asList(args).contains("--cds-training"))
+        {
+            StartupArchive.main(args);
+            return;
+        }
+        if(inputs.size() <= 0)
+            return;
+        if(batch || !format.equals("text") || inputs.size() > 1 || Batch.IsGlob(inputs.get(0)) || java.nio.file.Files.isDirectory(java.nio.file.Paths.get(inputs.get(0))))
+        {
+            // several files, a directory, a glob or records: check them all in this process (see Batch)
+            System.exit(Batch.Main(args));
+        }
+        if(cachedir != null)
+        {
+            // one file, printed as without the cache
+            ResultCache cache = new ResultCache(java.nio.file.Paths.get(cachedir), cachesize);
+            System.out.print(Batch.Check(java.nio.file.Paths.get(inputs.get(0)), maxerrors, cache).output);
+            cache.Evict();
+            return;
+        }
+        Compiler compiler = new Compiler(java.nio.file.Paths.get(inputs.get(0)));
+        compiler.MaxErrors(maxerrors);
         compiler.Compile();
     }
+
+    static void MetricsAtExit()
+    {
+        Metrics.Track();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(Metrics.Dump())));
+    }
 }
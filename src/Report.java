@@ -0,0 +1,183 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public abstract class Report
+{
+    // The report of a Batch run, in one of the formats of --format:
+    //   text   "== <path>", the text Program prints for the file, and a summary line (the default)
+    //   jsonl  one JSON object per line and file, for tools:
+    //          {"path", "ok", "errors": [{"line", "column", "message"}], "micros"[, "cached": true]}
+    //   sarif  a SARIF 2.1.0 log for code-scanning dashboards: one result per syntax error (rule
+    //          "syntax-error", with its file, line and column, and the micros of its check), and the
+    //          totals of the run in the properties of its invocation
+    // The records are written as the results are joined, in the order of the inputs, by the one
+    // thread that joins them: each is built in a reused StringBuilder and appended to a buffered
+    // writer, so no record outlives its file and no other thread takes the lock of the stream.
+    // The writer is flushed when it is full and when the next file is not done yet (see
+    // Batch.Run), so a reader sees each record soon after its file is checked, without a write per
+    // record. The formats other than text do not need the indented code, which is not printed.
+
+    final Writer        out;
+    final StringBuilder record = new StringBuilder(256);
+
+    Report(Writer out)
+    {
+        this.out = out;
+    }
+
+    public static Report Of(String format, OutputStream out)
+    {
+        switch(format)
+        {
+            case "text" : return new Text     (new BufferedWriter(new OutputStreamWriter(out), 1 << 16));
+            case "jsonl": return new JsonLines(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16));
+            case "sarif": return new Sarif    (new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16));
+        }
+        throw new IllegalArgumentException("unknown format: " + format + " (text, jsonl or sarif)");
+    }
+
+    public boolean Text()
+    {
+        // whether a result needs the text Program prints
+        return false;
+    }
+
+    public void Begin() throws IOException
+    {
+    }
+
+    public abstract void File(Batch.Result result) throws IOException;
+
+    public abstract void End(int passed, int failed, long micros, String note) throws IOException;
+
+    public void Flush() throws IOException
+    {
+        out.flush();
+    }
+
+    void Write() throws IOException
+    {
+        out.append(record);
+        record.setLength(0);
+    }
+
+    static List<Object> Errors(Batch.Result result)
+    {
+        List<Object> errors = new ArrayList<Object>(result.errors.size());
+        for(Batch.Message error : result.errors)
+            errors.add(Json.Of("line", error.line, "column", error.column, "message", error.text));
+        return errors;
+    }
+
+    static class Text extends Report
+    {
+        Text(Writer out) { super(out); }
+
+        public boolean Text()
+        {
+            return true;
+        }
+
+        public void File(Batch.Result result) throws IOException
+        {
+            record.append("== ").append(result.path).append(System.lineSeparator()).append(result.output);
+            Write();
+        }
+
+        public void End(int passed, int failed, long micros, String note) throws IOException
+        {
+            record.append(System.lineSeparator())
+                  .append("Checked ").append(passed + failed).append(" file(s): ").append(passed).append(" passed, ")
+                  .append(failed).append(" failed.").append((note != null) ? " (" + note + ")" : "")
+                  .append(System.lineSeparator());
+            Write();
+            out.flush();
+        }
+    }
+
+    static class JsonLines extends Report
+    {
+        JsonLines(Writer out) { super(out); }
+
+        public void File(Batch.Result result) throws IOException
+        {
+            Map<String, Object> line = Json.Of("path", result.path.toString(), "ok", result.passed,
+                                               "errors", Errors(result), "micros", result.micros);
+            if(result.cached)
+                line.put("cached", true);
+            Json.Write(record, line);
+            record.append('\n');
+            Write();
+        }
+
+        public void End(int passed, int failed, long micros, String note) throws IOException
+        {
+            out.flush();
+        }
+    }
+
+    static class Sarif extends Report
+    {
+        boolean first = true;       // no result has been written yet
+
+        Sarif(Writer out) { super(out); }
+
+        public void Begin() throws IOException
+        {
+            Map<String, Object> rule   = Json.Of("id", "syntax-error",
+                                                 "shortDescription", Json.Of("text", "MiniC syntax error"),
+                                                 "defaultConfiguration", Json.Of("level", "error"));
+            Map<String, Object> driver = Json.Of("name", "minic", "rules", List.of(rule));
+            record.append("{\"version\":\"2.1.0\",\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"runs\":[{\"tool\":");
+            Json.Write(record, Json.Of("driver", driver));
+            record.append(",\"results\":[");
+            Write();
+        }
+
+        public void File(Batch.Result result) throws IOException
+        {
+            String uri = Uri(result.path);
+            for(Batch.Message error : result.errors)
+            {
+                Map<String, Object> location = Json.Of("artifactLocation", Json.Of("uri", uri));
+                if(error.line > 0)
+                    location.put("region", Json.Of("startLine", error.line, "startColumn", error.column));
+                record.append(first ? "\n" : ",\n");
+                Json.Write(record, Json.Of("ruleId", "syntax-error", "level", "error",
+                                           "message", Json.Of("text", error.text),
+                                           "locations", List.of(Json.Of("physicalLocation", location)),
+                                           "properties", Json.Of("micros", result.micros)));
+                first = false;
+            }
+            Write();
+        }
+
+        public void End(int passed, int failed, long micros, String note) throws IOException
+        {
+            Map<String, Object> totals = Json.Of("files", passed + failed, "passed", passed, "failed", failed, "micros", micros);
+            if(note != null)
+                totals.put("note", note);
+            record.append("\n],\"invocations\":[");
+            Json.Write(record, Json.Of("executionSuccessful", true, "properties", totals));
+            record.append("]}]}\n");
+            Write();
+            out.flush();
+        }
+
+        static String Uri(java.nio.file.Path path)
+        {
+            // a relative reference for a relative path (with "/" and %-escapes), a file: URI otherwise
+            if(path.isAbsolute())
+                return path.toUri().toString();
+            try
+            {
+                return new java.net.URI(null, null, path.toString().replace(File.separatorChar, '/'), null).toASCIIString();
+            }
+            catch(java.net.URISyntaxException e)
+            {
+                return path.toString();
+            }
+        }
+    }
+}
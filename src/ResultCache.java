@@ -0,0 +1,315 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.*;
+
+public class ResultCache
+{
+    // An on-disk cache of check results, so that an unchanged file costs a hash of its bytes and the
+    // read of one small entry instead of a parse:
+    //   java Program --cache dir [--cache-size MB] <file | directory | glob> ...
+    // An entry is keyed by the 128-bit MurmurHash3 of the file bytes, seeded with the checker's
+    // FINGERPRINT (see Fingerprint(): a new grammar, token name, message or layout of the printed
+    // code, once compiled, never reads old entries), by the error cap
+    // and by whether the text was asked for (a Report other than text does not print the code).
+    // It holds the verdict, the text the check printed (the errors, or the formatted code) and
+    // the errors as data:
+    //   dir/<2 hex>/<30 hex>-<max errors>[r]  "MINIC-CACHE" VERSION, passed (byte), source length (long),
+    //                                         output length (int), output (UTF-8),
+    //                                         errors (int), { line (int), column (int), message (UTF) } ...
+    // Entries are written to a temporary file and renamed into place, so processes that share the
+    // cache only ever see complete entries (two writers of one key write the same bytes). A hit
+    // sets the entry's modification time (if it is older than an hour), and Evict() removes the
+    // least recently used entries until the cache fits in its size limit.
+
+    public static final int    VERSION     = 2;         // of the entry format
+    static final String[]      OUTPUT      = { "Program", "Batch", "Report", "Json", "ParserPool", "Compiler", "ParallelParser",
+                                               "TokenPipeline", "Parser", "LL1Table", "SyntaxError", "Diagnostic",
+                                               "ParseTree", "Scanner", "Lexer", "ByteLexer", "TokenBuffer",
+                                               "SymbolTable" };  // what a check prints depends on (see ResultCacheTest)
+    public static final long   FINGERPRINT = Fingerprint();             // after OUTPUT
+    public static final long   DEFAULT_LIMIT = 256L << 20;
+    static final long          TOUCH_INTERVAL = 3600 * 1000;   // ms
+    static final String        MAGIC       = "MINIC-CACHE";
+
+    final Path       dir;
+    final long       limit;
+    public final AtomicLong hits   = new AtomicLong();
+    public final AtomicLong misses = new AtomicLong();
+    final AtomicLong written = new AtomicLong();          // bytes of the entries this process wrote
+
+    public ResultCache(Path dir, long limit) throws IOException
+    {
+        this.dir   = dir;
+        this.limit = limit;
+        Files.createDirectories(dir);
+    }
+
+    static long Fingerprint()
+    {
+        // the entry format, the grammar, the token names of the messages, and a stamp of the build
+        // of the classes that lex, parse and print: a change to what a check prints changes it
+        long h = VERSION;
+        for(int[] production : LL1Table.GRAMMAR)
+            for(int sym : production)
+                h = h * 31 + sym;
+        h = h * 31 + String.join(",", LL1Table.NAMES).hashCode();
+        for(int token=Parser.ENDMARKER; token<=Parser.IDENT; token++)
+            h = h * 31 + Diagnostic.TokenName(token).hashCode();
+        return Stamp(h);
+    }
+
+    static long Stamp(long h)
+    {
+        // h folded with the names and CRC-32s of the class files of OUTPUT (with their nested
+        // classes), in the directory or the jar this class was loaded from: a jar keeps the CRC
+        // of each entry, so the stamp of a jar reads none of them, and is that of its classes.
+        // The classes are not loaded (a hit parses nothing); from another class loader, h alone
+        TreeMap<String, Long> crcs = new TreeMap<String, Long>();
+        try
+        {
+            File source = new File(ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if(source.isDirectory())
+            {
+                for(String name : source.list())
+                    if(Output(name))
+                        try(InputStream in = new FileInputStream(new File(source, name)))
+                        {
+                            CRC32 crc = new CRC32();
+                            crc.update(in.readAllBytes());
+                            crcs.put(name, crc.getValue());
+                        }
+            }
+            else
+            {
+                try(ZipFile jar = new ZipFile(source))
+                {
+                    for(Enumeration<? extends ZipEntry> entries = jar.entries(); entries.hasMoreElements(); )
+                    {
+                        ZipEntry entry = entries.nextElement();
+                        if(Output(entry.getName()))
+                            crcs.put(entry.getName(), entry.getCrc());
+                    }
+                }
+            }
+        }
+        catch(Exception e)
+        {
+            // no code source (or not a file): only the fingerprint so far
+        }
+        for(Map.Entry<String, Long> crc : crcs.entrySet())
+            h = (h * 31 + crc.getKey().hashCode()) * 31 + crc.getValue();
+        return h;
+    }
+
+    static boolean Output(String file)
+    {
+        // whether file is the class file of one of OUTPUT, or of a class nested in it
+        if(!file.endsWith(".class"))
+            return false;
+        int    end  = file.indexOf('$');
+        String name = file.substring(0, (end >= 0) ? end : file.length() - ".class".length());
+        return Arrays.asList(OUTPUT).contains(name);
+    }
+
+    public String Key(ByteBuffer bytes, int maxerrors)
+    {
+        return Key(bytes, maxerrors, true);
+    }
+
+    public String Key(ByteBuffer bytes, int maxerrors, boolean text)
+    {
+        long[] hash = Murmur3(bytes, FINGERPRINT);
+        return String.format("%016x%016x-%d%s", hash[0], hash[1], maxerrors, text ? "" : "r");
+    }
+
+    Path Entry(String key)
+    {
+        return dir.resolve(key.substring(0, 2)).resolve(key.substring(2));
+    }
+
+    public Batch.Result Get(String key, Path file, long length)
+    {
+        // the cached result, or null; an entry that can not be read is a miss
+        Path entry = Entry(key);
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry))))
+        {
+            if(!in.readUTF().equals(MAGIC) || in.readInt() != VERSION)
+                throw new IOException("not a cache entry");
+            boolean passed = in.readBoolean();
+            if(in.readLong() != length)
+                throw new IOException("another source");
+            byte[] output = new byte[in.readInt()];
+            in.readFully(output);
+            List<Batch.Message> errors = new ArrayList<Batch.Message>();
+            for(int n=in.readInt(); n>0; n--)
+                errors.add(new Batch.Message(in.readInt(), in.readInt(), in.readUTF()));
+            hits.incrementAndGet();
+            try
+            {
+                // the time of use has a granularity of TOUCH_INTERVAL: a stat is cheaper than a write
+                long now = System.currentTimeMillis();
+                if(Files.getLastModifiedTime(entry).toMillis() < now - TOUCH_INTERVAL)
+                    Files.setLastModifiedTime(entry, FileTime.fromMillis(now));
+            }
+            catch(IOException e)
+            {
+                // evicted meanwhile: the result is still good
+            }
+            Batch.Result result = new Batch.Result(file, passed, new String(output, StandardCharsets.UTF_8));
+            result.errors = errors;
+            result.cached = true;
+            return result;
+        }
+        catch(IOException e)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void Put(String key, Batch.Result result, long length)
+    {
+        Path entry = Entry(key);
+        try
+        {
+            Files.createDirectories(entry.getParent());
+            Path temp = Files.createTempFile(entry.getParent(), "put-", ".tmp");
+            try
+            {
+                byte[] output = result.output.getBytes(StandardCharsets.UTF_8);
+                long   size;
+                try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+                {
+                    out.writeUTF(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeBoolean(result.passed);
+                    out.writeLong(length);
+                    out.writeInt(output.length);
+                    out.write(output);
+                    out.writeInt(result.errors.size());
+                    for(Batch.Message error : result.errors)
+                    {
+                        out.writeInt(error.line);
+                        out.writeInt(error.column);
+                        out.writeUTF(error.text);
+                    }
+                    size = out.size();
+                }
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                written.addAndGet(size);            // the whole entry: a jsonl/sarif run stores no output text
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        catch(IOException e)
+        {
+            // a cache that can not be written only costs the next run a parse
+        }
+    }
+
+    public void Evict() throws IOException
+    {
+        // removes the least recently used entries (and stale temporary files) until the cache is
+        // below 90% of its limit; a run that wrote nothing can not have grown it
+        if(written.get() == 0)
+            return;
+        List<Path>     entries = new ArrayList<Path>();
+        Map<Path, Long> times  = new HashMap<Path, Long>();
+        Map<Path, Long> sizes  = new HashMap<Path, Long>();
+        long           total   = 0;
+        long           old     = System.currentTimeMillis() - 3600 * 1000;
+        try(var walk = Files.walk(dir))
+        {
+            for(Path path : (Iterable<Path>) walk::iterator)
+            {
+                try
+                {
+                    var attributes = Files.readAttributes(path, java.nio.file.attribute.BasicFileAttributes.class);
+                    if(!attributes.isRegularFile())
+                        continue;
+                    long time = attributes.lastModifiedTime().toMillis();
+                    if(path.getFileName().toString().endsWith(".tmp"))
+                    {
+                        if(time < old)
+                            Files.deleteIfExists(path);     // left by a process that died while writing
+                        continue;
+                    }
+                    entries.add(path);
+                    times.put(path, time);
+                    sizes.put(path, attributes.size());
+                    total += attributes.size();
+                }
+                catch(IOException e)
+                {
+                    // removed by another process meanwhile
+                }
+            }
+        }
+        if(total <= limit)
+            return;
+        entries.sort(Comparator.comparingLong(times::get));
+        for(Path entry : entries)
+        {
+            if(total <= limit / 10 * 9)
+                break;
+            Files.deleteIfExists(entry);
+            total -= sizes.get(entry);
+        }
+    }
+
+    static long[] Murmur3(ByteBuffer bytes, long seed)
+    {
+        // MurmurHash3 x64 128-bit of bytes [position, limit)
+        final long c1 = 0x87c37b91114253d5L, c2 = 0x4cf5ad432745937fL;
+        ByteBuffer in     = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int        offset = in.position();
+        int        length = in.remaining();
+        long       h1     = seed, h2 = seed;
+        int        blocks = length / 16;
+        for(int i=0; i<blocks; i++)
+        {
+            long k1 = in.getLong(offset + i * 16);
+            long k2 = in.getLong(offset + i * 16 + 8);
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+        long k1 = 0, k2 = 0;
+        int  tail = offset + blocks * 16;
+        for(int i=(length & 15)-1; i>=0; i--)
+        {
+            long b = in.get(tail + i) & 0xFFL;
+            if(i >= 8) k2 ^= b << ((i - 8) * 8);
+            else       k1 ^= b << (i * 8);
+        }
+        if((length & 15) > 8) { k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2; }
+        if((length & 15) > 0) { k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1; }
+        h1 ^= length; h2 ^= length;
+        h1 += h2; h2 += h1;
+        h1 = Mix(h1); h2 = Mix(h2);
+        h1 += h2; h2 += h1;
+        return new long[] { h1, h2 };
+    }
+
+    static long Mix(long k)
+    {
+        k ^= k >>> 33; k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33; k *= 0xc4ceb9a63ec86353L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public String Stats()
+    {
+        return hits.get() + " from the cache, " + misses.get() + " checked";
+    }
+}
@@ -0,0 +1,12 @@
+public interface Scanner
+{
+    // A source of tokens for the Parser: Lexer (JFlex, over chars) or ByteLexer (over UTF-8 bytes).
+    // Fill() lexes the next block of tokens into the buffer, until it is full or the input ends
+    // (ENDMARKER) or has an unexpected character (LEXERROR), and returns the number of tokens.
+    int Fill(TokenBuffer tokens) throws java.io.IOException;
+
+    default void Close()
+    {
+        // the parse is over: no more blocks are asked for (see TokenPipeline)
+    }
+}
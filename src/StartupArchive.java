@@ -0,0 +1,160 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.jar.*;
+
+public class StartupArchive
+{
+    // A class-data-sharing (AppCDS) archive of the checker, for the runs that check one file per
+    // JVM (as a build or a commit hook starts it): they spend most of their time loading, verifying
+    // and initializing classes, which the archive has done once for all of them.
+    //   java Program --cds-archive minic.jsa
+    // packs the classes of the class path into minic.jar (the JVM only archives classes of jars),
+    // runs a training check in a JVM that dumps the classes it loaded into minic.jsa, and prints the
+    // command that uses both:
+    //   java -XX:SharedArchiveFile=minic.jsa -cp minic.jar Program <file>
+    // The archive is only used with the jar and the JVM it was made with; otherwise the JVM warns
+    // and runs without it, so a stale archive costs the time it would have saved and nothing more.
+    // The training (Program --cds-training) checks a few built-in sources, passing and failing,
+    // along every path of a run: a file (ByteLexer), a Reader (Lexer), and several files (Batch).
+
+    static final String[] TRAINING =
+    {
+        // every statement and expression of the grammar
+        "num[] fill(num[] a, num n)\n"
+      + "{\n"
+      + "    num i;\n"
+      + "    i <- 0;\n"
+      + "    while(i < n) { print a[i] * 2 + 1; i <- i + 1; }\n"
+      + "    return a;\n"
+      + "}\n"
+      + "%% a line comment\n"
+      + "%* a block\n   comment *%\n"
+      + "num main()\n"
+      + "{\n"
+      + "    num[] a;\n"
+      + "    bool b;\n"
+      + "    a <- fill(new num[10], 10);\n"
+      + "    b <- (a.size >= 10) and false or true;\n"
+      + "    if(b = true) print a[9]; else { print 0; }\n"
+      + "    return 0;\n"
+      + "}\n",
+        // a missing token
+        "num main()\n{\n    num x;\n    x <- 1\n    return x;\n}\n",
+        // no production (and several errors with --max-errors)
+        "num main()\n{\n    x <- ;\n    print (;\n    return 0;\n}\nnum f( { }\n",
+        // an unexpected character
+        "num main()\n{\n    print 1 # 2;\n}\n",
+    };
+
+    public static void main(String[] args) throws Exception
+    {
+        for(int i=0; i<args.length; i++)
+        {
+            if(args[i].equals("--cds-training"))
+            {
+                Train();
+                return;
+            }
+            if(args[i].equals("--cds-archive") && i+1 < args.length)
+            {
+                Path archive = Paths.get(args[i+1]);
+                Path jar     = Create(archive);
+                System.out.println("created " + archive + " for " + jar + "; run the checker with:");
+                System.out.println("  java -XX:SharedArchiveFile=" + archive + " -cp " + jar + " Program <file>");
+                return;
+            }
+        }
+    }
+
+    public static Path Create(Path archive) throws Exception
+    {
+        // the jar of the classes, and the archive of a training run of them
+        Path jar = Jar(archive);
+        Files.deleteIfExists(archive);
+        Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                                             "-XX:ArchiveClassesAtExit=" + archive, "-cp", jar.toString(),
+                                             "Program", "--cds-training")
+                          .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                          .redirectError(ProcessBuilder.Redirect.INHERIT)
+                          .start();
+        if(process.waitFor() != 0 || !Files.exists(archive))
+            throw new IOException("the training run did not create " + archive);
+        return jar;
+    }
+
+    static Path Jar(Path archive) throws IOException
+    {
+        // a class path of one jar is archived as it is; the directories of classes are packed into
+        // a jar next to the archive
+        String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+        if(entries.length == 1 && entries[0].endsWith(".jar"))
+            return Paths.get(entries[0]);
+        String name = archive.getFileName().toString().replaceFirst("\\.jsa$", "");
+        Path   jar  = archive.resolveSibling(name + ".jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "Program");
+        try(JarOutputStream out = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(jar)), manifest))
+        {
+            for(String entry : entries)
+            {
+                Path dir = Paths.get(entry.isEmpty() ? "." : entry);
+                if(!Files.isDirectory(dir))
+                    throw new IOException("only directories of classes can be packed: " + entry + " (or give a single jar)");
+                List<Path> classes = new ArrayList<Path>();
+                try(var walk = Files.walk(dir))
+                {
+                    walk.filter(f -> f.toString().endsWith(".class")).sorted().forEach(classes::add);
+                }
+                for(Path file : classes)
+                {
+                    out.putNextEntry(new JarEntry(dir.relativize(file).toString().replace(File.separatorChar, '/')));
+                    Files.copy(file, out);
+                    out.closeEntry();
+                }
+            }
+        }
+        return jar;
+    }
+
+    static void Train() throws Exception
+    {
+        // the paths of a run, over TRAINING; the output (and the lexers' messages) is discarded
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        PrintStream err = System.err;
+        Path        dir = Files.createTempDirectory("minic-cds");
+        System.setErr(out);
+        try
+        {
+            List<Path> files = new ArrayList<Path>();
+            for(int i=0; i<TRAINING.length; i++)
+            {
+                Path file = dir.resolve("training" + i + ".minc");
+                Files.writeString(file, TRAINING[i]);
+                files.add(file);
+            }
+            for(int maxerrors : new int[] { 1, 10 })
+            {
+                for(int i=0; i<TRAINING.length; i++)
+                {
+                    Compiler compiler = new Compiler(files.get(i));
+                    compiler.MaxErrors(maxerrors);
+                    compiler.Compile(out);
+                    compiler = new Compiler(new StringReader(TRAINING[i]));
+                    compiler.MaxErrors(maxerrors);
+                    compiler.Compile(out);
+                }
+            }
+            Batch.Run(files, out, 2);
+        }
+        finally
+        {
+            System.setErr(err);
+            try(var walk = Files.walk(dir))
+            {
+                walk.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+}
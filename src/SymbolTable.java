@@ -0,0 +1,151 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SymbolTable
+{
+    // Interns identifiers into dense int ids (0, 1, 2, ...), so that each distinct name is stored
+    // once and names can be compared as ints. The scanners look an identifier up by hashing its
+    // chars in the source, in an open-addressing table of ids, and compare it with the stored name
+    // in place: a String is created only the first time a name is seen.
+    // A table is confined to one thread: nothing in it is synchronized, so only the thread that
+    // interns into it reads it. A table that changes threads is handed over with the work that
+    // fills it (a ParallelParser chunk is joined, a TokenPipeline gives the parser a table of its
+    // own, see TokenPipeline.Take).
+
+    String[]          names  = new String[64];
+    int[]             hashes = new int[64];     // hash of names[id], kept for growing the table
+    int[]             slots  = new int[128];    // id+1 per slot, 0 for an empty slot; the length is a power of 2
+    int               count;
+
+    public int Count()
+    {
+        return count;
+    }
+
+    public String Name(int id)
+    {
+        return names[id];
+    }
+
+    public void Clear()
+    {
+        // forgets every name, for a scanner reset onto a new input (see ParserPool); the arrays
+        // are kept unless the last input grew them well past their initial size
+        if(slots.length > 1024)
+        {
+            names  = new String[64];
+            hashes = new int[64];
+            slots  = new int[128];
+        }
+        else
+        {
+            Arrays.fill(slots, 0);
+            Arrays.fill(names, 0, count, null);
+        }
+        count = 0;
+    }
+
+    public int Intern(char[] source, int offset, int length)
+    {
+        int hash = 0;
+        for(int i=0; i<length; i++)
+            hash = hash * 31 + source[offset + i];
+        int mask = slots.length - 1;
+        for(int s = Mix(hash) & mask; ; s = (s + 1) & mask)
+        {
+            int id = slots[s] - 1;
+            if(id < 0)
+                return Add(new String(source, offset, length), hash, s);
+            if(hashes[id] == hash && Equals(names[id], source, offset, length))
+                return id;
+        }
+    }
+
+    public int Intern(ByteBuffer source, int offset, int length)
+    {
+        // identifiers are ASCII, so a byte is a char and the hash is the same as over chars
+        int hash = 0;
+        for(int i=0; i<length; i++)
+            hash = hash * 31 + source.get(offset + i);
+        int mask = slots.length - 1;
+        for(int s = Mix(hash) & mask; ; s = (s + 1) & mask)
+        {
+            int id = slots[s] - 1;
+            if(id < 0)
+                return Add(TokenBuffer.Substring(null, source, offset, length), hash, s);
+            if(hashes[id] == hash && Equals(names[id], source, offset, length))
+                return id;
+        }
+    }
+
+    public int Intern(String name)
+    {
+        // a name from another table (see ParallelParser); it is stored as it is if it is new
+        int hash = name.hashCode();     // the same polynomial as over the chars of a source
+        int mask = slots.length - 1;
+        for(int s = Mix(hash) & mask; ; s = (s + 1) & mask)
+        {
+            int id = slots[s] - 1;
+            if(id < 0)
+                return Add(name, hash, s);
+            if(hashes[id] == hash && names[id].equals(name))
+                return id;
+        }
+    }
+
+    int Add(String name, int hash, int slot)
+    {
+        int id = count++;
+        if(id == names.length)
+        {
+            names  = Arrays.copyOf(names , id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names [id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if(count * 2 > slots.length) // keep the load factor at most 1/2
+            Rehash(slots.length * 2);
+        return id;
+    }
+
+    void Rehash(int capacity)
+    {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for(int id=0; id<count; id++)
+        {
+            int s = Mix(hashes[id]) & mask;
+            while(slots[s] != 0)
+                s = (s + 1) & mask;
+            slots[s] = id + 1;
+        }
+    }
+
+    static int Mix(int hash)
+    {
+        // spreads the high bits of the polynomial hash into the low bits used as the slot
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    static boolean Equals(String name, char[] source, int offset, int length)
+    {
+        if(name.length() != length)
+            return false;
+        for(int i=0; i<length; i++)
+            if(name.charAt(i) != source[offset + i])
+                return false;
+        return true;
+    }
+
+    static boolean Equals(String name, ByteBuffer source, int offset, int length)
+    {
+        if(name.length() != length)
+            return false;
+        for(int i=0; i<length; i++)
+            if(name.charAt(i) != source.get(offset + i))
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+public class SyntaxError extends Exception
+{
+    // Carries a Diagnostic from where the parser detects it to where it is recorded (yyparse or
+    // Recover). It has no stack trace: filling one in cost more than the rest of a failing parse,
+    // and the trace of a parser method is of no use to the user.
+
+    private static final long serialVersionUID = 1L;
+
+    public final Diagnostic diagnostic;
+
+    public SyntaxError(Diagnostic diagnostic)
+    {
+        super(null, null, false, false);
+        this.diagnostic = diagnostic;
+    }
+
+    public String getMessage()
+    {
+        return diagnostic.Message();
+    }
+}
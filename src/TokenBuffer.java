@@ -0,0 +1,145 @@
+public class TokenBuffer
+{
+    // A block of tokens stored in parallel primitive arrays. A Scanner (Lexer or ByteLexer) fills
+    // a block at a time, and the Parser reads the current token by its index in the block, so no
+    // object is allocated per token. A token is an offset and a length into the source, which
+    // the scanner retains; its text is copied out only where the parse tree keeps it.
+
+    public static final int CAPACITY = 512;
+
+    public int[]  type   = new int[CAPACITY];
+    public int[]  start  = new int[CAPACITY];   // offset of the token in source (chars) or bytes (bytes)
+    public int[]  length = new int[CAPACITY];
+    public int[]  line   = new int[CAPACITY];
+    public int[]  column = new int[CAPACITY];
+    public int[]  sym    = new int[CAPACITY];   // symbol id of an IDENT in symbols
+    public int    count;
+    public char[]              source;           // the whole input, set by the scanner: chars (Lexer)
+    public java.nio.ByteBuffer bytes;            //                                      or UTF-8 (ByteLexer)
+    public SymbolTable         symbols;          // the identifiers interned by the scanner
+    public boolean             intern = true;    // false: IDENTs get no sym (Parser.ENGINE_RECOGNIZER reads none)
+    public boolean             report;           // the scanner is not quiet: the Parser prints an unexpected
+                                                 // char's message when it reaches the LEXERROR (see Unexpected)
+
+    public void Add(int type, int start, int length, int line, int column)
+    {
+        int i = count++;
+        this.type  [i] = type  ;
+        this.start [i] = start ;
+        this.length[i] = length;
+        this.line  [i] = line  ;
+        this.column[i] = column;
+    }
+
+    public void Swap(TokenBuffer other)
+    {
+        // takes the block of other, which gets this one's arrays to fill next (see TokenPipeline);
+        // no token is copied
+        int[] a;
+        a = type  ; type   = other.type  ; other.type   = a;
+        a = start ; start  = other.start ; other.start  = a;
+        a = length; length = other.length; other.length = a;
+        a = line  ; line   = other.line  ; other.line   = a;
+        a = column; column = other.column; other.column = a;
+        a = sym   ; sym    = other.sym   ; other.sym    = a;
+        int n = count; count = other.count; other.count = n;
+        source  = other.source;
+        bytes   = other.bytes;
+        symbols = other.symbols;
+        report  = other.report;
+    }
+
+    public String Text(int i)
+    {
+        // the text the parse tree needs: identifiers are shared by the symbol table, numbers are
+        // copied out of the source; booleans and operators map to constant strings; other tokens
+        // carry no text (null)
+        switch(type[i])
+        {
+            case Parser.IDENT   : return symbols.Name(sym[i]);
+            case Parser.NUM_LIT :
+            case Parser.LEXERROR: return Substring(start[i], length[i]);
+            case Parser.BOOL_LIT: return (CharAt(start[i]) == 't') ? "true" : "false";
+            case Parser.EXPROP  :
+            case Parser.TERMOP  :
+            case Parser.RELOP   : return Operator(i);
+        }
+        return null;
+    }
+
+    public String Unexpected(int i)
+    {
+        // the message of the LEXERROR i, made from the token: the scanner lexes up to a block ahead
+        // of the parser, so it is printed when the parser reaches the token, not when it is lexed
+        if(source != null)
+            return "Error: unexpected character '" + new String(source, start[i], length[i]) + "'";
+        return ByteLexer.Unexpected(bytes, start[i]);
+    }
+
+    public CharSequence Slice(int i)
+    {
+        // a view of the token text in the source, without copying
+        if(source != null)
+            return java.nio.CharBuffer.wrap(source, start[i], length[i]);
+        if(type[i] == Parser.LEXERROR)
+            return Substring(start[i], length[i]); // the only token that may not be ASCII
+        return new AsciiSlice(bytes, start[i], length[i]);
+    }
+
+    int CharAt(int offset)
+    {
+        return (source != null) ? source[offset] : (bytes.get(offset) & 0xFF);
+    }
+
+    String Substring(int offset, int length)
+    {
+        return Substring(source, bytes, offset, length);
+    }
+
+    static String Substring(char[] source, java.nio.ByteBuffer bytes, int offset, int length)
+    {
+        if(source != null)
+            return new String(source, offset, length);
+        if(bytes.hasArray())
+            return new String(bytes.array(), bytes.arrayOffset() + offset, length, java.nio.charset.StandardCharsets.UTF_8);
+        byte[] b = new byte[length];
+        bytes.get(offset, b);
+        return new String(b, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    String Operator(int i)
+    {
+        int c0 = CharAt(start[i]);
+        int c1 = (length[i] > 1) ? CharAt(start[i] + 1) : 0;
+        switch(c0)
+        {
+            case '+': return "+";
+            case '-': return "-";
+            case 'o': return "or";
+            case '*': return "*";
+            case '/': return "/";
+            case 'a': return "and";
+            case '=': return "=";
+            case '<': return (c1 == '=') ? "<=" : (c1 == '>') ? "<>" : "<";
+            case '>': return (c1 == '=') ? ">=" : ">";
+        }
+        return Substring(start[i], length[i]);
+    }
+
+    static class AsciiSlice implements CharSequence
+    {
+        final java.nio.ByteBuffer bytes;
+        final int                 offset;
+        final int                 length;
+        AsciiSlice(java.nio.ByteBuffer bytes, int offset, int length)
+        {
+            this.bytes  = bytes ;
+            this.offset = offset;
+            this.length = length;
+        }
+        public int          length()                        { return length; }
+        public char         charAt(int index)               { return (char) (bytes.get(offset + index) & 0xFF); }
+        public CharSequence subSequence(int start, int end) { return new AsciiSlice(bytes, offset + start, end - start); }
+        public String       toString()                      { return Substring(null, bytes, offset, length); }
+    }
+}
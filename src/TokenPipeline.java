@@ -0,0 +1,216 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class TokenPipeline implements Scanner
+{
+    // Lexes a large input on a thread of its own while the Parser parses it, so that the two run
+    // on two cores instead of taking turns on one. The lexer thread fills the TokenBuffers of a
+    // ring of SLOTS blocks, and the parser takes them in order:
+    //   - one producer and one consumer: tail (blocks lexed) is only written by the lexer thread,
+    //     head (blocks taken) only by the parser, each with a release store that the other reads
+    //     with an acquire load, so a block is filled before it is taken, and taken (its arrays
+    //     swapped into the parser's buffer, see TokenBuffer.Swap) before it is filled again
+    //   - the lexer waits while SLOTS blocks are lexed ahead and not taken, so a file of any size
+    //     holds at most SLOTS * TokenBuffer.CAPACITY tokens in the ring
+    //   - a thread that waits spins for a while, then yields, then parks for PARK_NANOS at a time
+    //   - the first block is lexed on the parser's thread, and the lexer thread started only on
+    //     the second: an input that ParallelParser parses, or that fits in one block, starts none
+    //   - the lexer runs quiet, and the backspaces it would report on stderr are reported when the
+    //     parser takes their block, so a parse prints the same as with the lexer on its thread, and
+    //     nothing for the blocks it never reaches (an unexpected char is the parser's to report,
+    //     when it reaches the token: see TokenBuffer.report)
+    //   - Close() (at the end of yyparse, and of Compiler.Parse) stops the lexer thread and waits
+    //     for it, so the lexer is not used after the parse, whether it ended at ENDMARKER or at an
+    //     error (a Fill after Close() is an IOException)
+    // Compiler pipelines the bytes of a file of THRESHOLD or more, on a machine with 2 cores or
+    // more, unless ParallelParser parses it. Identifiers are interned by the lexer thread, into the
+    // lexer's table; the names first seen in a block go with it, into a table of the parser's (see
+    // Take), so that each table is confined to one thread (see SymbolTable).
+
+    public static final int  THRESHOLD  = 1 << 20;  // bytes; smaller inputs are lexed on the parser's thread
+    public static final int  SLOTS      = 16;       // blocks lexed ahead at most (a power of 2)
+    static final int         SPINS      = 1 << 10;
+    static final int         YIELDS     = 1 << 4;
+    static final long        PARK_NANOS = 20000;
+
+    final ByteLexer     lexer;
+    final boolean       quiet;                              // the lexer's own setting, which its messages follow
+    final TokenBuffer[] ring       = new TokenBuffer[SLOTS];
+    final long[]        backspaces = new long[SLOTS];       // skipped while lexing each block
+    final String[][]    interned   = new String[SLOTS][];   // the names first seen in each block
+    final SymbolTable   symbols    = new SymbolTable();     // the parser's, with the ids of the lexer's
+    final AtomicLong    head       = new AtomicLong();      // blocks taken by the parser
+    final AtomicLong    tail       = new AtomicLong();      // blocks lexed
+    volatile boolean    closed;
+    volatile Throwable  failure;                            // of the lexer thread
+    Thread              thread;                             // started by the second Fill
+    boolean             first = true;                       // the first block is still to be lexed
+    boolean             ended;                              // the parser has the block with ENDMARKER
+
+    public TokenPipeline(ByteLexer lexer)
+    {
+        this.lexer  = lexer;
+        this.quiet  = lexer.quiet;
+        lexer.quiet = true;
+        for(int i=0; i<SLOTS; i++)
+            ring[i] = new TokenBuffer();
+    }
+
+    public static boolean Worth(long length)
+    {
+        // whether a parse of length bytes gains from the lexer on another core
+        return length >= THRESHOLD && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    public int Fill(TokenBuffer tokens) throws IOException
+    {
+        if(first || ended)
+        {
+            // the first block (on this thread, which starts none), or a Fill past the end
+            Join();
+            long skipped = lexer.backspaces;
+            int  named   = lexer.symbols.Count();
+            lexer.Fill(tokens);
+            Report(tokens, lexer.backspaces - skipped);
+            Take(tokens, Interned(named));
+            first = false;
+            ended = Ends(tokens);
+            return tokens.count;
+        }
+        if(closed)
+            throw new IOException("the token pipeline is closed");
+        if(thread == null)
+        {
+            // the second block: the parser has gone on, so the rest is lexed on the lexer thread
+            thread = new Thread(this::Run, "minic-lexer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        long h = head.get();
+        for(int spins=0; tail.getAcquire() == h; spins++)
+        {
+            if(failure != null)
+                throw Failure();
+            Wait(spins);
+        }
+        int slot = (int) h & (SLOTS - 1);
+        Report(ring[slot], backspaces[slot]);
+        tokens.Swap(ring[slot]);
+        Take(tokens, interned[slot]);
+        head.setRelease(h + 1);
+        ended = Ends(tokens);
+        return tokens.count;
+    }
+
+    void Run()
+    {
+        // the lexer thread: fills the ring until ENDMARKER, or until the parse is closed
+        try
+        {
+            for(long t = tail.get(); !closed; t++)
+            {
+                for(int spins=0; t - head.getAcquire() == SLOTS; spins++)
+                {
+                    if(closed)
+                        return;
+                    Wait(spins);
+                }
+                int         slot    = (int) t & (SLOTS - 1);
+                TokenBuffer block   = ring[slot];
+                long        skipped = lexer.backspaces;
+                int         named   = lexer.symbols.Count();
+                lexer.Fill(block);
+                backspaces[slot] = lexer.backspaces - skipped;
+                interned[slot]   = Interned(named);
+                tail.setRelease(t + 1);
+                if(Ends(block))
+                    return;
+            }
+        }
+        catch(Throwable e)
+        {
+            failure = e;
+        }
+    }
+
+    public void Close()
+    {
+        closed = true;
+        Join();
+        lexer.quiet = quiet;
+    }
+
+    void Join()
+    {
+        // waits for the lexer thread to stop (it has ended, or sees closed within a park)
+        if(thread == null)
+            return;
+        boolean interrupted = false;
+        while(thread.isAlive())
+        {
+            try
+            {
+                thread.join();
+            }
+            catch(InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    void Report(TokenBuffer block, long skipped)
+    {
+        // the messages the lexer would have printed while it lexed the block
+        block.report = !quiet;
+        if(quiet)
+            return;
+        for(long i=0; i<skipped; i++)
+            System.err.println("Sorry, backspace doesn't work");
+    }
+
+    String[] Interned(int from)
+    {
+        // the names the lexer has interned since it had from, on the thread that lexes
+        SymbolTable table = lexer.symbols;
+        return Arrays.copyOfRange(table.names, from, table.Count());
+    }
+
+    void Take(TokenBuffer block, String[] names)
+    {
+        // the parser's table takes the names first seen in the block, in order, so they get the
+        // ids they have in the lexer's (the ids are dense, in the order the names are first seen)
+        for(String name : names)
+            symbols.Intern(name);
+        block.symbols = symbols;
+    }
+
+    static boolean Ends(TokenBuffer block)
+    {
+        return block.count > 0 && block.type[block.count - 1] == Parser.ENDMARKER;
+    }
+
+    IOException Failure()
+    {
+        Throwable e = failure;
+        if(e instanceof IOException)     return (IOException) e;
+        if(e instanceof RuntimeException) throw (RuntimeException) e;
+        if(e instanceof Error)           throw (Error) e;
+        return new IOException(e);
+    }
+
+    static void Wait(int spins)
+    {
+        // the other thread is running on another core most of the time, so a wait is short
+        if(spins < SPINS)
+            Thread.onSpinWait();
+        else if(spins < SPINS + YIELDS)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(PARK_NANOS);
+    }
+}
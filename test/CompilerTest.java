@@ -0,0 +1,101 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompilerTest
+{
+    // A check leaves no minic-lexer thread behind (see TokenPipeline): not when the lexer thread
+    // ran to the end, nor when the parse stopped at an error before it, nor when ParallelParser
+    // took the file and the Parser never parsed. The lexer thread is started on the second block,
+    // and a pipelined parse prints what a parse with the lexer on the parser's thread does, with
+    // the symbol ids it has, in a table that is not the lexer thread's (see SymbolTable).
+
+    static boolean LexerThreadAlive()
+    {
+        for(Thread thread : Thread.getAllStackTraces().keySet())
+            if(thread.getName().equals("minic-lexer") && thread.isAlive())
+                return true;
+        return false;
+    }
+
+    static void Check(String source, boolean pipelined, int expected) throws Exception
+    {
+        ByteBuffer bytes    = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+        Compiler   compiler = new Compiler(bytes, "generated");
+        assertEquals(pipelined, compiler.parser._lexer instanceof TokenPipeline, bytes.limit() + " bytes");
+        assertEquals(expected, compiler.Compile(new PrintStream(OutputStream.nullOutputStream())), bytes.limit() + " bytes");
+        assertFalse(LexerThreadAlive(), bytes.limit() + " bytes: a minic-lexer thread outlives the check");
+    }
+
+    @Test
+    public void NoLexerThreadOutlivesACheck() throws Exception
+    {
+        assertTrue(TokenPipeline.Worth(TokenPipeline.THRESHOLD), "run with 2 cores or more (see pom.xml)");
+        String pipelined = Benchmark.GenerateSource(100, 300, false);   // ~1.4 MB
+        String chunked   = Benchmark.GenerateSource(650, 300, false);   // ~9 MB
+        assertTrue(pipelined.length() >= TokenPipeline.THRESHOLD && pipelined.length() < ParallelParser.THRESHOLD);
+        assertTrue(chunked.length() >= ParallelParser.THRESHOLD);
+        Check(Benchmark.GenerateSource(3, 3, false), false, 0);
+        Check(pipelined, true, 0);
+        Check(Benchmark.GenerateSource(100, 300, true), true, -1);
+        Check("num f() { " + pipelined, true, -1);                     // an error in the first block
+        Check(chunked, false, 0);
+        Check(Benchmark.GenerateSource(650, 300, true), false, -1);    // parsed as one after the chunks fail
+    }
+
+    @Test
+    public void TheLexerThreadStartsOnTheSecondBlock() throws Exception
+    {
+        byte[]        source   = Benchmark.GenerateSource(100, 300, false).getBytes(StandardCharsets.UTF_8);
+        TokenPipeline pipeline = new TokenPipeline(new ByteLexer(ByteBuffer.wrap(source)));
+        Parser        parser   = new Parser(pipeline, null);
+        assertNull(pipeline.thread, "started by the first block");
+        while(parser._consumed <= parser._tokens.count)
+            parser.Advance();
+        assertNotNull(pipeline.thread, "not started by the second block");
+        pipeline.Close();
+        assertFalse(pipeline.thread.isAlive());
+        assertThrows(IOException.class, () -> pipeline.Fill(new TokenBuffer()));
+    }
+
+    static String Output(String source, boolean pipelined) throws Exception
+    {
+        ByteLexer lexer    = new ByteLexer(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+        Compiler  compiler = new Compiler();
+        compiler.parser = new Parser(pipelined ? new TokenPipeline(lexer) : lexer, compiler);
+        compiler.parser._maxerrors = 10;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compiler.Compile(new PrintStream(out, true, "UTF-8"));
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void APipelinedParsePrintsTheSame() throws Exception
+    {
+        String source = Benchmark.GenerateSource(100, 30, false);
+        String middle = source.substring(0, source.length() / 2) + "x <- ;" + source.substring(source.length() / 2);
+        for(String input : new String[] { source, middle, Benchmark.GenerateSource(100, 30, true) })
+            assertEquals(Output(input, false), Output(input, true));
+        assertTrue(Output(middle, true).startsWith("Error"), "an error in the middle of the file");
+    }
+
+    @Test
+    public void APipelinedParseHasTheSameSymbols() throws Exception
+    {
+        byte[]        source   = Benchmark.GenerateSource(100, 30, false).getBytes(StandardCharsets.UTF_8);
+        ByteLexer     lexer    = new ByteLexer(ByteBuffer.wrap(source));
+        Parser        piped    = new Parser(new TokenPipeline(lexer), null);
+        Parser        direct   = new Parser(new ByteLexer(ByteBuffer.wrap(source)), null);
+        piped.yyparse();
+        direct.yyparse();
+        SymbolTable   symbols  = piped._parsetree.symbols;
+        assertNotSame(lexer.symbols, symbols, "the parser reads the lexer thread's table");
+        assertEquals(direct._parsetree.symbols.Count(), symbols.Count());
+        for(int id=0; id<symbols.Count(); id++)
+            assertEquals(direct._parsetree.symbols.Name(id), symbols.Name(id));
+        for(ParseTree.FuncDecl func : piped._parsetree.funcs)
+            assertEquals(func.ident, symbols.Name(func.sym));
+    }
+}
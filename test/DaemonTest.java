@@ -0,0 +1,117 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DaemonTest
+{
+    // A shutdown answers every request: the checks queued from every connection are finished
+    // before the pool stops and the connections are closed, and a request after the shutdown
+    // gets an error instead of a check.
+
+    static final int REQUESTS = 200;
+
+    @TempDir
+    Path root;
+
+    static SocketChannel Connect(Path socket) throws Exception
+    {
+        for(int tries=0; ; tries++)
+        {
+            try
+            {
+                return SocketChannel.open(UnixDomainSocketAddress.of(socket));
+            }
+            catch(IOException e)
+            {
+                if(tries == 500)
+                    throw e;
+                Thread.sleep(10);       // not listening yet
+            }
+        }
+    }
+
+    static String Request(int id, String source)
+    {
+        return Json.Write(Json.Of("id", id, "source", source, "max_errors", 10)) + "\n";
+    }
+
+    @Test
+    public void AShutdownAnswersTheChecksQueuedOnEveryConnection() throws Exception
+    {
+        Daemon daemon = new Daemon(1);
+        Path   socket = root.resolve("daemon.sock");
+        Thread listen = new Thread(() ->
+        {
+            try
+            {
+                daemon.Listen(socket);
+            }
+            catch(Exception e)
+            {
+                throw new RuntimeException(e);
+            }
+        });
+        listen.start();
+
+        // a client queues many checks on the one worker, then another asks for the shutdown
+        String         source  = Benchmark.GenerateSource(20, 30, false);
+        SocketChannel  client  = Connect(socket);
+        Writer         out     = new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8);
+        BufferedReader in      = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+        for(int id=0; id<REQUESTS; id++)
+            out.write(Request(id, (id % 10 == 0) ? "num f() { x <- ; }" : source));
+        out.flush();
+        try(SocketChannel stop = Connect(socket))
+        {
+            Channels.newOutputStream(stop).write("{\"op\": \"shutdown\"}\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Set<Integer> answered = new TreeSet<Integer>();
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () ->
+        {
+            String line;
+            while((line = in.readLine()) != null)   // until the daemon closes the connection
+            {
+                // checked, or read by the daemon only after the shutdown
+                Object response = Json.Parse(line);
+                int    id       = Json.Int(response, "id", -1);
+                if(Json.Get(response, "error") != null)
+                    assertEquals("the daemon is shutting down", Json.String(response, "error"), line);
+                else
+                    assertEquals(id % 10 != 0, Json.Get(response, "ok"), line);
+                answered.add(id);
+            }
+            listen.join();
+        });
+        client.close();
+        assertEquals(REQUESTS, answered.size(), "requests answered");
+        assertTrue(daemon.pool.isTerminated());
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    public void ARequestAfterAShutdownIsAnsweredWithAnError() throws Exception
+    {
+        Daemon daemon = new Daemon(2);
+        daemon.Shutdown();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        daemon.Serve(new ByteArrayInputStream((Request(1, "num f() { }") + Request(2, "num g() { }")).getBytes(StandardCharsets.UTF_8)), out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        for(int i=0; i<lines.length; i++)
+        {
+            Object response = Json.Parse(lines[i]);
+            assertEquals(i + 1, Json.Int(response, "id", -1));
+            assertEquals(false, Json.Get(response, "ok"));
+            assertEquals("the daemon is shutting down", Json.String(response, "error"));
+        }
+    }
+}
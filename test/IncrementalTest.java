@@ -0,0 +1,214 @@
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalTest
+{
+    // Every edit of an Incremental leaves the tree (and the errors) that a full parse of its text
+    // builds, whether the edit was parsed on its own or not: in a function, while a hole is open
+    // (a region that did not parse), across the hole, and in and around comments, which can make
+    // an edit change the tokens far from it. The line index of Offset() and Position() follows
+    // every edit.
+
+    static String Print(ParseTree.Program program) throws Exception
+    {
+        if(program == null)
+            return null;
+        StringBuilder text = new StringBuilder();
+        program.Print(text, 0);
+        return text.toString();
+    }
+
+    static List<String> Errors(List<Diagnostic> errors)
+    {
+        List<String> text = new ArrayList<String>();
+        for(Diagnostic error : errors)
+            text.add(error.line + ":" + error.column + " " + error.Message());
+        return text;
+    }
+
+    static void AssertSameAsFullParse(Incremental incremental) throws Exception
+    {
+        String text = incremental.Text();
+        Parser full = Incremental.Parse(text.toCharArray(), null, incremental.maxerrors);
+        assertEquals(Print(full._parsetree), Print(incremental.Program()), text);
+        assertEquals(Errors(full._errors), Errors(incremental.Errors()), text);
+    }
+
+    static int Find(Incremental incremental, String text, String in)
+    {
+        // the offset of text in the function named in, in the current text
+        String current = incremental.Text();
+        int    offset  = current.indexOf(text, current.indexOf(in));
+        assertTrue(offset >= 0, text + " in " + in);
+        return offset;
+    }
+
+    @Test
+    public void AnEditInAFunctionReparsesOnlyIt() throws Exception
+    {
+        String      source      = Benchmark.GenerateSource(200, 20, false);
+        Incremental incremental = new Incremental(source);
+        int         offset      = source.indexOf("x <- x + a", source.length() / 2);
+        for(int i=0; i<50; i++)
+        {
+            incremental.Edit(offset, 0, " ");
+            assertEquals(1, incremental.reparsed);
+            incremental.Edit(offset, 1, "");
+            assertEquals(1, incremental.reparsed);
+        }
+        assertEquals(source, incremental.Text());
+        AssertSameAsFullParse(incremental);
+    }
+
+    @Test
+    public void EditsWithAHoleOpenEqualAFullParse() throws Exception
+    {
+        Incremental incremental = new Incremental(Benchmark.GenerateSource(10, 3, false));
+        incremental.maxerrors = 5;
+
+        // a ";" deleted in func3 opens a hole: no tree, and the errors of the text after the edit
+        int semicolon = Find(incremental, "num x;", "func3(") + "num x".length();
+        incremental.Edit(semicolon, 1, "");
+        assertNull(incremental.Program());
+        assertEquals(0, incremental.reparsed);
+        AssertSameAsFullParse(incremental);
+
+        // edits elsewhere while it is open: one that parses, one that adds a second error
+        incremental.Edit(Find(incremental, "x <- x + a", "func7("), 0, " ");
+        assertNull(incremental.Program());
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "return x;", "func8("), "return".length(), "retrun");
+        AssertSameAsFullParse(incremental);
+
+        // an edit across the hole: from the body of func3 to the statements of func4, which merges them
+        int from = Find(incremental, "return x;", "func3(");
+        int to   = Find(incremental, "x <- x + a", "func4(");
+        incremental.Edit(from, to - from, "");
+        AssertSameAsFullParse(incremental);
+
+        // the fixes: the hole is parsed with its own region, and the tree is back
+        incremental.Edit(Find(incremental, "retrun", "func8("), "retrun".length(), "return");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "num x", "func3(") + "num x".length(), 0, ";");
+        assertNotNull(incremental.Program());
+        assertTrue(incremental.reparsed > 0, "the fix is parsed incrementally: " + incremental.reparsed);
+        AssertSameAsFullParse(incremental);
+    }
+
+    @Test
+    public void EditsInAndAroundCommentsEqualAFullParse() throws Exception
+    {
+        Incremental incremental = new Incremental(Benchmark.GenerateSource(10, 3, false));
+
+        // in a line comment: only the function is parsed
+        incremental.Edit(Find(incremental, "line comment", "func2(") + "line".length(), 0, " more");
+        assertEquals(1, incremental.reparsed);
+        AssertSameAsFullParse(incremental);
+
+        // a line comment that swallows the statement after it, and the end of a function
+        incremental.Edit(Find(incremental, "print func4", "func4(") - 1, 1, " %% ");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "return x;", "func5("), 0, "%%");
+        AssertSameAsFullParse(incremental);
+
+        // "%*" and "*%" in a line comment, and in the block comment the text starts with
+        incremental.Edit(Find(incremental, "line comment", "func6("), 0, "*% %* ");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "generated", "%*"), 0, "*% ");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "*% generated", "%*"), 3, "");
+        AssertSameAsFullParse(incremental);
+
+        // a block comment opened in func1, which is greedy: it ends at the last "*%" of the text
+        int open = Find(incremental, "num x;", "func1(");
+        incremental.Edit(open, 0, "%* ");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "bool flag;", "func8("), 0, " *%");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(Find(incremental, "x <- x + a", "func9("), 0, " *% ");
+        AssertSameAsFullParse(incremental);
+        incremental.Edit(open, 3, "");
+        AssertSameAsFullParse(incremental);
+    }
+
+    @Test
+    public void RandomEditsEqualAFullParse() throws Exception
+    {
+        // edits at random places of the corpus and of a generated program, with snippets that
+        // open and close functions, blocks and comments; half of them are undone right after
+        Random       random   = new Random(42);
+        String[]     snippets = { "x", "1", " ", ";", "}", "{", "\n", "num f() { return 1; }\n", "%", "*", "%%c\n",
+                                  "%*", "*%", "<-", "(", ")", "print y;", "if", "else", "\n}\nnum g(){\n", "bool" };
+        List<String> sources  = new ArrayList<String>();
+        try(DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get("testcases"), "*.minc"))
+        {
+            for(Path file : dir)
+                sources.add(Files.readString(file));
+        }
+        sources.add(Benchmark.GenerateSource(20, 12, false));
+        int incremental0 = 0;
+        for(String source : sources)
+        {
+            Incremental incremental = new Incremental(source);
+            incremental.maxerrors = 3;
+            for(int edit=0; edit<150; edit++)
+            {
+                int    length   = incremental.Length();
+                int    offset   = random.nextInt(length + 1);
+                int    removed  = random.nextBoolean() ? 0 : Math.min(length - offset, random.nextInt(4));
+                String inserted = random.nextInt(3) == 0 ? "" : snippets[random.nextInt(snippets.length)];
+                String old      = incremental.Text().substring(offset, offset + removed);
+                incremental.Edit(offset, removed, inserted);
+                AssertSameAsFullParse(incremental);
+                if(incremental.reparsed >= 0)
+                    incremental0++;
+                if(random.nextBoolean())
+                {
+                    incremental.Edit(offset, inserted.length(), old);
+                    AssertSameAsFullParse(incremental);
+                }
+            }
+        }
+        assertTrue(incremental0 > 0, "some edits are parsed incrementally");
+    }
+
+    static int Offset(String text, int line, int character)
+    {
+        // by a scan of the text, as Incremental.Offset() did
+        int offset = 0;
+        for(int l=0; l<line && offset<text.length(); offset++)
+            if(text.charAt(offset) == '\n')
+                l++;
+        for(int c=0; c<character && offset<text.length() && text.charAt(offset)!='\n'; c++)
+            offset++;
+        return offset;
+    }
+
+    @Test
+    public void PositionsFollowTheEdits() throws Exception
+    {
+        Random      random      = new Random(7);
+        String[]    snippets    = { "x", "\n", "\n\n", "a\nb", "num f() {\n}\n", "" };
+        Incremental incremental = new Incremental(Benchmark.GenerateSource(5, 6, false));
+        for(int edit=0; edit<500; edit++)
+        {
+            int length  = incremental.Length();
+            int offset  = random.nextInt(length + 1);
+            int removed = Math.min(length - offset, random.nextInt(6));
+            incremental.Edit(offset, removed, snippets[random.nextInt(snippets.length)]);
+            String text  = incremental.Text();
+            int    lines = text.split("\n", -1).length;
+            for(int i=0; i<20; i++)
+            {
+                int    at       = random.nextInt(text.length() + 1);
+                int[]  position = incremental.Position(at);
+                assertEquals(at, incremental.Offset(position[0], position[1]), text);
+                assertEquals(Offset(text, position[0], position[1]), at, text);
+                int    line     = random.nextInt(lines + 2), character = random.nextInt(12);
+                assertEquals(Offset(text, line, character), incremental.Offset(line, character), line + ":" + character + " of " + text);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LanguageServerTest
+{
+    // A scripted client on a LanguageServer through pipes, as an editor drives it: the diagnostics
+    // it publishes after each edit are those of a parse of the edited text, a burst of edits is
+    // published once, formatting gives the printed tree (nothing while there is an error), and
+    // exit ends the server with 0 after shutdown and 1 without.
+
+    static final String URI = "file:///test.minc";
+
+    static class Client implements AutoCloseable
+    {
+        final PipedOutputStream toServer   = new PipedOutputStream();
+        final PipedOutputStream fromServer = new PipedOutputStream();
+        final InputStream       in;
+        final LanguageServer    server;
+        final Thread            thread;
+        final int[]             exit       = { -1 };
+        String                  text;                   // the document, as the client has edited it
+        int                     version;
+
+        Client(long debounce) throws IOException
+        {
+            in     = new PipedInputStream(fromServer, 1 << 20);
+            server = new LanguageServer(new PipedInputStream(toServer, 1 << 20), fromServer, debounce);
+            thread = new Thread(() ->
+            {
+                try { exit[0] = server.Run(); }
+                catch(Exception e) { e.printStackTrace(); }
+            }, "lsp-server");
+            thread.start();
+        }
+
+        void Send(Object... members) throws IOException
+        {
+            List<Object> message = new ArrayList<Object>(List.of("jsonrpc", "2.0"));
+            message.addAll(Arrays.asList(members));
+            LanguageServer.Write(toServer, Json.Of(message.toArray()));
+        }
+
+        Object Next() throws IOException
+        {
+            String message = LanguageServer.Read(in);
+            assertNotNull(message, "the server closed the connection");
+            return Json.Parse(message);
+        }
+
+        Object Reply(long id) throws IOException
+        {
+            // the response to request id; diagnostics published meanwhile are skipped
+            while(true)
+            {
+                Object message = Next();
+                if(Long.valueOf(id).equals(Json.Get(message, "id")))
+                    return message;
+                assertEquals("textDocument/publishDiagnostics", Json.String(message, "method"), Json.Write(message));
+            }
+        }
+
+        List<Object> Diagnostics() throws IOException
+        {
+            Object message = Next();
+            assertEquals("textDocument/publishDiagnostics", Json.String(message, "method"), Json.Write(message));
+            assertEquals(URI, Json.String(Json.Get(message, "params"), "uri"));
+            return Json.Array(Json.Get(message, "params"), "diagnostics");
+        }
+
+        void Edit(int line, int from, int to, String inserted) throws IOException
+        {
+            // replaces the chars [from, to) of a line, in the server's document and in text
+            Send("method", "textDocument/didChange",
+                 "params", Json.Of("textDocument", Json.Of("uri", URI, "version", ++version),
+                                   "contentChanges", List.of(Json.Of("range", LanguageServer.Range(line, from, line, to), "text", inserted))));
+            String[] lines = text.split("\n", -1);
+            lines[line] = lines[line].substring(0, from) + inserted + lines[line].substring(to);
+            text = String.join("\n", lines);
+        }
+
+        void Open(String source) throws IOException
+        {
+            text    = source;
+            version = 1;
+            Send("method", "textDocument/didOpen",
+                 "params", Json.Of("textDocument", Json.Of("uri", URI, "languageId", "minic", "version", version, "text", source)));
+        }
+
+        List<Object> Format(int id) throws IOException
+        {
+            Send("id", id, "method", "textDocument/formatting",
+                 "params", Json.Of("textDocument", Json.Of("uri", URI), "options", Json.Of("tabSize", 4, "insertSpaces", true)));
+            return Json.Array(Reply(id), "result");
+        }
+
+        int Exit() throws InterruptedException, IOException
+        {
+            Send("method", "exit");
+            thread.join(10000);
+            assertFalse(thread.isAlive(), "the server is still running after exit");
+            return exit[0];
+        }
+
+        public void close() throws IOException
+        {
+            toServer.close();
+        }
+    }
+
+    static List<String> Expected(String text)
+    {
+        // the diagnostics of a parse of text, as "line:character message" (0-based)
+        List<String> expected = new ArrayList<String>();
+        for(MiniC.Message error : MiniC.Parse(text, MiniC.Options.DEFAULT.MaxErrors(LanguageServer.MAX_ERRORS)).errors)
+            expected.add((error.line - 1) + ":" + (error.column - 1) + " " + error.text);
+        return expected;
+    }
+
+    static List<String> Actual(List<Object> diagnostics)
+    {
+        List<String> actual = new ArrayList<String>();
+        for(Object diagnostic : diagnostics)
+        {
+            Object start = Json.Get(Json.Get(diagnostic, "range"), "start");
+            actual.add(Json.Int(start, "line", -1) + ":" + Json.Int(start, "character", -1) + " " + Json.String(diagnostic, "message"));
+        }
+        return actual;
+    }
+
+    static String Printed(String text) throws Exception
+    {
+        StringBuilder printed = new StringBuilder();
+        MiniC.Parse(text).tree.Print(printed, 0);
+        return printed.toString();
+    }
+
+    static int Line(String source, String line, String after)
+    {
+        // the first line that is line, after the one that starts with after
+        List<String> lines = Arrays.asList(source.split("\n", -1));
+        int          start = 0;
+        while(!lines.get(start).startsWith(after))
+            start++;
+        return start + lines.subList(start, lines.size()).indexOf(line);
+    }
+
+    @Test
+    public void DiagnosticsFormattingAndShutdown() throws Exception
+    {
+        String source = Benchmark.GenerateSource(5, 6, false);
+        int    line   = Line(source, "    x <- x + a * 2 - b[x] / 3.5;", "num func2(");
+        int    last   = Line(source, "    return x;", "num func4(");
+        try(Client client = new Client(0))
+        {
+            client.Send("id", 1, "method", "initialize", "params", Json.Of());
+            Object capabilities = Json.Get(Json.Get(client.Reply(1), "result"), "capabilities");
+            assertEquals(Boolean.TRUE, Json.Get(capabilities, "documentFormattingProvider"));
+            client.Open(source);
+            assertEquals(List.of(), client.Diagnostics());
+
+            // an error typed in, a second one in another function, then both taken out again;
+            // there is nothing to format while there is an error
+            client.Edit(line, 4, 4, "(");
+            assertEquals(Expected(client.text), Actual(client.Diagnostics()), client.text);
+            assertEquals(List.of(), client.Format(2));
+            client.Edit(last, 4, 10, "retrun");
+            assertEquals(Expected(client.text), Actual(client.Diagnostics()), client.text);
+            assertEquals(2, Expected(client.text).size());
+            assertEquals(List.of(), client.Format(3));
+            client.Edit(line, 4, 5, "");
+            assertEquals(Expected(client.text), Actual(client.Diagnostics()), client.text);
+            client.Edit(last, 4, 10, "return");
+            assertEquals(List.of(), client.Diagnostics());
+            assertEquals(source, client.text);
+
+            // the formatting replaces the whole document with the printed tree
+            List<Object> formatted = client.Format(4);
+            assertEquals(1, formatted.size());
+            assertEquals(Printed(source), Json.String(formatted.get(0), "newText"));
+            Object end = Json.Get(Json.Get(formatted.get(0), "range"), "end");
+            assertEquals(source.split("\n", -1).length - 1, Json.Int(end, "line", -1));
+
+            client.Send("id", 5, "method", "no/such/method");
+            assertEquals(-32601, Json.Int(Json.Get(client.Reply(5), "error"), "code", 0));
+
+            client.Send("method", "textDocument/didClose", "params", Json.Of("textDocument", Json.Of("uri", URI)));
+            assertEquals(List.of(), client.Diagnostics());
+
+            client.Send("id", 6, "method", "shutdown");
+            assertNull(Json.Get(client.Reply(6), "error"));
+            assertEquals(0, client.Exit());
+        }
+        try(Client client = new Client(0))
+        {
+            assertEquals(1, client.Exit(), "exit without shutdown");
+        }
+    }
+
+    @Test
+    public void ABurstOfEditsIsPublishedOnce() throws Exception
+    {
+        // the edits are sent well within the debounce delay, so only the last one schedules a
+        // publishing that is not cancelled (any other would come first, and be seen here)
+        String source = Benchmark.GenerateSource(5, 6, false);
+        int    line   = Line(source, "    return x;", "num func1(");
+        try(Client client = new Client(1000))
+        {
+            client.Open(source);
+            for(int i=0; i<10; i++)
+                client.Edit(line, 4, 4, "x");
+            assertEquals(Expected(client.text), Actual(client.Diagnostics()), "the first publishing is of the last edit");
+            client.Send("id", 1, "method", "shutdown");
+            Object reply = client.Next();
+            assertEquals(1L, Json.Get(reply, "id"), "only one publishing: " + Json.Write(reply));
+            assertEquals(0, client.Exit());
+        }
+    }
+}
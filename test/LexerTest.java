@@ -0,0 +1,104 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LexerTest
+{
+    // src/Lexer.java is generated, and never edited by hand: JFlex 1.6.1 builds it from Lexer.flex
+    // with the skeleton Lexer.skel, and Generate() then makes the two changes in code JFlex emits
+    // itself, which neither can express (EMITTED): ZZ_CMAP is unpacked for the Latin-1 chars only,
+    // and the other chars are translated by zzCMapHigh() (see Lexer.skel). The test fails when the
+    // checked-in Lexer.java is not what they generate; after a change to either, regenerate it:
+    //   mvn test -Dtest=LexerTest -Dlexer.update=true
+    // A scanner lexes a block of tokens ahead of the parser, so an unexpected char is reported by
+    // the parser when it reaches the LEXERROR, and not at all by a parse that stops before it.
+
+    static final String[][] EMITTED = {
+        { "zzUnpackCMap(ZZ_CMAP_PACKED)", "zzUnpackCMap(ZZ_CMAP_PACKED, 0x100)"                         },
+        { "zzCMapL[zzInput]",             "(zzInput < 0x100 ? zzCMapL[zzInput] : zzCMapHigh(zzInput))"  },
+    };
+
+    static String Generate(Path dir) throws Exception
+    {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process jflex = new ProcessBuilder(java, "-jar", "jflex-1.6.1.jar", "-q", "--skel", "Lexer.skel", "-d", dir.toString(), "Lexer.flex")
+                            .directory(new java.io.File("src")).inheritIO().start();
+        assertEquals(0, jflex.waitFor(), "JFlex failed on src/Lexer.flex");
+        // the sources have CRLF line ends; JFlex writes the lines of the skeleton with the platform's
+        String lexer = Files.readString(dir.resolve("Lexer.java")).replace("\r\n", "\n").replace("\n", "\r\n");
+        for(String[] change : EMITTED) {
+            int at = lexer.indexOf(change[0]);
+            assertTrue(at >= 0 && lexer.indexOf(change[0], at + 1) < 0, "JFlex no longer emits " + change[0] + " once");
+            lexer = lexer.replace(change[0], change[1]);
+        }
+        return lexer;
+    }
+
+    @Test
+    public void TheLexerIsGeneratedFromItsSpecification(@TempDir Path dir) throws Exception
+    {
+        String generated = Generate(dir);
+        Path lexer = Path.of("src", "Lexer.java");
+        if(Boolean.getBoolean("lexer.update"))
+            Files.writeString(lexer, generated);
+        List<String> expected = generated.lines().toList();
+        List<String> actual   = Files.readString(lexer).lines().toList();
+        for(int line = 0; line < Math.min(expected.size(), actual.size()); line++)
+            assertEquals(expected.get(line), actual.get(line), "src/Lexer.java:" + (line + 1) + " is not what Lexer.flex generates (see LexerTest)");
+        assertEquals(expected.size(), actual.size(), "src/Lexer.java is not what Lexer.flex generates (see LexerTest)");
+        assertEquals(generated, Files.readString(lexer), "src/Lexer.java has other line ends than CRLF");
+    }
+
+    static String Stderr(Callable<?> run) throws Exception
+    {
+        PrintStream           err = System.err;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try
+        {
+            run.call();
+        }
+        finally
+        {
+            System.setErr(err);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    static String Stderr(String source, String scanner) throws Exception
+    {
+        // the messages of a parse (to the first error) by the scanner named, which is not quiet
+        return Stderr(() ->
+        {
+            ByteLexer bytes  = new ByteLexer(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+            Parser    parser = switch(scanner)
+            {
+                case "Lexer"         -> new Parser(source.toCharArray(), source.length(), null);
+                case "ByteLexer"     -> new Parser(bytes, null);
+                default              -> new Parser(new TokenPipeline(bytes), null);
+            };
+            return parser.yyparse();
+        });
+    }
+
+    @Test
+    public void AnUnexpectedCharIsReportedWhenTheParserReachesIt() throws Exception
+    {
+        String program = Benchmark.GenerateSource(20, 30, false);   // some blocks, for TokenPipeline
+        for(String scanner : new String[] { "Lexer", "ByteLexer", "TokenPipeline" })
+        {
+            String reached = "Error: unexpected character '\u00e9'" + System.lineSeparator();
+            assertEquals(reached, Stderr("num f() { x <- 1; \u00e9 }", scanner), scanner);
+            assertEquals(reached, Stderr(program + "num g() { x <- 1; \u00e9 }", scanner), scanner);
+            assertEquals("", Stderr("num f( { } num g() { \u00e9 }", scanner), scanner + ": the parse ends before it");
+            assertEquals("", Stderr(program.replaceFirst("\\(", "(;") + "num g() { \u00e9 }", scanner), scanner + ": the parse ends before it");
+        }
+        assertEquals("", Stderr(() -> new Incremental("num f() { x <- 1; \u00e9 }")), "an Incremental (of LanguageServer) is quiet");
+    }
+}
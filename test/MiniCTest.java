@@ -0,0 +1,119 @@
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MiniCTest
+{
+    // The library API under load: THREADS threads (virtual ones where the JDK has them) start
+    // together and parse passing and failing sources through MiniC.Parse, as chars, bytes and
+    // files, with and without the tree, with 1 and 10 errors allowed. Every result must be the one
+    // the same call gets on a single thread: its verdict, its errors and its indented code.
+
+    static final int THREADS = 64;
+    static final int PARSES  = 200;     // per thread
+
+    @TempDir
+    Path root;
+
+    static final MiniC.Options[] OPTIONS =
+    {
+        MiniC.Options.DEFAULT,
+        MiniC.Options.DEFAULT.MaxErrors(10),
+        MiniC.Options.DEFAULT.Tree(false),
+        MiniC.Options.DEFAULT.Tree(false).MaxErrors(10),
+    };
+
+    static String Describe(MiniC.ParseResult result)
+    {
+        StringBuilder text = new StringBuilder().append(result.ok).append('\n');
+        for(MiniC.Message error : result.errors)
+            text.append(error).append('\n');
+        if(result.tree != null)
+            text.append(result.Format());
+        return text.toString();
+    }
+
+    static Thread Start(Runnable task) throws Exception
+    {
+        // a virtual thread on a JDK that has them (21 and later), a platform thread otherwise
+        try
+        {
+            Method virtual = Thread.class.getMethod("startVirtualThread", Runnable.class);
+            return (Thread) virtual.invoke(null, task);
+        }
+        catch(NoSuchMethodException e)
+        {
+            Thread thread = new Thread(task);
+            thread.start();
+            return thread;
+        }
+    }
+
+    @Test
+    public void ThreadsGetWhatASingleThreadGets() throws Exception
+    {
+        List<byte[]> inputs = new ArrayList<byte[]>();
+        inputs.addAll(RecognizerTest.Corpus("succ_"));
+        inputs.addAll(RecognizerTest.Corpus("fail_"));
+        inputs.addAll(RecognizerTest.Mutants(inputs).subList(0, 64));
+        inputs.add(Benchmark.GenerateSource(20, 30, false).getBytes(StandardCharsets.UTF_8));
+        inputs.add(Benchmark.GenerateSource(20, 30, true ).getBytes(StandardCharsets.UTF_8));
+        int      n        = inputs.size();
+        String[] sources  = new String[n];
+        Path[]   files    = new Path[n];
+        String[] expected = new String[n * OPTIONS.length];
+        int      failing  = 0;
+        for(int i=0; i<n; i++)
+        {
+            sources[i] = new String(inputs.get(i), StandardCharsets.UTF_8);
+            files  [i] = Files.write(root.resolve(i + ".minc"), inputs.get(i));
+            for(int o=0; o<OPTIONS.length; o++)
+                expected[i * OPTIONS.length + o] = Describe(MiniC.Parse(sources[i], OPTIONS[o]));
+            if(!MiniC.Parse(sources[i]).ok)
+                failing++;
+        }
+        assertTrue(failing > 0 && failing < n, failing + " of " + n + " inputs fail");
+
+        CountDownLatch start      = new CountDownLatch(1);
+        Queue<String>  mismatches = new ConcurrentLinkedQueue<String>();
+        List<Thread>   threads    = new ArrayList<Thread>();
+        for(int t=0; t<THREADS; t++)
+        {
+            int seed = t;
+            threads.add(Start(() ->
+            {
+                try
+                {
+                    start.await();
+                    for(int k=seed; k<seed + PARSES; k++)
+                    {
+                        int               i       = (k * 7) % n;
+                        int               o       = (k / n + seed) % OPTIONS.length;
+                        MiniC.ParseResult result;
+                        switch((k + seed) % 3)
+                        {
+                            case 0 : result = MiniC.Parse(sources[i]   , OPTIONS[o]); break;
+                            case 1 : result = MiniC.Parse(inputs.get(i), OPTIONS[o]); break;
+                            default: result = MiniC.Parse(files[i]     , OPTIONS[o]); break;
+                        }
+                        if(!Describe(result).equals(expected[i * OPTIONS.length + o]))
+                            mismatches.add("thread " + seed + ": input " + i + ", options " + o);
+                    }
+                }
+                catch(Exception e)
+                {
+                    mismatches.add("thread " + seed + ": " + e);
+                }
+            }));
+        }
+        start.countDown();
+        for(Thread thread : threads)
+            thread.join();
+        assertTrue(mismatches.isEmpty(), mismatches.size() + " mismatches, the first: " + mismatches.peek());
+    }
+}
@@ -0,0 +1,74 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelParserTest
+{
+    // A file parsed in chunks is the program a parse of it as one builds: the same printed tree,
+    // the same function spans and symbol ids, and no program at all where that parse fails. The
+    // chunks are made small (CHUNK), so that the corpus files and generated programs, with block
+    // comments across functions, are cut in many places.
+
+    static final int CHUNK = 512;
+
+    static String Describe(ParseTree.Program program) throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        program.Print(text, 0);
+        for(ParseTree.FuncDecl func : program.funcs)
+            text.append(func.ident).append(' ').append(func.sym).append(' ').append(func.start).append('-').append(func.end).append('\n');
+        return text.toString();
+    }
+
+    static ParseTree.Program Sequential(byte[] source) throws Exception
+    {
+        ByteLexer lexer = new ByteLexer(ByteBuffer.wrap(source));
+        lexer.quiet = true;
+        Parser parser = new Parser(lexer, null);
+        parser.yyparse();
+        return parser._parsetree;
+    }
+
+    @Test
+    public void ChunksParseToTheSameProgram() throws Exception
+    {
+        String generated = Benchmark.GenerateSource(60, 12, false);
+        String commented = generated.replaceFirst("num func10\\(", "%* func9 and func10 are out *% num func10(")
+                                    .replaceFirst("\\n\\nnum func9\\(", "\n\n%* num func9(")
+                                    .replace("num func30(", "%% a line comment { } %* *%\nnum func30(");
+        List<byte[]> inputs = new ArrayList<byte[]>();
+        inputs.add(generated.getBytes(StandardCharsets.UTF_8));
+        inputs.add(commented.getBytes(StandardCharsets.UTF_8));
+        inputs.add(Benchmark.GenerateSource(60, 12, true).getBytes(StandardCharsets.UTF_8));
+        inputs.addAll(RecognizerTest.Corpus("succ_"));
+        inputs.addAll(RecognizerTest.Corpus("fail_"));
+        inputs.addAll(RecognizerTest.Mutants(inputs));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            int chunked = 0;
+            for(byte[] input : inputs)
+            {
+                String            source   = new String(input, StandardCharsets.UTF_8);
+                ParseTree.Program expected = Sequential(input);
+                ParseTree.Program actual   = ParallelParser.Parse(ByteBuffer.wrap(input), pool, CHUNK, null, false);
+                if(actual == null)
+                    continue;                               // parsed as one by the caller
+                assertNotNull(expected, "chunks of a failing file parse: " + source);
+                assertEquals(Describe(expected), Describe(actual), source);
+                chunked++;
+            }
+            assertNotNull(ParallelParser.Parse(ByteBuffer.wrap(inputs.get(0)), pool, CHUNK, null, false), "not split");
+            assertNotNull(ParallelParser.Parse(ByteBuffer.wrap(inputs.get(1)), pool, CHUNK, null, false), "not split");
+            assertNull(ParallelParser.Parse(ByteBuffer.wrap(inputs.get(2)), pool, CHUNK, null, false), "a failing chunk");
+            assertTrue(chunked > 2, chunked + " inputs parsed in chunks");
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
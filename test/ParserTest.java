@@ -0,0 +1,36 @@
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParserTest
+{
+    // The list productions take no stack per element: one function of STMTS statements parses on
+    // a thread with the default stack, with every engine (the timing of 10^3 .. 10^6 statements,
+    // which must grow linearly, is java Benchmark scaling).
+
+    static final int STMTS = 1000000;
+
+    @Test
+    public void AMillionStatementsOnTheDefaultStack() throws Exception
+    {
+        String source = Benchmark.GenerateFlatFunction(STMTS);
+        for(int engine : new int[] { Parser.ENGINE_RECURSIVE, Parser.ENGINE_TABLE, Parser.ENGINE_ARENA, Parser.ENGINE_RECOGNIZER })
+        {
+            Parser      parser = new Parser(new StringReader(source), null);
+            int[]       result = { 1 };
+            Throwable[] thrown = { null };
+            parser._engine = engine;
+            Thread thread = new Thread(() ->
+            {
+                try { result[0] = parser.yyparse(); }
+                catch(Throwable e) { thrown[0] = e; }
+            }, "parse-" + engine);      // with the default stack size
+            thread.start();
+            thread.join();
+            assertNull(thrown[0], "engine " + engine);
+            assertEquals(0, result[0], "engine " + engine + ": " + parser._errors);
+            if(engine == Parser.ENGINE_RECURSIVE || engine == Parser.ENGINE_TABLE)
+                assertEquals(STMTS + 1, parser._parsetree.funcs.get(0).stmtlist.size(), "engine " + engine);     // and the return
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecognizerTest
+{
+    // Parser.ENGINE_RECOGNIZER, as Batch runs it for --format jsonl/sarif: the same verdict and
+    // first error as the recursive parse, and next to no allocation per token. The inputs are the
+    // corpus, its files with one char deleted here and there (most of which fail, each somewhere
+    // else), and a generated program with and without an error at its end.
+
+    static final int    PER_FILE  = 256;    // bytes: a Compiler, the ByteBuffer of the input and the Diagnostic of a failing file
+    static final double PER_TOKEN = 0.01;   // bytes per token beyond that
+
+    static List<byte[]> Corpus(String prefix) throws Exception
+    {
+        List<byte[]> files = new ArrayList<byte[]>();
+        try(DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get("testcases"), prefix + "*.minc"))
+        {
+            for(Path file : dir)
+                files.add(Files.readAllBytes(file));
+        }
+        assertFalse(files.isEmpty(), "no testcases/" + prefix + "*.minc");
+        return files;
+    }
+
+    static List<byte[]> Mutants(List<byte[]> files)
+    {
+        // each file with one byte deleted, at 8 places picked by a fixed seed
+        Random       random  = new Random(1);
+        List<byte[]> mutants = new ArrayList<byte[]>();
+        for(byte[] file : files)
+        {
+            for(int i=0; i<8 && file.length > 0; i++)
+            {
+                int    at     = random.nextInt(file.length);
+                byte[] mutant = new byte[file.length - 1];
+                System.arraycopy(file, 0, mutant, 0, at);
+                System.arraycopy(file, at + 1, mutant, at, file.length - at - 1);
+                mutants.add(mutant);
+            }
+        }
+        return mutants;
+    }
+
+    static String Check(byte[] source, int engine) throws Exception
+    {
+        // the verdict, the first error and the tokens consumed of a parse by engine
+        ByteLexer lexer = new ByteLexer(ByteBuffer.wrap(source));
+        lexer.quiet = true;
+        Parser parser = new Parser(lexer, null, null, engine);
+        int    result = parser.yyparse();
+        String error  = parser._errors.isEmpty() ? "" : parser._errors.get(0).line + ":" + parser._errors.get(0).column + " " + parser._errors.get(0).Message();
+        return result + " " + error + " " + parser._consumed;
+    }
+
+    @Test
+    public void SameVerdictAndErrorAsTheFullParse() throws Exception
+    {
+        List<byte[]> inputs = new ArrayList<byte[]>();
+        inputs.addAll(Corpus("succ_"));
+        inputs.addAll(Corpus("fail_"));
+        inputs.addAll(Mutants(inputs));
+        inputs.add(Benchmark.GenerateSource(100, 20, false).getBytes(StandardCharsets.UTF_8));
+        inputs.add(Benchmark.GenerateSource(100, 20, true ).getBytes(StandardCharsets.UTF_8));
+        int failed = 0;
+        for(byte[] input : inputs)
+        {
+            String full = Check(input, Parser.ENGINE_RECURSIVE);
+            assertEquals(full, Check(input, Parser.ENGINE_RECOGNIZER), new String(input, StandardCharsets.UTF_8));
+            if(!full.startsWith("0 "))
+                failed++;
+        }
+        assertTrue(failed > inputs.size() / 4, "the mutants should mostly fail: " + failed + " of " + inputs.size());
+    }
+
+    @Test
+    public void AllocatesNextToNothingPerToken() throws Exception
+    {
+        byte[] large = Benchmark.GenerateSource(300, 30, false).getBytes(StandardCharsets.UTF_8);
+        byte[] error = Benchmark.GenerateSource(300, 30, true ).getBytes(StandardCharsets.UTF_8);
+        Allocation("corpus-succ", Corpus("succ_"));
+        Allocation("corpus-fail", Corpus("fail_"));
+        Allocation("large-succ" , List.of(large));
+        Allocation("large-fail" , List.of(error));
+    }
+
+    static void Allocation(String name, List<byte[]> files) throws Exception
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tokens = 0;
+        for(byte[] file : files)
+            tokens += Benchmark.CountTokens(new ByteLexer(ByteBuffer.wrap(file)));
+        int rounds = (int) Math.max(3, 2000000 / tokens);
+        for(int i=0; i<rounds; i++)                                  // warms up the JIT
+            Recognize(files);
+        long allocated0 = threads.getCurrentThreadAllocatedBytes();
+        for(int i=0; i<rounds; i++)
+            Recognize(files);
+        double perround = (threads.getCurrentThreadAllocatedBytes() - allocated0) / (double) rounds;
+        double pertoken = Math.max(0, perround - PER_FILE * files.size()) / tokens;
+        assertTrue(pertoken < PER_TOKEN, String.format("%s: %.3f bytes per token beyond %d per file (%.0f per round of %d files)",
+                                                       name, pertoken, PER_FILE, perround, files.size()));
+    }
+
+    static int Recognize(List<byte[]> files) throws Exception
+    {
+        int failed = 0;
+        for(byte[] file : files)
+            failed += Benchmark.Check(ByteBuffer.wrap(file), Parser.ENGINE_RECOGNIZER);
+        return failed;
+    }
+}
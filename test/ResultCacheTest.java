@@ -0,0 +1,136 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest
+{
+    // A run of Batch that reads every result from a ResultCache reports what a run without the
+    // cache does, in each Report format, and a cache is cut back to its size limit after a run,
+    // whichever the format (a jsonl or sarif result keeps no text). The classes a check loads are
+    // all in the FINGERPRINT (ResultCache.OUTPUT), but for those that print nothing (NOT_OUTPUT).
+
+    static final int      FILES      = 200;
+    static final String[] NOT_OUTPUT = { "ResultCache", "Events", "Metrics" };     // the entry format is VERSION
+
+    @TempDir
+    Path root;
+
+    List<Path> Sources() throws IOException
+    {
+        // generated files of several sizes, one in 10 with a syntax error at its end
+        List<Path> files = new ArrayList<Path>();
+        for(int i=0; i<FILES; i++)
+        {
+            Path file = root.resolve("src").resolve("f" + i + ".minc");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, Benchmark.GenerateSource(1 + i % 7, 5 + i % 13, i % 10 == 0));
+            files.add(file);
+        }
+        return files;
+    }
+
+    static String Run(List<Path> files, String format, ResultCache cache) throws Exception
+    {
+        // the report of a run, without the times (and the cache's mark on a result) that differ
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Batch.Run(files, Report.Of(format, out), 2, 1, cache);
+        return out.toString("UTF-8").replaceAll("\"micros\":[0-9]+", "\"micros\":0")
+                                    .replace(",\"cached\":true", "")
+                                    .replaceAll(" \\(\\d+ from the cache, \\d+ checked\\)", "")     // the summary of text
+                                    .replaceAll(",\"note\":\"\\d+ from the cache, \\d+ checked\"", "");  // and of sarif
+    }
+
+    @Test
+    public void HitsReportWhatAParseDoes() throws Exception
+    {
+        List<Path> files = Sources();
+        for(String format : new String[] { "text", "jsonl", "sarif" })
+        {
+            Path        dir      = root.resolve("cache-" + format);
+            String      expected = Run(files, format, null);
+            ResultCache cold     = new ResultCache(dir, ResultCache.DEFAULT_LIMIT);
+            assertEquals(expected, Run(files, format, cold), format + ", into an empty cache");
+            assertEquals(FILES, cold.hits.get() + cold.misses.get(), format);     // equal files hit each other
+            ResultCache warm     = new ResultCache(dir, ResultCache.DEFAULT_LIMIT);
+            assertEquals(expected, Run(files, format, warm), format + ", from the cache");
+            assertEquals(FILES, warm.hits.get(), format);
+        }
+    }
+
+    @Test
+    public void EvictsToItsLimitInEveryFormat() throws Exception
+    {
+        List<Path> files = Sources();
+        for(String format : new String[] { "text", "jsonl", "sarif" })
+        {
+            Path        full  = root.resolve("full-" + format);
+            Run(files, format, new ResultCache(full, ResultCache.DEFAULT_LIMIT));
+            long        size  = Size(full);
+            Path        dir   = root.resolve("half-" + format);
+            ResultCache cache = new ResultCache(dir, size / 2);
+            Run(files, format, cache);
+            cache.Evict();
+            assertTrue(Size(dir) <= size / 2, format + ": " + Size(dir) + " bytes left of " + size + ", limit " + size / 2);
+            assertTrue(Size(dir) > 0, format + ": the most recent entries are kept");
+        }
+    }
+
+    static Set<String> Loaded(String... args) throws Exception
+    {
+        // the classes of the checker (with the classes nested in them) that a run of Program loads
+        String       classes = ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toString();
+        List<String> command = new ArrayList<String>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                                                             "-XX:ActiveProcessorCount=4", "-Xlog:class+load=info",
+                                                             "-cp", Path.of(new java.net.URI(classes)).toString(), "Program"));
+        command.addAll(List.of(args));
+        Process run = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String  log = new String(run.getInputStream().readAllBytes(), "UTF-8");
+        run.waitFor();
+        Set<String> loaded = new TreeSet<String>();
+        for(String line : log.split("\n"))
+        {
+            int at = line.indexOf(" source: " + classes);
+            if(at < 0)
+                continue;
+            String name = line.substring(line.lastIndexOf("] ", at) + 2, at);
+            loaded.add(name.contains("$") ? name.substring(0, name.indexOf('$')) : name);
+        }
+        return loaded;
+    }
+
+    @Test
+    public void TheFingerprintCoversTheClassesOfACheck() throws Exception
+    {
+        Sources();
+        Path large = root.resolve("large.minc");
+        Files.writeString(large, Benchmark.GenerateSource(650, 300, false));   // ~9 MB, parsed in chunks
+        String   cache = root.resolve("cache").toString();
+        String   dir   = root.resolve("src").toString();
+        String[][] runs = {
+            { "--cache", cache, "testcases/fail_01.minc"                   },
+            { "--cache", cache, "--max-errors", "10", large.toString()    },
+            { "--cache", cache, dir                                        },
+            { "--cache", cache, "--format", "sarif", dir                   },
+        };
+        List<String> covered = new ArrayList<String>(List.of(ResultCache.OUTPUT));
+        covered.addAll(List.of(NOT_OUTPUT));
+        for(String[] args : runs)
+        {
+            Set<String> loaded = Loaded(args);
+            assertTrue(loaded.contains("Parser"), String.join(" ", args) + ": no check ran");
+            loaded.removeAll(covered);
+            assertEquals(Set.of(), loaded, String.join(" ", args) + ": loaded, and not in ResultCache.OUTPUT");
+        }
+    }
+
+    static long Size(Path dir) throws IOException
+    {
+        try(var walk = Files.walk(dir))
+        {
+            return walk.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}